@@ -15,7 +15,6 @@
  */
 package com.mercateo.spring.security.jwt.security;
 
-import com.auth0.jwt.JWT;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.mercateo.spring.security.jwt.security.config.JWTAuthority;
 import com.mercateo.spring.security.jwt.token.claim.JWTClaim;
@@ -70,7 +69,8 @@ public class JWTAuthenticationProvider extends AbstractUserDetailsAuthentication
       throw new InvalidTokenException(message, e);
     }
 
-    final DecodedJWT token = JWT.decode(tokenString);
+    // the token has already been decoded once during claim extraction
+    final DecodedJWT token = claims.token();
     final String subject = token.getSubject();
     final int id = subject != null ? subject.hashCode() : 0;
     final List<? extends GrantedAuthority> authorities = retrieveAuthorities(claims);
@@ -17,6 +17,7 @@ package com.mercateo.spring.security.jwt.security;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.mercateo.spring.security.jwt.token.exception.InvalidTokenException;
+import com.mercateo.spring.security.jwt.token.parser.TokenSegments;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
@@ -94,8 +95,9 @@ public class JWTAuthenticationTokenFilter extends AbstractAuthenticationProcessi
       // signal super class to stop processing
       return null;
     }
-    // existence of whitespace is ensured in isInvalidTokenPrefixForBearer
-    final String authToken = tokenHeader.split("\\s+")[1];
+    // existence of the prefix is ensured in isInvalidTokenPrefixForBearer
+    final String authToken =
+        TokenSegments.locate(tokenHeader, TOKEN_PREFIX_BEARER.length()).token();
     return getAuthenticationManager().authenticate(new JWTAuthenticationToken(authToken));
   }
 
@@ -19,6 +19,7 @@ import static java.util.Objects.requireNonNull;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.mercateo.spring.security.jwt.data.ClaimName;
+import com.mercateo.spring.security.jwt.token.claim.ClaimTable;
 import com.mercateo.spring.security.jwt.token.claim.JWTClaim;
 import java.util.Collection;
 import java.util.Collections;
@@ -54,7 +55,8 @@ public class JWTPrincipal implements UserDetails {
     this.username = username;
     this.token = token;
     this.authorities = Collections.unmodifiableList(authorities);
-    this.claims = Collections.unmodifiableMap(claims);
+    // claim tables are immutable already
+    this.claims = claims instanceof ClaimTable ? claims : Collections.unmodifiableMap(claims);
   }
 
   @SuppressWarnings("unused")
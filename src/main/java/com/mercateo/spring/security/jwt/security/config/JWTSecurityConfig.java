@@ -24,8 +24,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -44,6 +46,15 @@ public final class JWTSecurityConfig implements JWTConfig {
   private final Set<String> requiredClaims;
   private final Set<String> optionalClaims;
   private final JWTKeyset jwtKeyset;
+  private final boolean streamingClaimExtraction;
+  private final long verifiedTokenCacheSize;
+  private final boolean verifiedTokenCacheStats;
+  private final Map<String, String> hmacSecrets;
+  private final Set<String> tokenIssuers;
+  private final long rejectedTokenCacheSize;
+  private final int rejectedTokenCacheSeconds;
+  private final int singleFlightWaitMillis;
+  private final int clockResolutionMillis;
   private final transient Optional<JWTVerifier> jwtVerifier;
   private final Set<String> anonymousPaths;
   private final Set<HttpMethod> anonymousMethods;
@@ -54,13 +65,43 @@ public final class JWTSecurityConfig implements JWTConfig {
     this.requiredClaims = createUnmodifiableSet(builder.requiredClaims);
     this.optionalClaims = createUnmodifiableSet(builder.optionalClaims);
     this.jwtKeyset = builder.jwtKeyset;
+    this.hmacSecrets = createUnmodifiableMap(false, false, builder.hmacSecrets);
+    this.tokenIssuers = createUnmodifiableSet(builder.tokenIssuers);
     this.anonymousPaths = createUnmodifiableSet(builder.anonymousPaths);
     this.anonymousMethods = createUnmodifiableEnumSet(builder.anonymousMethods);
     this.authenticationFailureHandler = builder.authenticationFailureHandler;
     if (builder.tokenLeewayIsSet()) {
       initShim.tokenLeeway(builder.tokenLeeway);
     }
+    if (builder.streamingClaimExtractionIsSet()) {
+      initShim.streamingClaimExtraction(builder.streamingClaimExtraction);
+    }
+    if (builder.verifiedTokenCacheSizeIsSet()) {
+      initShim.verifiedTokenCacheSize(builder.verifiedTokenCacheSize);
+    }
+    if (builder.verifiedTokenCacheStatsIsSet()) {
+      initShim.verifiedTokenCacheStats(builder.verifiedTokenCacheStats);
+    }
+    if (builder.rejectedTokenCacheSizeIsSet()) {
+      initShim.rejectedTokenCacheSize(builder.rejectedTokenCacheSize);
+    }
+    if (builder.rejectedTokenCacheSecondsIsSet()) {
+      initShim.rejectedTokenCacheSeconds(builder.rejectedTokenCacheSeconds);
+    }
+    if (builder.singleFlightWaitMillisIsSet()) {
+      initShim.singleFlightWaitMillis(builder.singleFlightWaitMillis);
+    }
+    if (builder.clockResolutionMillisIsSet()) {
+      initShim.clockResolutionMillis(builder.clockResolutionMillis);
+    }
     this.tokenLeeway = initShim.getTokenLeeway();
+    this.streamingClaimExtraction = initShim.isStreamingClaimExtraction();
+    this.verifiedTokenCacheSize = initShim.getVerifiedTokenCacheSize();
+    this.verifiedTokenCacheStats = initShim.isVerifiedTokenCacheStats();
+    this.rejectedTokenCacheSize = initShim.getRejectedTokenCacheSize();
+    this.rejectedTokenCacheSeconds = initShim.getRejectedTokenCacheSeconds();
+    this.singleFlightWaitMillis = initShim.getSingleFlightWaitMillis();
+    this.clockResolutionMillis = initShim.getClockResolutionMillis();
     this.jwtVerifier = initShim.jwtVerifier();
     this.initShim = null;
   }
@@ -71,18 +112,43 @@ public final class JWTSecurityConfig implements JWTConfig {
       Set<String> requiredClaims,
       Set<String> optionalClaims,
       JWTKeyset jwtKeyset,
+      boolean streamingClaimExtraction,
+      long verifiedTokenCacheSize,
+      boolean verifiedTokenCacheStats,
+      Map<String, String> hmacSecrets,
+      Set<String> tokenIssuers,
+      long rejectedTokenCacheSize,
+      int rejectedTokenCacheSeconds,
+      int singleFlightWaitMillis,
+      int clockResolutionMillis,
       Set<String> anonymousPaths,
       Set<HttpMethod> anonymousMethods,
       AuthenticationFailureHandler authenticationFailureHandler) {
     initShim.tokenLeeway(tokenLeeway);
+    initShim.streamingClaimExtraction(streamingClaimExtraction);
+    initShim.verifiedTokenCacheSize(verifiedTokenCacheSize);
+    initShim.verifiedTokenCacheStats(verifiedTokenCacheStats);
+    initShim.rejectedTokenCacheSize(rejectedTokenCacheSize);
+    initShim.rejectedTokenCacheSeconds(rejectedTokenCacheSeconds);
+    initShim.singleFlightWaitMillis(singleFlightWaitMillis);
+    initShim.clockResolutionMillis(clockResolutionMillis);
     this.tokenAudiences = tokenAudiences;
     this.requiredClaims = requiredClaims;
     this.optionalClaims = optionalClaims;
     this.jwtKeyset = jwtKeyset;
+    this.hmacSecrets = hmacSecrets;
+    this.tokenIssuers = tokenIssuers;
     this.anonymousPaths = anonymousPaths;
     this.anonymousMethods = anonymousMethods;
     this.authenticationFailureHandler = authenticationFailureHandler;
     this.tokenLeeway = initShim.getTokenLeeway();
+    this.streamingClaimExtraction = initShim.isStreamingClaimExtraction();
+    this.verifiedTokenCacheSize = initShim.getVerifiedTokenCacheSize();
+    this.verifiedTokenCacheStats = initShim.isVerifiedTokenCacheStats();
+    this.rejectedTokenCacheSize = initShim.getRejectedTokenCacheSize();
+    this.rejectedTokenCacheSeconds = initShim.getRejectedTokenCacheSeconds();
+    this.singleFlightWaitMillis = initShim.getSingleFlightWaitMillis();
+    this.clockResolutionMillis = initShim.getClockResolutionMillis();
     this.jwtVerifier = initShim.jwtVerifier();
     this.initShim = null;
   }
@@ -126,10 +192,157 @@ public final class JWTSecurityConfig implements JWTConfig {
       return this.jwtVerifier;
     }
 
+    private byte streamingClaimExtractionBuildStage = STAGE_UNINITIALIZED;
+    private boolean streamingClaimExtraction;
+
+    boolean isStreamingClaimExtraction() {
+      if (streamingClaimExtractionBuildStage == STAGE_INITIALIZING)
+        throw new IllegalStateException(formatInitCycleMessage());
+      if (streamingClaimExtractionBuildStage == STAGE_UNINITIALIZED) {
+        streamingClaimExtractionBuildStage = STAGE_INITIALIZING;
+        this.streamingClaimExtraction = isStreamingClaimExtractionInitialize();
+        streamingClaimExtractionBuildStage = STAGE_INITIALIZED;
+      }
+      return this.streamingClaimExtraction;
+    }
+
+    void streamingClaimExtraction(boolean streamingClaimExtraction) {
+      this.streamingClaimExtraction = streamingClaimExtraction;
+      streamingClaimExtractionBuildStage = STAGE_INITIALIZED;
+    }
+
+    private byte verifiedTokenCacheSizeBuildStage = STAGE_UNINITIALIZED;
+    private long verifiedTokenCacheSize;
+
+    long getVerifiedTokenCacheSize() {
+      if (verifiedTokenCacheSizeBuildStage == STAGE_INITIALIZING)
+        throw new IllegalStateException(formatInitCycleMessage());
+      if (verifiedTokenCacheSizeBuildStage == STAGE_UNINITIALIZED) {
+        verifiedTokenCacheSizeBuildStage = STAGE_INITIALIZING;
+        this.verifiedTokenCacheSize = getVerifiedTokenCacheSizeInitialize();
+        verifiedTokenCacheSizeBuildStage = STAGE_INITIALIZED;
+      }
+      return this.verifiedTokenCacheSize;
+    }
+
+    void verifiedTokenCacheSize(long verifiedTokenCacheSize) {
+      this.verifiedTokenCacheSize = verifiedTokenCacheSize;
+      verifiedTokenCacheSizeBuildStage = STAGE_INITIALIZED;
+    }
+
+    private byte verifiedTokenCacheStatsBuildStage = STAGE_UNINITIALIZED;
+    private boolean verifiedTokenCacheStats;
+
+    boolean isVerifiedTokenCacheStats() {
+      if (verifiedTokenCacheStatsBuildStage == STAGE_INITIALIZING)
+        throw new IllegalStateException(formatInitCycleMessage());
+      if (verifiedTokenCacheStatsBuildStage == STAGE_UNINITIALIZED) {
+        verifiedTokenCacheStatsBuildStage = STAGE_INITIALIZING;
+        this.verifiedTokenCacheStats = isVerifiedTokenCacheStatsInitialize();
+        verifiedTokenCacheStatsBuildStage = STAGE_INITIALIZED;
+      }
+      return this.verifiedTokenCacheStats;
+    }
+
+    void verifiedTokenCacheStats(boolean verifiedTokenCacheStats) {
+      this.verifiedTokenCacheStats = verifiedTokenCacheStats;
+      verifiedTokenCacheStatsBuildStage = STAGE_INITIALIZED;
+    }
+
+    private byte rejectedTokenCacheSizeBuildStage = STAGE_UNINITIALIZED;
+    private long rejectedTokenCacheSize;
+
+    long getRejectedTokenCacheSize() {
+      if (rejectedTokenCacheSizeBuildStage == STAGE_INITIALIZING)
+        throw new IllegalStateException(formatInitCycleMessage());
+      if (rejectedTokenCacheSizeBuildStage == STAGE_UNINITIALIZED) {
+        rejectedTokenCacheSizeBuildStage = STAGE_INITIALIZING;
+        this.rejectedTokenCacheSize = getRejectedTokenCacheSizeInitialize();
+        rejectedTokenCacheSizeBuildStage = STAGE_INITIALIZED;
+      }
+      return this.rejectedTokenCacheSize;
+    }
+
+    void rejectedTokenCacheSize(long rejectedTokenCacheSize) {
+      this.rejectedTokenCacheSize = rejectedTokenCacheSize;
+      rejectedTokenCacheSizeBuildStage = STAGE_INITIALIZED;
+    }
+
+    private byte rejectedTokenCacheSecondsBuildStage = STAGE_UNINITIALIZED;
+    private int rejectedTokenCacheSeconds;
+
+    int getRejectedTokenCacheSeconds() {
+      if (rejectedTokenCacheSecondsBuildStage == STAGE_INITIALIZING)
+        throw new IllegalStateException(formatInitCycleMessage());
+      if (rejectedTokenCacheSecondsBuildStage == STAGE_UNINITIALIZED) {
+        rejectedTokenCacheSecondsBuildStage = STAGE_INITIALIZING;
+        this.rejectedTokenCacheSeconds = getRejectedTokenCacheSecondsInitialize();
+        rejectedTokenCacheSecondsBuildStage = STAGE_INITIALIZED;
+      }
+      return this.rejectedTokenCacheSeconds;
+    }
+
+    void rejectedTokenCacheSeconds(int rejectedTokenCacheSeconds) {
+      this.rejectedTokenCacheSeconds = rejectedTokenCacheSeconds;
+      rejectedTokenCacheSecondsBuildStage = STAGE_INITIALIZED;
+    }
+
+    private byte singleFlightWaitMillisBuildStage = STAGE_UNINITIALIZED;
+    private int singleFlightWaitMillis;
+
+    int getSingleFlightWaitMillis() {
+      if (singleFlightWaitMillisBuildStage == STAGE_INITIALIZING)
+        throw new IllegalStateException(formatInitCycleMessage());
+      if (singleFlightWaitMillisBuildStage == STAGE_UNINITIALIZED) {
+        singleFlightWaitMillisBuildStage = STAGE_INITIALIZING;
+        this.singleFlightWaitMillis = getSingleFlightWaitMillisInitialize();
+        singleFlightWaitMillisBuildStage = STAGE_INITIALIZED;
+      }
+      return this.singleFlightWaitMillis;
+    }
+
+    void singleFlightWaitMillis(int singleFlightWaitMillis) {
+      this.singleFlightWaitMillis = singleFlightWaitMillis;
+      singleFlightWaitMillisBuildStage = STAGE_INITIALIZED;
+    }
+
+    private byte clockResolutionMillisBuildStage = STAGE_UNINITIALIZED;
+    private int clockResolutionMillis;
+
+    int getClockResolutionMillis() {
+      if (clockResolutionMillisBuildStage == STAGE_INITIALIZING)
+        throw new IllegalStateException(formatInitCycleMessage());
+      if (clockResolutionMillisBuildStage == STAGE_UNINITIALIZED) {
+        clockResolutionMillisBuildStage = STAGE_INITIALIZING;
+        this.clockResolutionMillis = getClockResolutionMillisInitialize();
+        clockResolutionMillisBuildStage = STAGE_INITIALIZED;
+      }
+      return this.clockResolutionMillis;
+    }
+
+    void clockResolutionMillis(int clockResolutionMillis) {
+      this.clockResolutionMillis = clockResolutionMillis;
+      clockResolutionMillisBuildStage = STAGE_INITIALIZED;
+    }
+
     private String formatInitCycleMessage() {
       List<String> attributes = new ArrayList<>();
       if (tokenLeewayBuildStage == STAGE_INITIALIZING) attributes.add("tokenLeeway");
       if (jwtVerifierBuildStage == STAGE_INITIALIZING) attributes.add("jwtVerifier");
+      if (streamingClaimExtractionBuildStage == STAGE_INITIALIZING)
+        attributes.add("streamingClaimExtraction");
+      if (verifiedTokenCacheSizeBuildStage == STAGE_INITIALIZING)
+        attributes.add("verifiedTokenCacheSize");
+      if (verifiedTokenCacheStatsBuildStage == STAGE_INITIALIZING)
+        attributes.add("verifiedTokenCacheStats");
+      if (rejectedTokenCacheSizeBuildStage == STAGE_INITIALIZING)
+        attributes.add("rejectedTokenCacheSize");
+      if (rejectedTokenCacheSecondsBuildStage == STAGE_INITIALIZING)
+        attributes.add("rejectedTokenCacheSeconds");
+      if (singleFlightWaitMillisBuildStage == STAGE_INITIALIZING)
+        attributes.add("singleFlightWaitMillis");
+      if (clockResolutionMillisBuildStage == STAGE_INITIALIZING)
+        attributes.add("clockResolutionMillis");
       return "Cannot build JWTSecurityConfig, attribute initializers form cycle " + attributes;
     }
   }
@@ -138,10 +351,39 @@ public final class JWTSecurityConfig implements JWTConfig {
     return 0;
   }
 
+  private boolean isStreamingClaimExtractionInitialize() {
+    return false;
+  }
+
+  private long getVerifiedTokenCacheSizeInitialize() {
+    return 0;
+  }
+
+  private boolean isVerifiedTokenCacheStatsInitialize() {
+    return false;
+  }
+
+  private long getRejectedTokenCacheSizeInitialize() {
+    return 0;
+  }
+
+  private int getRejectedTokenCacheSecondsInitialize() {
+    return 60;
+  }
+
+  private int getSingleFlightWaitMillisInitialize() {
+    return 0;
+  }
+
+  private int getClockResolutionMillisInitialize() {
+    return 100;
+  }
+
   private Optional<JWTVerifier> jwtVerifierInitialize() {
-    return jwtKeyset()
-        .map(jwks -> new JWTVerifierFactory(jwks, this))
-        .map(JWTVerifierFactory::create);
+    if (!jwtKeyset().isPresent() && getHmacSecrets().isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(new JWTVerifierFactory(this).create());
   }
 
   /**
@@ -179,6 +421,85 @@ public final class JWTSecurityConfig implements JWTConfig {
     return Optional.ofNullable(jwtKeyset);
   }
 
+  /**
+   * @return whether token payloads are scanned as a stream that only keeps the configured claims
+   *     instead of being parsed into a full tree
+   */
+  @Override
+  public boolean isStreamingClaimExtraction() {
+    InitShim shim = this.initShim;
+    return shim != null ? shim.isStreamingClaimExtraction() : this.streamingClaimExtraction;
+  }
+
+  /**
+   * @return maximum number of verified tokens whose extracted claims are cached, {@code 0} disables
+   *     the cache
+   */
+  @Override
+  public long getVerifiedTokenCacheSize() {
+    InitShim shim = this.initShim;
+    return shim != null ? shim.getVerifiedTokenCacheSize() : this.verifiedTokenCacheSize;
+  }
+
+  /** @return whether hit and miss counters of the verified token cache are recorded */
+  @Override
+  public boolean isVerifiedTokenCacheStats() {
+    InitShim shim = this.initShim;
+    return shim != null ? shim.isVerifiedTokenCacheStats() : this.verifiedTokenCacheStats;
+  }
+
+  /** @return shared secrets of HMAC (HS256, HS384, HS512) signed tokens by issuer ("iss") */
+  @Override
+  public Map<String, String> getHmacSecrets() {
+    return hmacSecrets;
+  }
+
+  /** @return accepted issuers ("iss") of verified tokens, any issuer is accepted if empty */
+  @Override
+  public Set<String> getTokenIssuers() {
+    return tokenIssuers;
+  }
+
+  /**
+   * @return maximum number of tokens with a mismatching signature which are rejected without
+   *     verifying them again, {@code 0} disables the cache
+   */
+  @Override
+  public long getRejectedTokenCacheSize() {
+    InitShim shim = this.initShim;
+    return shim != null ? shim.getRejectedTokenCacheSize() : this.rejectedTokenCacheSize;
+  }
+
+  /**
+   * @return seconds for which a token with a mismatching signature is rejected without verifying it
+   *     again
+   */
+  @Override
+  public int getRejectedTokenCacheSeconds() {
+    InitShim shim = this.initShim;
+    return shim != null ? shim.getRejectedTokenCacheSeconds() : this.rejectedTokenCacheSeconds;
+  }
+
+  /**
+   * @return milliseconds to wait for the concurrent extraction of the same token, {@code 0}
+   *     disables sharing concurrent extractions
+   */
+  @Override
+  public int getSingleFlightWaitMillis() {
+    InitShim shim = this.initShim;
+    return shim != null ? shim.getSingleFlightWaitMillis() : this.singleFlightWaitMillis;
+  }
+
+  /**
+   * @return milliseconds in which the clock of the expiry checks is refreshed, a token is accepted
+   *     for up to this long after it expired
+   */
+  @Override
+  public int getClockResolutionMillis() {
+    InitShim shim = this.initShim;
+    return shim != null ? shim.getClockResolutionMillis() : this.clockResolutionMillis;
+  }
+
   /** @return {@link JWTVerifier} for given {@link JWTKeyset} to be used for token verification */
   @Override
   public Optional<JWTVerifier> jwtVerifier() {
@@ -217,6 +538,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -238,6 +568,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -260,6 +599,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -281,6 +629,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         newValue,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -303,6 +660,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         newValue,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -324,6 +690,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         newValue,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -346,6 +721,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         newValue,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -367,6 +751,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         newValue,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -390,6 +783,318 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         value,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object by setting a value for the {@link
+   * JWTSecurityConfig#isStreamingClaimExtraction() streamingClaimExtraction} attribute. A value
+   * equality check is used to prevent copying of the same value by returning {@code this}.
+   *
+   * @param value A new value for streamingClaimExtraction
+   * @return A modified copy of the {@code this} object
+   */
+  public final JWTSecurityConfig withStreamingClaimExtraction(boolean value) {
+    if (this.streamingClaimExtraction == value) return this;
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        value,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object by setting a value for the {@link
+   * JWTSecurityConfig#getVerifiedTokenCacheSize() verifiedTokenCacheSize} attribute. A value
+   * equality check is used to prevent copying of the same value by returning {@code this}.
+   *
+   * @param value A new value for verifiedTokenCacheSize
+   * @return A modified copy of the {@code this} object
+   */
+  public final JWTSecurityConfig withVerifiedTokenCacheSize(long value) {
+    if (this.verifiedTokenCacheSize == value) return this;
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        this.streamingClaimExtraction,
+        value,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object by setting a value for the {@link
+   * JWTSecurityConfig#isVerifiedTokenCacheStats() verifiedTokenCacheStats} attribute. A value
+   * equality check is used to prevent copying of the same value by returning {@code this}.
+   *
+   * @param value A new value for verifiedTokenCacheStats
+   * @return A modified copy of the {@code this} object
+   */
+  public final JWTSecurityConfig withVerifiedTokenCacheStats(boolean value) {
+    if (this.verifiedTokenCacheStats == value) return this;
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        value,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object by replacing the {@link JWTSecurityConfig#getHmacSecrets()
+   * hmacSecrets} map with the specified map. Nulls are not permitted as keys or values. A shallow
+   * reference equality check is used to prevent copying of the same value by returning {@code
+   * this}.
+   *
+   * @param entries The entries to be added to the hmacSecrets map
+   * @return A modified copy of {@code this} object
+   */
+  public final JWTSecurityConfig withHmacSecrets(Map<String, ? extends String> entries) {
+    if (this.hmacSecrets == entries) return this;
+    Map<String, String> newValue = createUnmodifiableMap(true, false, entries);
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        newValue,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object with elements that replace the content of {@link
+   * JWTSecurityConfig#getTokenIssuers() tokenIssuers}.
+   *
+   * @param elements The elements to set
+   * @return A modified copy of {@code this} object
+   */
+  public final JWTSecurityConfig withTokenIssuers(String... elements) {
+    Set<String> newValue =
+        createUnmodifiableSet(createSafeList(Arrays.asList(elements), true, false));
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        newValue,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object with elements that replace the content of {@link
+   * JWTSecurityConfig#getTokenIssuers() tokenIssuers}. A shallow reference equality check is used
+   * to prevent copying of the same value by returning {@code this}.
+   *
+   * @param elements An iterable of tokenIssuers elements to set
+   * @return A modified copy of {@code this} object
+   */
+  public final JWTSecurityConfig withTokenIssuers(Iterable<String> elements) {
+    if (this.tokenIssuers == elements) return this;
+    Set<String> newValue = createUnmodifiableSet(createSafeList(elements, true, false));
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        newValue,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object by setting a value for the {@link
+   * JWTSecurityConfig#getRejectedTokenCacheSize() rejectedTokenCacheSize} attribute. A value
+   * equality check is used to prevent copying of the same value by returning {@code this}.
+   *
+   * @param value A new value for rejectedTokenCacheSize
+   * @return A modified copy of the {@code this} object
+   */
+  public final JWTSecurityConfig withRejectedTokenCacheSize(long value) {
+    if (this.rejectedTokenCacheSize == value) return this;
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        value,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object by setting a value for the {@link
+   * JWTSecurityConfig#getRejectedTokenCacheSeconds() rejectedTokenCacheSeconds} attribute. A value
+   * equality check is used to prevent copying of the same value by returning {@code this}.
+   *
+   * @param value A new value for rejectedTokenCacheSeconds
+   * @return A modified copy of the {@code this} object
+   */
+  public final JWTSecurityConfig withRejectedTokenCacheSeconds(int value) {
+    if (this.rejectedTokenCacheSeconds == value) return this;
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        value,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object by setting a value for the {@link
+   * JWTSecurityConfig#getSingleFlightWaitMillis() singleFlightWaitMillis} attribute. A value
+   * equality check is used to prevent copying of the same value by returning {@code this}.
+   *
+   * @param value A new value for singleFlightWaitMillis
+   * @return A modified copy of the {@code this} object
+   */
+  public final JWTSecurityConfig withSingleFlightWaitMillis(int value) {
+    if (this.singleFlightWaitMillis == value) return this;
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        value,
+        this.clockResolutionMillis,
+        this.anonymousPaths,
+        this.anonymousMethods,
+        this.authenticationFailureHandler);
+  }
+
+  /**
+   * Copy the current immutable object by setting a value for the {@link
+   * JWTSecurityConfig#getClockResolutionMillis() clockResolutionMillis} attribute. A value equality
+   * check is used to prevent copying of the same value by returning {@code this}.
+   *
+   * @param value A new value for clockResolutionMillis
+   * @return A modified copy of the {@code this} object
+   */
+  public final JWTSecurityConfig withClockResolutionMillis(int value) {
+    if (this.clockResolutionMillis == value) return this;
+    return new JWTSecurityConfig(
+        this.tokenLeeway,
+        this.tokenAudiences,
+        this.requiredClaims,
+        this.optionalClaims,
+        this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        value,
         this.anonymousPaths,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -411,6 +1116,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         newValue,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -433,6 +1147,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         newValue,
         this.anonymousMethods,
         this.authenticationFailureHandler);
@@ -453,6 +1176,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         newValue,
         this.authenticationFailureHandler);
@@ -475,6 +1207,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         newValue,
         this.authenticationFailureHandler);
@@ -498,6 +1239,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         newValue);
@@ -523,6 +1273,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         this.requiredClaims,
         this.optionalClaims,
         this.jwtKeyset,
+        this.streamingClaimExtraction,
+        this.verifiedTokenCacheSize,
+        this.verifiedTokenCacheStats,
+        this.hmacSecrets,
+        this.tokenIssuers,
+        this.rejectedTokenCacheSize,
+        this.rejectedTokenCacheSeconds,
+        this.singleFlightWaitMillis,
+        this.clockResolutionMillis,
         this.anonymousPaths,
         this.anonymousMethods,
         value);
@@ -546,6 +1305,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         && requiredClaims.equals(another.requiredClaims)
         && optionalClaims.equals(another.optionalClaims)
         && Objects.equals(jwtKeyset, another.jwtKeyset)
+        && streamingClaimExtraction == another.streamingClaimExtraction
+        && verifiedTokenCacheSize == another.verifiedTokenCacheSize
+        && verifiedTokenCacheStats == another.verifiedTokenCacheStats
+        && hmacSecrets.equals(another.hmacSecrets)
+        && tokenIssuers.equals(another.tokenIssuers)
+        && rejectedTokenCacheSize == another.rejectedTokenCacheSize
+        && rejectedTokenCacheSeconds == another.rejectedTokenCacheSeconds
+        && singleFlightWaitMillis == another.singleFlightWaitMillis
+        && clockResolutionMillis == another.clockResolutionMillis
         && jwtVerifier.equals(another.jwtVerifier)
         && anonymousPaths.equals(another.anonymousPaths)
         && anonymousMethods.equals(another.anonymousMethods)
@@ -554,7 +1322,10 @@ public final class JWTSecurityConfig implements JWTConfig {
 
   /**
    * Computes a hash code from attributes: {@code tokenLeeway}, {@code tokenAudiences}, {@code
-   * requiredClaims}, {@code optionalClaims}, {@code jwtKeyset}, {@code jwtVerifier}, {@code
+   * requiredClaims}, {@code optionalClaims}, {@code jwtKeyset}, {@code streamingClaimExtraction},
+   * {@code verifiedTokenCacheSize}, {@code verifiedTokenCacheStats}, {@code hmacSecrets}, {@code
+   * tokenIssuers}, {@code rejectedTokenCacheSize}, {@code rejectedTokenCacheSeconds}, {@code
+   * singleFlightWaitMillis}, {@code clockResolutionMillis}, {@code jwtVerifier}, {@code
    * anonymousPaths}, {@code anonymousMethods}, {@code authenticationFailureHandler}.
    *
    * @return hashCode value
@@ -567,6 +1338,15 @@ public final class JWTSecurityConfig implements JWTConfig {
     h += (h << 5) + requiredClaims.hashCode();
     h += (h << 5) + optionalClaims.hashCode();
     h += (h << 5) + Objects.hashCode(jwtKeyset);
+    h += (h << 5) + Boolean.hashCode(streamingClaimExtraction);
+    h += (h << 5) + Long.hashCode(verifiedTokenCacheSize);
+    h += (h << 5) + Boolean.hashCode(verifiedTokenCacheStats);
+    h += (h << 5) + hmacSecrets.hashCode();
+    h += (h << 5) + tokenIssuers.hashCode();
+    h += (h << 5) + Long.hashCode(rejectedTokenCacheSize);
+    h += (h << 5) + rejectedTokenCacheSeconds;
+    h += (h << 5) + singleFlightWaitMillis;
+    h += (h << 5) + clockResolutionMillis;
     h += (h << 5) + jwtVerifier.hashCode();
     h += (h << 5) + anonymousPaths.hashCode();
     h += (h << 5) + anonymousMethods.hashCode();
@@ -594,6 +1374,22 @@ public final class JWTSecurityConfig implements JWTConfig {
       builder.append("jwtKeyset=").append(jwtKeyset);
     }
     builder.append(", ");
+    builder.append("streamingClaimExtraction=").append(streamingClaimExtraction);
+    builder.append(", ");
+    builder.append("verifiedTokenCacheSize=").append(verifiedTokenCacheSize);
+    builder.append(", ");
+    builder.append("verifiedTokenCacheStats=").append(verifiedTokenCacheStats);
+    builder.append(", ");
+    builder.append("tokenIssuers=").append(tokenIssuers);
+    builder.append(", ");
+    builder.append("rejectedTokenCacheSize=").append(rejectedTokenCacheSize);
+    builder.append(", ");
+    builder.append("rejectedTokenCacheSeconds=").append(rejectedTokenCacheSeconds);
+    builder.append(", ");
+    builder.append("singleFlightWaitMillis=").append(singleFlightWaitMillis);
+    builder.append(", ");
+    builder.append("clockResolutionMillis=").append(clockResolutionMillis);
+    builder.append(", ");
     builder.append("jwtVerifier=").append(jwtVerifier);
     builder.append(", ");
     builder.append("anonymousPaths=").append(anonymousPaths);
@@ -631,6 +1427,15 @@ public final class JWTSecurityConfig implements JWTConfig {
    *    .addRequiredClaims|addAllRequiredClaims(String) // {@link JWTSecurityConfig#getRequiredClaims() requiredClaims} elements
    *    .addOptionalClaims|addAllOptionalClaims(String) // {@link JWTSecurityConfig#getOptionalClaims() optionalClaims} elements
    *    .jwtKeyset(com.mercateo.spring.security.jwt.token.keyset.JWTKeyset) // optional {@link JWTSecurityConfig#jwtKeyset() jwtKeyset}
+   *    .streamingClaimExtraction(boolean) // optional {@link JWTSecurityConfig#isStreamingClaimExtraction() streamingClaimExtraction}
+   *    .verifiedTokenCacheSize(long) // optional {@link JWTSecurityConfig#getVerifiedTokenCacheSize() verifiedTokenCacheSize}
+   *    .verifiedTokenCacheStats(boolean) // optional {@link JWTSecurityConfig#isVerifiedTokenCacheStats() verifiedTokenCacheStats}
+   *    .putHmacSecrets|putAllHmacSecrets(String => String) // {@link JWTSecurityConfig#getHmacSecrets() hmacSecrets} mappings
+   *    .addTokenIssuers|addAllTokenIssuers(String) // {@link JWTSecurityConfig#getTokenIssuers() tokenIssuers} elements
+   *    .rejectedTokenCacheSize(long) // optional {@link JWTSecurityConfig#getRejectedTokenCacheSize() rejectedTokenCacheSize}
+   *    .rejectedTokenCacheSeconds(int) // optional {@link JWTSecurityConfig#getRejectedTokenCacheSeconds() rejectedTokenCacheSeconds}
+   *    .singleFlightWaitMillis(int) // optional {@link JWTSecurityConfig#getSingleFlightWaitMillis() singleFlightWaitMillis}
+   *    .clockResolutionMillis(int) // optional {@link JWTSecurityConfig#getClockResolutionMillis() clockResolutionMillis}
    *    .addAnonymousPaths|addAllAnonymousPaths(String) // {@link JWTSecurityConfig#anonymousPaths() anonymousPaths} elements
    *    .addAnonymousMethods|addAllAnonymousMethods(org.springframework.http.HttpMethod) // {@link JWTSecurityConfig#anonymousMethods() anonymousMethods} elements
    *    .authenticationFailureHandler(org.springframework.security.web.authentication.AuthenticationFailureHandler) // optional {@link JWTSecurityConfig#authenticationFailureHandler() authenticationFailureHandler}
@@ -652,6 +1457,13 @@ public final class JWTSecurityConfig implements JWTConfig {
    */
   public static final class Builder {
     private static final long OPT_BIT_TOKEN_LEEWAY = 0x1L;
+    private static final long OPT_BIT_STREAMING_CLAIM_EXTRACTION = 0x2L;
+    private static final long OPT_BIT_VERIFIED_TOKEN_CACHE_SIZE = 0x4L;
+    private static final long OPT_BIT_VERIFIED_TOKEN_CACHE_STATS = 0x8L;
+    private static final long OPT_BIT_REJECTED_TOKEN_CACHE_SIZE = 0x10L;
+    private static final long OPT_BIT_REJECTED_TOKEN_CACHE_SECONDS = 0x20L;
+    private static final long OPT_BIT_SINGLE_FLIGHT_WAIT_MILLIS = 0x40L;
+    private static final long OPT_BIT_CLOCK_RESOLUTION_MILLIS = 0x80L;
     private long optBits;
 
     private int tokenLeeway;
@@ -659,6 +1471,15 @@ public final class JWTSecurityConfig implements JWTConfig {
     private List<String> requiredClaims = new ArrayList<String>();
     private List<String> optionalClaims = new ArrayList<String>();
     private JWTKeyset jwtKeyset;
+    private boolean streamingClaimExtraction;
+    private long verifiedTokenCacheSize;
+    private boolean verifiedTokenCacheStats;
+    private Map<String, String> hmacSecrets = new LinkedHashMap<String, String>();
+    private List<String> tokenIssuers = new ArrayList<String>();
+    private long rejectedTokenCacheSize;
+    private int rejectedTokenCacheSeconds;
+    private int singleFlightWaitMillis;
+    private int clockResolutionMillis;
     private List<String> anonymousPaths = new ArrayList<String>();
     private EnumSet<HttpMethod> anonymousMethods = EnumSet.noneOf(HttpMethod.class);
     private AuthenticationFailureHandler authenticationFailureHandler;
@@ -702,6 +1523,15 @@ public final class JWTSecurityConfig implements JWTConfig {
         addAllTokenAudiences(instance.getTokenAudiences());
         addAllRequiredClaims(instance.getRequiredClaims());
         addAllOptionalClaims(instance.getOptionalClaims());
+        streamingClaimExtraction(instance.isStreamingClaimExtraction());
+        verifiedTokenCacheSize(instance.getVerifiedTokenCacheSize());
+        verifiedTokenCacheStats(instance.isVerifiedTokenCacheStats());
+        putAllHmacSecrets(instance.getHmacSecrets());
+        addAllTokenIssuers(instance.getTokenIssuers());
+        rejectedTokenCacheSize(instance.getRejectedTokenCacheSize());
+        rejectedTokenCacheSeconds(instance.getRejectedTokenCacheSeconds());
+        singleFlightWaitMillis(instance.getSingleFlightWaitMillis());
+        clockResolutionMillis(instance.getClockResolutionMillis());
       }
       if (object instanceof JWTSecurityConfig) {
         JWTSecurityConfig instance = (JWTSecurityConfig) object;
@@ -900,6 +1730,227 @@ public final class JWTSecurityConfig implements JWTConfig {
       return this;
     }
 
+    /**
+     * Initializes the value for the {@link JWTSecurityConfig#isStreamingClaimExtraction()
+     * streamingClaimExtraction} attribute.
+     *
+     * <p><em>If not set, this attribute will have a default value as returned by the initializer of
+     * {@link JWTSecurityConfig#isStreamingClaimExtraction() streamingClaimExtraction}.</em>
+     *
+     * @param streamingClaimExtraction The value for streamingClaimExtraction
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder streamingClaimExtraction(boolean streamingClaimExtraction) {
+      this.streamingClaimExtraction = streamingClaimExtraction;
+      optBits |= OPT_BIT_STREAMING_CLAIM_EXTRACTION;
+      return this;
+    }
+
+    /**
+     * Initializes the value for the {@link JWTSecurityConfig#getVerifiedTokenCacheSize()
+     * verifiedTokenCacheSize} attribute.
+     *
+     * <p><em>If not set, this attribute will have a default value as returned by the initializer of
+     * {@link JWTSecurityConfig#getVerifiedTokenCacheSize() verifiedTokenCacheSize}.</em>
+     *
+     * @param verifiedTokenCacheSize The value for verifiedTokenCacheSize
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder verifiedTokenCacheSize(long verifiedTokenCacheSize) {
+      this.verifiedTokenCacheSize = verifiedTokenCacheSize;
+      optBits |= OPT_BIT_VERIFIED_TOKEN_CACHE_SIZE;
+      return this;
+    }
+
+    /**
+     * Initializes the value for the {@link JWTSecurityConfig#isVerifiedTokenCacheStats()
+     * verifiedTokenCacheStats} attribute.
+     *
+     * <p><em>If not set, this attribute will have a default value as returned by the initializer of
+     * {@link JWTSecurityConfig#isVerifiedTokenCacheStats() verifiedTokenCacheStats}.</em>
+     *
+     * @param verifiedTokenCacheStats The value for verifiedTokenCacheStats
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder verifiedTokenCacheStats(boolean verifiedTokenCacheStats) {
+      this.verifiedTokenCacheStats = verifiedTokenCacheStats;
+      optBits |= OPT_BIT_VERIFIED_TOKEN_CACHE_STATS;
+      return this;
+    }
+
+    /**
+     * Put one entry to the {@link JWTSecurityConfig#getHmacSecrets() hmacSecrets} map.
+     *
+     * @param key The key in the hmacSecrets map
+     * @param value The associated value in the hmacSecrets map
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder putHmacSecrets(String key, String value) {
+      this.hmacSecrets.put(
+          Objects.requireNonNull(key, "hmacSecrets key"),
+          Objects.requireNonNull(value, "hmacSecrets value"));
+      return this;
+    }
+
+    /**
+     * Put one entry to the {@link JWTSecurityConfig#getHmacSecrets() hmacSecrets} map. Nulls are
+     * not permitted
+     *
+     * @param entry The key and value entry
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder putHmacSecrets(Map.Entry<String, ? extends String> entry) {
+      String k = entry.getKey();
+      String v = entry.getValue();
+      this.hmacSecrets.put(
+          Objects.requireNonNull(k, "hmacSecrets key"),
+          Objects.requireNonNull(v, "hmacSecrets value"));
+      return this;
+    }
+
+    /**
+     * Sets or replaces all mappings from the specified map as entries for the {@link
+     * JWTSecurityConfig#getHmacSecrets() hmacSecrets} map. Nulls are not permitted
+     *
+     * @param entries The entries that will be added to the hmacSecrets map
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder hmacSecrets(Map<String, ? extends String> entries) {
+      this.hmacSecrets.clear();
+      return putAllHmacSecrets(entries);
+    }
+
+    /**
+     * Put all mappings from the specified map as entries to {@link
+     * JWTSecurityConfig#getHmacSecrets() hmacSecrets} map. Nulls are not permitted
+     *
+     * @param entries The entries that will be added to the hmacSecrets map
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder putAllHmacSecrets(Map<String, ? extends String> entries) {
+      for (Map.Entry<String, ? extends String> e : entries.entrySet()) {
+        String k = e.getKey();
+        String v = e.getValue();
+        this.hmacSecrets.put(
+            Objects.requireNonNull(k, "hmacSecrets key"),
+            Objects.requireNonNull(v, "hmacSecrets value"));
+      }
+      return this;
+    }
+
+    /**
+     * Adds one element to {@link JWTSecurityConfig#getTokenIssuers() tokenIssuers} set.
+     *
+     * @param element A tokenIssuers element
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder addTokenIssuers(String element) {
+      this.tokenIssuers.add(Objects.requireNonNull(element, "tokenIssuers element"));
+      return this;
+    }
+
+    /**
+     * Adds elements to {@link JWTSecurityConfig#getTokenIssuers() tokenIssuers} set.
+     *
+     * @param elements An array of tokenIssuers elements
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder addTokenIssuers(String... elements) {
+      for (String element : elements) {
+        this.tokenIssuers.add(Objects.requireNonNull(element, "tokenIssuers element"));
+      }
+      return this;
+    }
+
+    /**
+     * Sets or replaces all elements for {@link JWTSecurityConfig#getTokenIssuers() tokenIssuers}
+     * set.
+     *
+     * @param elements An iterable of tokenIssuers elements
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder tokenIssuers(Iterable<String> elements) {
+      this.tokenIssuers.clear();
+      return addAllTokenIssuers(elements);
+    }
+
+    /**
+     * Adds elements to {@link JWTSecurityConfig#getTokenIssuers() tokenIssuers} set.
+     *
+     * @param elements An iterable of tokenIssuers elements
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder addAllTokenIssuers(Iterable<String> elements) {
+      for (String element : elements) {
+        this.tokenIssuers.add(Objects.requireNonNull(element, "tokenIssuers element"));
+      }
+      return this;
+    }
+
+    /**
+     * Initializes the value for the {@link JWTSecurityConfig#getRejectedTokenCacheSize()
+     * rejectedTokenCacheSize} attribute.
+     *
+     * <p><em>If not set, this attribute will have a default value as returned by the initializer of
+     * {@link JWTSecurityConfig#getRejectedTokenCacheSize() rejectedTokenCacheSize}.</em>
+     *
+     * @param rejectedTokenCacheSize The value for rejectedTokenCacheSize
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder rejectedTokenCacheSize(long rejectedTokenCacheSize) {
+      this.rejectedTokenCacheSize = rejectedTokenCacheSize;
+      optBits |= OPT_BIT_REJECTED_TOKEN_CACHE_SIZE;
+      return this;
+    }
+
+    /**
+     * Initializes the value for the {@link JWTSecurityConfig#getRejectedTokenCacheSeconds()
+     * rejectedTokenCacheSeconds} attribute.
+     *
+     * <p><em>If not set, this attribute will have a default value as returned by the initializer of
+     * {@link JWTSecurityConfig#getRejectedTokenCacheSeconds() rejectedTokenCacheSeconds}.</em>
+     *
+     * @param rejectedTokenCacheSeconds The value for rejectedTokenCacheSeconds
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder rejectedTokenCacheSeconds(int rejectedTokenCacheSeconds) {
+      this.rejectedTokenCacheSeconds = rejectedTokenCacheSeconds;
+      optBits |= OPT_BIT_REJECTED_TOKEN_CACHE_SECONDS;
+      return this;
+    }
+
+    /**
+     * Initializes the value for the {@link JWTSecurityConfig#getSingleFlightWaitMillis()
+     * singleFlightWaitMillis} attribute.
+     *
+     * <p><em>If not set, this attribute will have a default value as returned by the initializer of
+     * {@link JWTSecurityConfig#getSingleFlightWaitMillis() singleFlightWaitMillis}.</em>
+     *
+     * @param singleFlightWaitMillis The value for singleFlightWaitMillis
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder singleFlightWaitMillis(int singleFlightWaitMillis) {
+      this.singleFlightWaitMillis = singleFlightWaitMillis;
+      optBits |= OPT_BIT_SINGLE_FLIGHT_WAIT_MILLIS;
+      return this;
+    }
+
+    /**
+     * Initializes the value for the {@link JWTSecurityConfig#getClockResolutionMillis()
+     * clockResolutionMillis} attribute.
+     *
+     * <p><em>If not set, this attribute will have a default value as returned by the initializer of
+     * {@link JWTSecurityConfig#getClockResolutionMillis() clockResolutionMillis}.</em>
+     *
+     * @param clockResolutionMillis The value for clockResolutionMillis
+     * @return {@code this} builder for use in a chained invocation
+     */
+    public final Builder clockResolutionMillis(int clockResolutionMillis) {
+      this.clockResolutionMillis = clockResolutionMillis;
+      optBits |= OPT_BIT_CLOCK_RESOLUTION_MILLIS;
+      return this;
+    }
+
     /**
      * Adds one element to {@link JWTSecurityConfig#anonymousPaths() anonymousPaths} set.
      *
@@ -1038,6 +2089,34 @@ public final class JWTSecurityConfig implements JWTConfig {
     private boolean tokenLeewayIsSet() {
       return (optBits & OPT_BIT_TOKEN_LEEWAY) != 0;
     }
+
+    private boolean streamingClaimExtractionIsSet() {
+      return (optBits & OPT_BIT_STREAMING_CLAIM_EXTRACTION) != 0;
+    }
+
+    private boolean verifiedTokenCacheSizeIsSet() {
+      return (optBits & OPT_BIT_VERIFIED_TOKEN_CACHE_SIZE) != 0;
+    }
+
+    private boolean verifiedTokenCacheStatsIsSet() {
+      return (optBits & OPT_BIT_VERIFIED_TOKEN_CACHE_STATS) != 0;
+    }
+
+    private boolean rejectedTokenCacheSizeIsSet() {
+      return (optBits & OPT_BIT_REJECTED_TOKEN_CACHE_SIZE) != 0;
+    }
+
+    private boolean rejectedTokenCacheSecondsIsSet() {
+      return (optBits & OPT_BIT_REJECTED_TOKEN_CACHE_SECONDS) != 0;
+    }
+
+    private boolean singleFlightWaitMillisIsSet() {
+      return (optBits & OPT_BIT_SINGLE_FLIGHT_WAIT_MILLIS) != 0;
+    }
+
+    private boolean clockResolutionMillisIsSet() {
+      return (optBits & OPT_BIT_CLOCK_RESOLUTION_MILLIS) != 0;
+    }
   }
 
   private static <T> List<T> createSafeList(
@@ -1087,4 +2166,46 @@ public final class JWTSecurityConfig implements JWTConfig {
         return Collections.unmodifiableSet(EnumSet.copyOf(list));
     }
   }
+
+  private static <K, V> Map<K, V> createUnmodifiableMap(
+      boolean checkNulls, boolean skipNulls, Map<? extends K, ? extends V> map) {
+    switch (map.size()) {
+      case 0:
+        return Collections.emptyMap();
+      case 1:
+        {
+          Map.Entry<? extends K, ? extends V> e = map.entrySet().iterator().next();
+          K k = e.getKey();
+          V v = e.getValue();
+          if (checkNulls) {
+            Objects.requireNonNull(k, "key");
+            Objects.requireNonNull(v, "value");
+          }
+          if (skipNulls && (k == null || v == null)) {
+            return Collections.emptyMap();
+          }
+          return Collections.singletonMap(k, v);
+        }
+      default:
+        {
+          Map<K, V> linkedMap = new LinkedHashMap<>(map.size());
+          if (skipNulls || checkNulls) {
+            for (Map.Entry<? extends K, ? extends V> e : map.entrySet()) {
+              K k = e.getKey();
+              V v = e.getValue();
+              if (skipNulls) {
+                if (k == null || v == null) continue;
+              } else if (checkNulls) {
+                Objects.requireNonNull(k, "key");
+                Objects.requireNonNull(v, "value");
+              }
+              linkedMap.put(k, v);
+            }
+          } else {
+            linkedMap.putAll(map);
+          }
+          return Collections.unmodifiableMap(linkedMap);
+        }
+    }
+  }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.support;
+
+import java.time.Duration;
+
+/**
+ * Source of the current time since the epoch for expiry checks. Implementations are expected to be
+ * cheap to call, tests control the time by passing a lambda.
+ */
+@FunctionalInterface
+public interface EpochClock {
+
+  /** @return current time in milliseconds since the epoch */
+  long epochMillis();
+
+  /** @return current time in whole seconds since the epoch */
+  default long epochSeconds() {
+    return Math.floorDiv(epochMillis(), 1000L);
+  }
+
+  /** @return clock reading the system time on every call */
+  static EpochClock system() {
+    return System::currentTimeMillis;
+  }
+
+  /**
+   * @return shared clock refreshed by a background ticker every {@link
+   *     TickingEpochClock#DEFAULT_RESOLUTION}
+   */
+  static EpochClock coarse() {
+    return coarse(TickingEpochClock.DEFAULT_RESOLUTION);
+  }
+
+  /**
+   * @param resolution interval in which the clock is refreshed
+   * @return clock refreshed by a background ticker in the given resolution, shared with all callers
+   *     of the same resolution
+   * @throws IllegalArgumentException if the resolution is not positive
+   */
+  static EpochClock coarse(Duration resolution) throws IllegalArgumentException {
+    return TickingEpochClock.shared(resolution);
+  }
+
+  /**
+   * @param resolution interval in which the clock is refreshed
+   * @return new clock refreshed by its own background ticker until it is closed
+   * @throws IllegalArgumentException if the resolution is not positive
+   */
+  static TickingEpochClock ticking(Duration resolution) throws IllegalArgumentException {
+    return TickingEpochClock.start(resolution);
+  }
+}
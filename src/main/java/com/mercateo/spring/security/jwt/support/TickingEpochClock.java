@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.support;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EpochClock} reading the system time once per tick of a daemon thread, so that reading the
+ * clock is a single volatile read. The time lags behind the system time by at most the resolution.
+ */
+public final class TickingEpochClock implements EpochClock, AutoCloseable {
+
+  public static final Duration DEFAULT_RESOLUTION = Duration.ofMillis(100);
+
+  /** clocks shared by resolution, they are never closed */
+  private static final ConcurrentMap<Duration, TickingEpochClock> SHARED =
+      new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService ticker;
+
+  private volatile long epochMillis;
+
+  private TickingEpochClock(ScheduledExecutorService ticker) {
+    this.ticker = ticker;
+    this.epochMillis = System.currentTimeMillis();
+  }
+
+  static TickingEpochClock start(Duration resolution) {
+    if (resolution.isNegative() || resolution.isZero()) {
+      throw new IllegalArgumentException("The resolution must be positive, but was " + resolution);
+    }
+    final TickingEpochClock clock =
+        new TickingEpochClock(
+            Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder()
+                    .setNameFormat("epoch-clock-%d")
+                    .setDaemon(true)
+                    .build()));
+    final long nanos = resolution.toNanos();
+    clock.ticker.scheduleAtFixedRate(clock::tick, nanos, nanos, TimeUnit.NANOSECONDS);
+    return clock;
+  }
+
+  static EpochClock shared(Duration resolution) {
+    return SHARED.computeIfAbsent(resolution, TickingEpochClock::start);
+  }
+
+  private void tick() {
+    epochMillis = System.currentTimeMillis();
+  }
+
+  @Override
+  public long epochMillis() {
+    return epochMillis;
+  }
+
+  /** stops the ticker, the clock keeps the time of its last tick */
+  @Override
+  public void close() {
+    ticker.shutdownNow();
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.claim;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+/**
+ * Fixed assignment of claim names to slots, compiled once for a set of configured claim names.
+ *
+ * <p>The slot of a name is found through a perfect hash table: the multiplier of the hash function
+ * is chosen so that no two distinct hash codes of the configured names share a table entry. A
+ * lookup therefore costs one multiplication, one array access and a single string comparison. Names
+ * with equal hash codes are chained, which the perfect hash cannot separate.
+ */
+public final class ClaimSlots {
+
+  private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+  private static final int ATTEMPTS_PER_SIZE = 32;
+
+  private final String[] names;
+
+  private final int[] hashes;
+
+  private final int[] sameHash;
+
+  private final int[] table;
+
+  private final int mask;
+
+  private final int multiplier;
+
+  private ClaimSlots(String[] names, int[] hashes, int[] sameHash, int[] table, int multiplier) {
+    this.names = names;
+    this.hashes = hashes;
+    this.sameHash = sameHash;
+    this.table = table;
+    this.mask = table.length - 1;
+    this.multiplier = multiplier;
+  }
+
+  /**
+   * @param claimNames names of the claims, slots are assigned in iteration order
+   * @return compiled slots for the given names
+   */
+  public static ClaimSlots of(Collection<String> claimNames) {
+    final String[] names = new LinkedHashSet<>(claimNames).toArray(new String[0]);
+    final int[] hashes = new int[names.length];
+    final int[] sameHash = new int[names.length];
+    Arrays.fill(sameHash, -1);
+    for (int slot = 0; slot < names.length; slot++) {
+      hashes[slot] = names[slot].hashCode();
+      for (int other = slot - 1; other >= 0; other--) {
+        if (hashes[other] == hashes[slot] && sameHash[other] < 0) {
+          sameHash[other] = slot;
+          break;
+        }
+      }
+    }
+
+    int size = Integer.highestOneBit(Math.max(1, names.length * 2 - 1)) << 1;
+    while (true) {
+      for (int attempt = 0; attempt < ATTEMPTS_PER_SIZE; attempt++) {
+        final int multiplier = GOLDEN_RATIO + 2 * attempt;
+        final int[] table = buildTable(names, hashes, size, multiplier);
+        if (table != null) {
+          return new ClaimSlots(names, hashes, sameHash, table, multiplier);
+        }
+      }
+      size <<= 1;
+    }
+  }
+
+  private static int[] buildTable(String[] names, int[] hashes, int size, int multiplier) {
+    final int[] table = new int[size];
+    Arrays.fill(table, -1);
+    for (int slot = 0; slot < names.length; slot++) {
+      final int index = index(hashes[slot], multiplier, size - 1);
+      if (table[index] < 0) {
+        table[index] = slot;
+      } else if (hashes[table[index]] != hashes[slot]) {
+        return null;
+      }
+    }
+    return table;
+  }
+
+  private static int index(int hash, int multiplier, int mask) {
+    final int mixed = hash * multiplier;
+    return (mixed ^ (mixed >>> 16)) & mask;
+  }
+
+  /**
+   * @param name claim name
+   * @return slot of the given name or {@code -1} if the name is not configured
+   */
+  public int slotOf(String name) {
+    final int hash = name.hashCode();
+    int slot = table[index(hash, multiplier, mask)];
+    if (slot < 0 || hashes[slot] != hash) {
+      return -1;
+    }
+    while (slot >= 0 && !names[slot].equals(name)) {
+      slot = sameHash[slot];
+    }
+    return slot;
+  }
+
+  /**
+   * @param slot slot index
+   * @return name assigned to the given slot
+   */
+  public String name(int slot) {
+    return names[slot];
+  }
+
+  /** @return number of slots */
+  public int size() {
+    return names.length;
+  }
+}
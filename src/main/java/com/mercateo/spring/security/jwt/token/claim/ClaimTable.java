@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.claim;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map of extracted claims which stores the values in an array indexed by the {@link
+ * ClaimSlots} compiled for the configured claim names.
+ */
+public final class ClaimTable extends AbstractMap<String, JWTClaim> {
+
+  private final ClaimSlots slots;
+
+  private final JWTClaim[] values;
+
+  private final int size;
+
+  private ClaimTable(ClaimSlots slots, JWTClaim[] values) {
+    if (values.length != slots.size()) {
+      throw new IllegalArgumentException(
+          String.format("expected %d values, but got %d", slots.size(), values.length));
+    }
+    this.slots = slots;
+    this.values = values;
+    int size = 0;
+    for (JWTClaim value : values) {
+      if (value != null) {
+        size++;
+      }
+    }
+    this.size = size;
+  }
+
+  /**
+   * @param slots slots of the claim names
+   * @param values claims by slot, {@code null} for absent claims. The array is taken over and must
+   *     not be modified afterwards.
+   * @return map of the given claims
+   */
+  public static ClaimTable of(ClaimSlots slots, JWTClaim[] values) {
+    return new ClaimTable(slots, values);
+  }
+
+  @Override
+  public JWTClaim get(Object key) {
+    final int slot = key instanceof String ? slots.slotOf((String) key) : -1;
+    return slot >= 0 ? values[slot] : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Entry<String, JWTClaim>> entrySet() {
+    return new AbstractSet<Entry<String, JWTClaim>>() {
+      @Override
+      public Iterator<Entry<String, JWTClaim>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, JWTClaim>> {
+
+    private int next = advance(0);
+
+    private int advance(int slot) {
+      while (slot < values.length && values[slot] == null) {
+        slot++;
+      }
+      return slot;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < values.length;
+    }
+
+    @Override
+    public Entry<String, JWTClaim> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final int slot = next;
+      next = advance(slot + 1);
+      return new SimpleImmutableEntry<>(slots.name(slot), values[slot]);
+    }
+  }
+}
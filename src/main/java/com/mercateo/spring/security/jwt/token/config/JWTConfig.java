@@ -15,9 +15,12 @@
  */
 package com.mercateo.spring.security.jwt.token.config;
 
+import com.mercateo.spring.security.jwt.support.TickingEpochClock;
 import com.mercateo.spring.security.jwt.token.keyset.JWTKeyset;
 import com.mercateo.spring.security.jwt.token.verifier.JWTVerifier;
 import com.mercateo.spring.security.jwt.token.verifier.JWTVerifierFactory;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -45,10 +48,94 @@ public interface JWTConfig {
   /** @return {@link JWTKeyset} to be used for token verification */
   Optional<JWTKeyset> jwtKeyset();
 
-  /** @return {@link JWTVerifier} for given {@link JWTKeyset} to be used for token verification */
+  /**
+   * @return whether token payloads are scanned as a stream that only keeps the configured claims
+   *     instead of being parsed into a full tree
+   *     <p>Claims which are neither required nor optional are then not available through {@link
+   *     com.mercateo.spring.security.jwt.token.claim.JWTClaims#token()}.
+   */
+  default boolean isStreamingClaimExtraction() {
+    return false;
+  }
+
+  /**
+   * @return maximum number of verified tokens whose extracted claims are cached, {@code 0} disables
+   *     the cache
+   *     <p>Cached claims are reused for identical tokens until the earliest expiry ("exp") of the
+   *     contained tokens minus the token leeway. Tokens without expiry are not cached.
+   */
+  default long getVerifiedTokenCacheSize() {
+    return 0;
+  }
+
+  /** @return whether hit and miss counters of the verified token cache are recorded */
+  default boolean isVerifiedTokenCacheStats() {
+    return false;
+  }
+
+  /**
+   * @return maximum number of tokens with a mismatching signature which are rejected without
+   *     verifying them again, {@code 0} disables the cache
+   *     <p>Only mismatching signatures are remembered, tokens failing for other reasons, e.g. being
+   *     expired or signed with an unknown key, are verified again.
+   */
+  default long getRejectedTokenCacheSize() {
+    return 0;
+  }
+
+  /**
+   * @return seconds for which a token with a mismatching signature is rejected without verifying it
+   *     again
+   */
+  default int getRejectedTokenCacheSeconds() {
+    return 60;
+  }
+
+  /**
+   * @return milliseconds to wait for the concurrent extraction of the same token instead of
+   *     verifying it again, {@code 0} disables sharing concurrent extractions
+   *     <p>A caller waiting longer extracts the claims itself.
+   */
+  default int getSingleFlightWaitMillis() {
+    return 0;
+  }
+
+  /**
+   * @return milliseconds in which the clock of the expiry checks is refreshed, a token is accepted
+   *     for up to this long after it expired
+   *     <p>Verifiers and caches of the same resolution share one clock and its ticker thread.
+   */
+  default int getClockResolutionMillis() {
+    return (int) TickingEpochClock.DEFAULT_RESOLUTION.toMillis();
+  }
+
+  /**
+   * @return shared secrets of HMAC (HS256, HS384, HS512) signed tokens by issuer ("iss")
+   *     <p>A token is verified with the secret of its issuer, its key id is ignored. Secrets must
+   *     have at least 256 bits, tokens signed with HS384 or HS512 are only verified with secrets of
+   *     at least 384 or 512 bits.
+   */
+  default Map<String, String> getHmacSecrets() {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * @return accepted issuers ("iss") of verified tokens, any issuer is accepted if empty
+   *     <p>Like the audiences, this applies to all verified tokens of a token hierarchy, so the
+   *     issuers of the HMAC secrets must be listed as well.
+   */
+  default Set<String> getTokenIssuers() {
+    return Collections.emptySet();
+  }
+
+  /**
+   * @return {@link JWTVerifier} for given {@link JWTKeyset} and HMAC secrets to be used for token
+   *     verification
+   */
   default Optional<JWTVerifier> jwtVerifier() {
-    return jwtKeyset()
-        .map(jwks -> new JWTVerifierFactory(jwks, this))
-        .map(JWTVerifierFactory::create);
+    if (!jwtKeyset().isPresent() && getHmacSecrets().isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(new JWTVerifierFactory(this).create());
   }
 }
@@ -15,80 +15,84 @@
  */
 package com.mercateo.spring.security.jwt.token.extractor;
 
+import com.auth0.jwt.exceptions.JWTDecodeException;
 import com.auth0.jwt.interfaces.Claim;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.BooleanNode;
-import com.fasterxml.jackson.databind.node.DoubleNode;
-import com.fasterxml.jackson.databind.node.IntNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.node.TextNode;
-import com.mercateo.spring.security.jwt.support.CollectionUtils;
-import com.mercateo.spring.security.jwt.support.Pair;
-import java.lang.reflect.Field;
+import com.mercateo.spring.security.jwt.token.parser.NodeClaim;
 import java.util.Iterator;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
+/**
+ * Converts claims into plain java values: strings, integers, doubles, booleans, arrays and maps.
+ * Other value types are extracted as {@code null}.
+ *
+ * <p>The conversion works on the node type of the claim and holds no state, so a single instance
+ * can be shared between threads.
+ */
 class ClaimExtractor {
 
-  private final Map<Class<?>, Function<Object, Object>> accessors =
-      CollectionUtils.mapOfTuples( //
-          Pair.of(TextNode.class, (node) -> ((TextNode) node).asText()), //
-          Pair.of(IntNode.class, (node) -> ((IntNode) node).asInt()), //
-          Pair.of(DoubleNode.class, (node) -> ((DoubleNode) node).asDouble()), //
-          Pair.of(BooleanNode.class, (node) -> ((BooleanNode) node).asBoolean()), //
-          Pair.of(ArrayNode.class, (node) -> extractArray((ArrayNode) node)), //
-          Pair.of(ObjectNode.class, (node) -> extractObject((ObjectNode) node)));
-
   Object extract(Claim claim) {
-    final Class<? extends Claim> claimClass = claim.getClass();
-    if (claimClass.getSimpleName().equals("JsonNodeClaim")) {
+    final JsonNode node;
+    if (claim instanceof NodeClaim) {
+      node = ((NodeClaim) claim).node();
+    } else if (claim == null || claim.isNull()) {
+      return null;
+    } else {
+      // claims decoded by java-jwt do not expose their node, let the claim convert itself
       try {
-        final Field data = claimClass.getDeclaredField("data");
-        data.setAccessible(true);
-        return extractNode(data.get(claim));
-      } catch (IllegalAccessException | NoSuchFieldException e) {
+        node = claim.as(JsonNode.class);
+      } catch (JWTDecodeException e) {
         return null;
       }
     }
-    return null;
+    return node != null ? extractNode(node) : null;
   }
 
-  private Object extractNode(Object rawClaim) {
-    Function<Object, Object> accessorOption = accessors.get(rawClaim.getClass());
-    if (accessorOption == null) {
-      return null;
+  private Object extractNode(JsonNode node) {
+    switch (node.getNodeType()) {
+      case STRING:
+        return node.textValue();
+      case NUMBER:
+        return extractNumber(node);
+      case BOOLEAN:
+        return node.booleanValue();
+      case ARRAY:
+        return extractArray(node);
+      case OBJECT:
+        return extractObject(node);
+      default:
+        return null;
     }
-    return accessorOption.apply(rawClaim);
   }
 
-  private Object extractArray(ArrayNode node) {
-    return asStream(node.elements()).map(this::extractNode).toArray();
+  private Object extractNumber(JsonNode node) {
+    switch (node.numberType()) {
+      case INT:
+        return node.intValue();
+      case DOUBLE:
+        return node.doubleValue();
+      default:
+        return null;
+    }
   }
 
-  private Object extractObject(ObjectNode node) {
-    final Map<String, List<Entry<String, JsonNode>>> groupedByKey =
-        asStream(node.fields()).collect(Collectors.groupingBy(Entry::getKey));
-
-    return CollectionUtils.mapOfTuples(
-        groupedByKey.entrySet().stream()
-            .map(
-                e -> {
-                  final Entry<String, JsonNode> head = e.getValue().get(0);
-                  final Object jsonNode = extractNode(head.getValue());
-                  return Pair.of(e.getKey(), jsonNode);
-                })
-            .collect(Collectors.toList()));
+  private Object extractArray(JsonNode node) {
+    final Object[] values = new Object[node.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = extractNode(node.get(i));
+    }
+    return values;
   }
 
-  public static <T> Stream<T> asStream(Iterator<T> sourceIterator) {
-    final Iterable<T> iterable = () -> sourceIterator;
-    return StreamSupport.stream(iterable.spliterator(), false);
+  private Object extractObject(JsonNode node) {
+    final Map<String, Object> values = new LinkedHashMap<>();
+    final Iterator<Entry<String, JsonNode>> fields = node.fields();
+    while (fields.hasNext()) {
+      final Entry<String, JsonNode> field = fields.next();
+      values.put(field.getKey(), extractNode(field.getValue()));
+    }
+    return values;
   }
 }
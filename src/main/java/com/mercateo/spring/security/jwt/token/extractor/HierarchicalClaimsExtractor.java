@@ -19,14 +19,13 @@ import static java.util.Objects.requireNonNull;
 
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
-import com.mercateo.spring.security.jwt.support.Pair;
+import com.mercateo.spring.security.jwt.token.claim.ClaimSlots;
 import com.mercateo.spring.security.jwt.token.claim.JWTClaim;
 import com.mercateo.spring.security.jwt.token.verifier.TokenVerifier;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.Set;
-import java.util.Stack;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 /**
  * Warning: do not reuse instance, the extractor keeps internal state like depth,
@@ -39,74 +38,87 @@ class HierarchicalClaimsExtractor {
 
   private final TokenVerifier verifier;
 
-  private final Set<String> claimNames;
+  private final ClaimSlots claimSlots;
 
   private final ClaimExtractor claimExtractor;
 
-  private int depth;
-
   private int verifiedTokenCount;
 
+  private DecodedJWT outermostToken;
+
+  private Date earliestExpiresAt;
+
   HierarchicalClaimsExtractor(
       TokenProcessor tokenProcessor,
       TokenVerifier verifier,
-      Set<String> claimNames,
+      ClaimSlots claimSlots,
       ClaimExtractor claimExtractor) {
     this.tokenProcessor = tokenProcessor;
     this.verifier = verifier;
-    this.claimNames = claimNames;
+    this.claimSlots = claimSlots;
     this.claimExtractor = claimExtractor;
 
-    depth = 0;
     verifiedTokenCount = 0;
   }
 
-  List<JWTClaim> extractClaims(String tokenString) {
-    final List<JWTClaim> claims = new ArrayList<>();
-
-    // this process is recursive, if we find a "jwt" we decode and collect claims
-    // unprocessedTokens to collect unprocessed tokens
-    final Stack<String> unprocessedTokens = new Stack<>();
-    unprocessedTokens.push(tokenString);
-
-    while (!unprocessedTokens.empty()) {
-      final DecodedJWT token = tokenProcessor.decodeToken(unprocessedTokens.pop());
+  /**
+   * @param tokenString outermost token
+   * @return extracted claims by slot, {@code null} for claims which are not contained in any token.
+   *     A claim contained in several tokens wraps the claim of the next inner token.
+   */
+  JWTClaim[] extractClaims(String tokenString) {
+    // this process is recursive, if we find a "jwt" we decode and verify it as well
+    final List<DecodedJWT> tokens = new ArrayList<>(2);
+    final List<Boolean> verifiedTokens = new ArrayList<>(2);
+
+    Optional<String> unprocessedToken = Optional.of(tokenString);
+    while (unprocessedToken.isPresent()) {
+      final DecodedJWT token = tokenProcessor.decodeToken(unprocessedToken.get());
+      if (outermostToken == null) {
+        outermostToken = token;
+      }
+      final Date expiresAt = token.getExpiresAt();
+      if (expiresAt != null && (earliestExpiresAt == null || expiresAt.before(earliestExpiresAt))) {
+        earliestExpiresAt = expiresAt;
+      }
       // if token contains a "jwt" key
-      tokenProcessor.wrappedToken(token, WRAPPED_TOKEN_KEY).ifPresent(unprocessedTokens::push);
-
-      boolean verified = verifyToken(token);
-      claims.addAll(extractClaims(token, verified));
+      unprocessedToken = tokenProcessor.wrappedToken(token, WRAPPED_TOKEN_KEY);
 
-      depth++;
+      tokens.add(token);
+      verifiedTokens.add(verifyToken(token));
     }
 
+    // claims are collected from the innermost token outwards, so that each claim can directly
+    // reference the claim of the same name from the next inner token
+    final JWTClaim[] claims = new JWTClaim[claimSlots.size()];
+    for (int depth = tokens.size() - 1; depth >= 0; depth--) {
+      extractClaims(tokens.get(depth), verifiedTokens.get(depth), depth, claims);
+    }
     return claims;
   }
 
-  private List<JWTClaim> extractClaims(DecodedJWT token, boolean verified) {
-
-    return claimNames.stream()
-        // for all names: lookup claim value from token by name
-        .map(claimName -> Pair.of(claimName, token.getClaim(claimName)))
-        // ignore claims without value (so-called null claim)
-        .filter(nameAndClaim -> !nameAndClaim.second().isNull())
-        .map(
-            nameAndClaim -> {
-              final String claimName = nameAndClaim.first();
-              final Claim claim = nameAndClaim.second();
-              final String issuer =
-                  requireNonNull(token.getIssuer(), "token issuer (iss) not found");
-              final Object claimValue = claimExtractor.extract(claim);
-
-              return JWTClaim.builder()
-                  .name(claimName)
-                  .value(claimValue)
-                  .verified(verified)
-                  .issuer(issuer)
-                  .depth(depth)
-                  .build();
-            })
-        .collect(Collectors.toList());
+  private void extractClaims(DecodedJWT token, boolean verified, int depth, JWTClaim[] claims) {
+    String issuer = null;
+    for (int slot = 0; slot < claims.length; slot++) {
+      final String claimName = claimSlots.name(slot);
+      final Claim claim = token.getClaim(claimName);
+      // ignore claims without value (so-called null claim)
+      if (claim.isNull()) {
+        continue;
+      }
+      if (issuer == null) {
+        issuer = requireNonNull(token.getIssuer(), "token issuer (iss) not found");
+      }
+      claims[slot] =
+          JWTClaim.builder()
+              .name(claimName)
+              .value(claimExtractor.extract(claim))
+              .verified(verified)
+              .issuer(issuer)
+              .depth(depth)
+              .innerClaim(Optional.ofNullable(claims[slot]))
+              .build();
+    }
   }
 
   private boolean verifyToken(DecodedJWT token) {
@@ -121,4 +133,17 @@ class HierarchicalClaimsExtractor {
   int getVerifiedTokenCount() {
     return verifiedTokenCount;
   }
+
+  /** @return the decoded outermost token, available after {@link #extractClaims(String)} */
+  DecodedJWT getOutermostToken() {
+    return outermostToken;
+  }
+
+  /**
+   * @return the earliest expiry of all decoded tokens, available after {@link
+   *     #extractClaims(String)}
+   */
+  Optional<Date> getEarliestExpiresAt() {
+    return Optional.ofNullable(earliestExpiresAt);
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.extractor;
+
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.mercateo.spring.security.jwt.token.exception.InvalidTokenException;
+import java.security.SignatureException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, time limited cache of tokens whose signature did not match, keyed by the SHA-256 digest
+ * of the token string. Such a token sent again is rejected without decoding and verifying it.
+ *
+ * <p>Only mismatching signatures are cached. Failures which may pass later, like expired tokens or
+ * tokens of keys which are unknown or could not be looked up, are not. The hit count of the
+ * statistics is the number of saved verifications.
+ */
+class RejectedTokenCache {
+
+  private final Cache<HashCode, SignatureVerificationException> cache;
+
+  RejectedTokenCache(long maximumSize, Duration timeToLive) {
+    this(maximumSize, timeToLive, Ticker.systemTicker());
+  }
+
+  RejectedTokenCache(long maximumSize, Duration timeToLive, Ticker ticker) {
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive.toNanos(), TimeUnit.NANOSECONDS)
+            .ticker(ticker)
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * @param key digest of the token
+   * @param extractor extracts the claims of the token if it is not known to be rejected
+   * @param <T> type of the extracted claims
+   * @return extracted claims
+   * @throws InvalidTokenException if the token is known to have a mismatching signature or the
+   *     extraction failed
+   */
+  <T> T get(HashCode key, Supplier<T> extractor) {
+    final SignatureVerificationException rejection = cache.getIfPresent(key);
+    if (rejection != null) {
+      throw new InvalidTokenException("could not verify token", rejection);
+    }
+    try {
+      return extractor.get();
+    } catch (InvalidTokenException e) {
+      if (isSignatureMismatch(e.getCause())) {
+        cache.put(key, (SignatureVerificationException) e.getCause());
+      }
+      throw e;
+    }
+  }
+
+  private static boolean isSignatureMismatch(Throwable e) {
+    return e instanceof SignatureVerificationException
+        && (e.getCause() == null || e.getCause() instanceof SignatureException);
+  }
+
+  CacheStats stats() {
+    return cache.stats();
+  }
+
+  long size() {
+    return cache.size();
+  }
+}
@@ -15,24 +15,31 @@
  */
 package com.mercateo.spring.security.jwt.token.extractor;
 
+import com.mercateo.spring.security.jwt.token.claim.ClaimSlots;
 import com.mercateo.spring.security.jwt.token.claim.JWTClaim;
 import com.mercateo.spring.security.jwt.token.exception.MissingClaimException;
 import com.mercateo.spring.security.jwt.token.exception.MissingSignatureException;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 class RequiredClaimNamesValidator {
 
-  private final Set<String> requiredClaimNames;
+  private final ClaimSlots claimSlots;
 
-  RequiredClaimNamesValidator(Set<String> requiredClaimNames) {
-    this.requiredClaimNames =
-        Collections.unmodifiableSet(
-            Objects.requireNonNull(requiredClaimNames, "requiredClaimNames"));
+  private final int[] requiredSlots;
+
+  /**
+   * @param claimSlots slots of the extracted claims, containing all required claim names
+   * @param requiredClaimNames names of the required claims
+   */
+  RequiredClaimNamesValidator(ClaimSlots claimSlots, Set<String> requiredClaimNames) {
+    this.claimSlots = claimSlots;
+    this.requiredSlots =
+        Objects.requireNonNull(requiredClaimNames, "requiredClaimNames").stream()
+            .mapToInt(claimSlots::slotOf)
+            .toArray();
   }
 
   void ensureAtLeastOneVerifiedToken(int verifiedCount) {
@@ -41,13 +48,18 @@ class RequiredClaimNamesValidator {
     }
   }
 
-  void ensurePresenceOfRequiredClaims(List<JWTClaim> claims) {
-    final Set<String> existingClaimNames =
-        claims.stream().map(JWTClaim::name).collect(Collectors.toSet());
-    final Set<String> notExistingClaimNames = new HashSet<>(requiredClaimNames);
-    notExistingClaimNames.removeAll(existingClaimNames);
+  void ensurePresenceOfRequiredClaims(JWTClaim[] claims) {
+    List<String> notExistingClaimNames = null;
+    for (int slot : requiredSlots) {
+      if (claims[slot] == null) {
+        if (notExistingClaimNames == null) {
+          notExistingClaimNames = new ArrayList<>();
+        }
+        notExistingClaimNames.add(claimSlots.name(slot));
+      }
+    }
 
-    if (!notExistingClaimNames.isEmpty()) {
+    if (notExistingClaimNames != null) {
       throw new MissingClaimException(
           "missing required claim(s): " + String.join(", ", notExistingClaimNames));
     }
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.extractor;
+
+import com.google.common.hash.HashCode;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Shares the extraction of a token between concurrent callers, keyed by the SHA-256 digest of the
+ * token string.
+ *
+ * <p>The first caller extracts the claims, concurrent callers for the same token wait for its
+ * result or failure. A caller waiting longer than the configured time, or being interrupted,
+ * extracts the claims itself. Nothing is kept after the extraction completed.
+ */
+class SingleFlightExtraction {
+
+  private final ConcurrentMap<HashCode, CompletableFuture<Object>> inFlight =
+      new ConcurrentHashMap<>();
+
+  private final long waitMillis;
+
+  SingleFlightExtraction(long waitMillis) {
+    if (waitMillis <= 0) {
+      throw new IllegalArgumentException("The wait time must be positive, but was " + waitMillis);
+    }
+    this.waitMillis = waitMillis;
+  }
+
+  /**
+   * @param key digest of the token
+   * @param extractor extracts the claims of the token
+   * @param <T> type of the extracted claims
+   * @return claims extracted by this or a concurrent caller
+   */
+  <T> T get(HashCode key, Supplier<T> extractor) {
+    final CompletableFuture<Object> extraction = new CompletableFuture<>();
+    final CompletableFuture<Object> current = inFlight.putIfAbsent(key, extraction);
+    if (current != null) {
+      return await(current, extractor);
+    }
+
+    try {
+      final T result = extractor.get();
+      extraction.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      extraction.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, extraction);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T await(CompletableFuture<Object> current, Supplier<T> extractor) {
+    try {
+      return (T) current.get(waitMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw (Error) e.getCause();
+    } catch (TimeoutException e) {
+      return extractor.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return extractor.get();
+    }
+  }
+
+  int inFlight() {
+    return inFlight.size();
+  }
+}
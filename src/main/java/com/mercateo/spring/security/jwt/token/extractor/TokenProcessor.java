@@ -15,23 +15,67 @@
  */
 package com.mercateo.spring.security.jwt.token.extractor;
 
-import com.auth0.jwt.JWT;
 import com.auth0.jwt.exceptions.JWTDecodeException;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.mercateo.spring.security.jwt.token.exception.InvalidTokenException;
+import com.mercateo.spring.security.jwt.token.parser.TokenDecoder;
+import com.mercateo.spring.security.jwt.token.parser.TokenHeader;
+import com.mercateo.spring.security.jwt.token.parser.TokenSegments;
+import com.mercateo.spring.security.jwt.token.verifier.TokenVerifier;
 import java.util.Optional;
 
+/**
+ * Decodes the tokens of a token hierarchy. The header of each token is decoded and screened by the
+ * {@link TokenVerifier} first, so that tokens with a rejected algorithm or key id are dropped
+ * before their payload is decoded.
+ */
 class TokenProcessor {
 
+  private final TokenDecoder tokenDecoder;
+
+  private final TokenVerifier verifier;
+
+  TokenProcessor(TokenVerifier verifier) {
+    this(new TokenDecoder(), verifier);
+  }
+
+  TokenProcessor(TokenDecoder tokenDecoder, TokenVerifier verifier) {
+    this.tokenDecoder = tokenDecoder;
+    this.verifier = verifier;
+  }
+
   DecodedJWT decodeToken(String tokenString) {
+    final TokenSegments segments = TokenSegments.of(tokenString);
+    final TokenHeader header;
+    try {
+      header = tokenDecoder.decodeHeader(segments);
+    } catch (JWTDecodeException e) {
+      throw new InvalidTokenException("could not decode token", e);
+    }
+
+    verifier.screenHeader(header);
+
     try {
-      return JWT.decode(tokenString);
+      return tokenDecoder.decode(segments, header);
     } catch (JWTDecodeException e) {
       throw new InvalidTokenException("could not decode token", e);
     }
   }
 
+  /**
+   * @param tokenString token to read the key id from
+   * @return key id of the outermost token, empty if there is none or the header can not be decoded
+   */
+  Optional<String> keyId(String tokenString) {
+    try {
+      return Optional.ofNullable(
+          tokenDecoder.decodeHeader(TokenSegments.of(tokenString)).getKeyId());
+    } catch (JWTDecodeException e) {
+      return Optional.empty();
+    }
+  }
+
   Optional<String> wrappedToken(DecodedJWT token, String claimName) {
     final Claim claim = token.getClaim(claimName);
     return Optional //
@@ -15,18 +15,38 @@
  */
 package com.mercateo.spring.security.jwt.token.extractor;
 
-import com.auth0.jwt.JWT;
+import com.auth0.jwt.impl.PublicClaims;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.mercateo.spring.security.jwt.support.EpochClock;
+import com.mercateo.spring.security.jwt.support.Try;
+import com.mercateo.spring.security.jwt.token.claim.ClaimSlots;
+import com.mercateo.spring.security.jwt.token.claim.ClaimTable;
 import com.mercateo.spring.security.jwt.token.claim.JWTClaim;
 import com.mercateo.spring.security.jwt.token.claim.JWTClaims;
 import com.mercateo.spring.security.jwt.token.config.JWTConfig;
+import com.mercateo.spring.security.jwt.token.extractor.VerifiedTokenCache.ExtractedClaims;
+import com.mercateo.spring.security.jwt.token.parser.TokenDecoder;
 import com.mercateo.spring.security.jwt.token.verifier.JWTVerifier;
 import com.mercateo.spring.security.jwt.token.verifier.TokenVerifier;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -35,51 +55,211 @@ public class ValidatingHierarchicalClaimsExtractor {
   public static final List<String> AUTHORIZATION_CLAIMS =
       Arrays.asList("scope", "authorization", "roles");
 
+  /** claims which are kept in addition to the configured ones when streaming token payloads */
+  static final List<String> STREAMED_REGISTERED_CLAIMS =
+      Arrays.asList(
+          PublicClaims.ISSUER,
+          PublicClaims.SUBJECT,
+          PublicClaims.EXPIRES_AT,
+          PublicClaims.NOT_BEFORE,
+          PublicClaims.AUDIENCE,
+          HierarchicalClaimsExtractor.WRAPPED_TOKEN_KEY);
+
   private final TokenProcessor tokenProcessor;
 
   private final TokenVerifier verifier;
 
-  private final InnerClaimsWrapper collector;
+  private final ClaimExtractor claimExtractor;
 
   private final RequiredClaimNamesValidator requiredClaimNamesValidator;
 
-  private final Set<String> claims;
+  private final ClaimSlots claimSlots;
 
   private final Optional<JWTVerifier> jwtVerifier;
 
+  private final Optional<VerifiedTokenCache> verifiedTokenCache;
+
+  private final Optional<RejectedTokenCache> rejectedTokenCache;
+
+  private final Optional<SingleFlightExtraction> singleFlightExtraction;
+
   public ValidatingHierarchicalClaimsExtractor(final JWTConfig config) {
-    this.tokenProcessor = new TokenProcessor();
     this.jwtVerifier = config.jwtVerifier();
     this.verifier = new TokenVerifier(jwtVerifier);
-    this.requiredClaimNamesValidator = new RequiredClaimNamesValidator(config.getRequiredClaims());
-    this.collector = new InnerClaimsWrapper();
+    this.claimExtractor = new ClaimExtractor();
 
-    final HashSet<String> claimNames = new HashSet<>();
+    final Set<String> claimNames = new LinkedHashSet<>();
+    claimNames.addAll(config.getRequiredClaims());
     claimNames.addAll(config.getOptionalClaims());
     claimNames.addAll(AUTHORIZATION_CLAIMS);
-    claimNames.addAll(config.getRequiredClaims());
-    this.claims = Collections.unmodifiableSet(claimNames);
+    // each configured claim gets a fixed slot, extracted claims are stored by slot
+    this.claimSlots = ClaimSlots.of(claimNames);
+    this.requiredClaimNamesValidator =
+        new RequiredClaimNamesValidator(claimSlots, config.getRequiredClaims());
+
+    if (config.isStreamingClaimExtraction()) {
+      final HashSet<String> retainedClaims = new HashSet<>(claimNames);
+      retainedClaims.addAll(STREAMED_REGISTERED_CLAIMS);
+      this.tokenProcessor = new TokenProcessor(TokenDecoder.retaining(retainedClaims), verifier);
+    } else {
+      this.tokenProcessor = new TokenProcessor(verifier);
+    }
+
+    if (config.getVerifiedTokenCacheSize() > 0) {
+      this.verifiedTokenCache =
+          Optional.of(
+              new VerifiedTokenCache(
+                  config.getVerifiedTokenCacheSize(),
+                  config.isVerifiedTokenCacheStats(),
+                  config.getTokenLeeway(),
+                  EpochClock.coarse(Duration.ofMillis(config.getClockResolutionMillis()))));
+    } else {
+      this.verifiedTokenCache = Optional.empty();
+    }
+
+    if (config.getRejectedTokenCacheSize() > 0) {
+      this.rejectedTokenCache =
+          Optional.of(
+              new RejectedTokenCache(
+                  config.getRejectedTokenCacheSize(),
+                  Duration.ofSeconds(config.getRejectedTokenCacheSeconds())));
+    } else {
+      this.rejectedTokenCache = Optional.empty();
+    }
+
+    if (config.getSingleFlightWaitMillis() > 0) {
+      this.singleFlightExtraction =
+          Optional.of(new SingleFlightExtraction(config.getSingleFlightWaitMillis()));
+    } else {
+      this.singleFlightExtraction = Optional.empty();
+    }
 
     config.jwtVerifier().ifPresent(v -> log.info("use JWT verifier {}", v));
   }
 
   public JWTClaims extractClaims(final String tokenString) {
-    final ClaimExtractor claimExtractor = new ClaimExtractor();
+    if (!verifiedTokenCache.isPresent()
+        && !rejectedTokenCache.isPresent()
+        && !singleFlightExtraction.isPresent()) {
+      return extract(tokenString).claims();
+    }
+    // the caches and concurrent extractions share the digest of the token
+    final HashCode key = TokenDigest.of(tokenString);
+    if (rejectedTokenCache.isPresent()) {
+      return rejectedTokenCache.get().get(key, () -> extractCached(key, tokenString));
+    }
+    return extractCached(key, tokenString);
+  }
+
+  /**
+   * Extracts the claims of a batch of tokens. Duplicate tokens are extracted once. The tokens are
+   * grouped by the key id of their header, the key of each group is resolved once, the tokens of
+   * the group are verified in parallel afterwards.
+   *
+   * <p>Key lookups may block on fetching the keyset, the executor should therefore be a dedicated,
+   * bounded pool rather than the common pool.
+   *
+   * @param tokenStrings tokens to extract claims from
+   * @param executor executor to run the key lookups and extractions on
+   * @return result per token, in the order of the given tokens, a failed extraction, key lookup or
+   *     task rejected by the executor does not affect the other tokens
+   */
+  public List<Try<JWTClaims>> extractClaims(
+      final List<String> tokenStrings, final Executor executor) {
+    final Map<Optional<String>, List<String>> tokensByKeyId = new LinkedHashMap<>();
+    for (String tokenString : new LinkedHashSet<>(tokenStrings)) {
+      tokensByKeyId
+          .computeIfAbsent(tokenProcessor.keyId(tokenString), k -> new ArrayList<>())
+          .add(tokenString);
+    }
+
+    final Map<String, CompletableFuture<Try<JWTClaims>>> results = new HashMap<>();
+    tokensByKeyId.forEach(
+        (keyId, tokens) -> {
+          // resolving the key in advance is best effort, a failure is reported per token
+          final CompletableFuture<Void> keyResolved =
+              ValidatingHierarchicalClaimsExtractor.<Void>submit(
+                      () -> {
+                        keyId.ifPresent(id -> jwtVerifier.ifPresent(v -> v.resolveKey(id)));
+                        return null;
+                      },
+                      executor)
+                  .exceptionally(e -> null);
+          for (String tokenString : tokens) {
+            results.put(
+                tokenString,
+                keyResolved
+                    .thenCompose(r -> submit(() -> extractClaims(tokenString), executor))
+                    .handle(
+                        (claims, e) -> e == null ? Try.success(claims) : Try.failure(cause(e))));
+          }
+        });
+
+    return tokenStrings.stream()
+        .map(results::get)
+        .map(CompletableFuture::join)
+        .collect(Collectors.toList());
+  }
+
+  private static <T> CompletableFuture<T> submit(Supplier<T> task, Executor executor) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      final CompletableFuture<T> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(e);
+      return rejected;
+    }
+  }
+
+  private static Throwable cause(Throwable e) {
+    return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+  }
+
+  private JWTClaims extractCached(final HashCode key, final String tokenString) {
+    if (verifiedTokenCache.isPresent()) {
+      return verifiedTokenCache.get().get(key, tokenString, t -> extractShared(key, t));
+    }
+    return extractShared(key, tokenString).claims();
+  }
+
+  // only cache misses are shared with concurrent extractions of the same token
+  private ExtractedClaims extractShared(final HashCode key, final String tokenString) {
+    if (singleFlightExtraction.isPresent()) {
+      return singleFlightExtraction.get().get(key, () -> extract(tokenString));
+    }
+    return extract(tokenString);
+  }
+
+  private ExtractedClaims extract(final String tokenString) {
     final HierarchicalClaimsExtractor extractor =
-        new HierarchicalClaimsExtractor(tokenProcessor, verifier, claims, claimExtractor);
+        new HierarchicalClaimsExtractor(tokenProcessor, verifier, claimSlots, claimExtractor);
 
-    final List<JWTClaim> claims = extractor.extractClaims(tokenString);
+    final JWTClaim[] claims = extractor.extractClaims(tokenString);
 
     if (jwtVerifier.isPresent()) {
       requiredClaimNamesValidator.ensureAtLeastOneVerifiedToken(extractor.getVerifiedTokenCount());
     }
     requiredClaimNamesValidator.ensurePresenceOfRequiredClaims(claims);
 
-    return JWTClaims.builder()
-        .claims(collector.wrapInnerClaims(claims))
-        .verifiedCount(extractor.getVerifiedTokenCount())
-        .token(JWT.decode(tokenString))
-        .build();
+    return new ExtractedClaims(
+        new JWTClaims(
+            extractor.getOutermostToken(),
+            ClaimTable.of(claimSlots, claims),
+            extractor.getVerifiedTokenCount()),
+        extractor.getEarliestExpiresAt().map(Date::getTime));
+  }
+
+  /** @return statistics of the verified token cache, if the cache is enabled */
+  public Optional<CacheStats> verifiedTokenCacheStats() {
+    return verifiedTokenCache.map(VerifiedTokenCache::stats);
+  }
+
+  /**
+   * @return statistics of the rejected token cache, if the cache is enabled, its hit count is the
+   *     number of saved signature verifications
+   */
+  public Optional<CacheStats> rejectedTokenCacheStats() {
+    return rejectedTokenCache.map(RejectedTokenCache::stats);
   }
 
   public boolean hasJWTVerifier() {
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.extractor;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.mercateo.spring.security.jwt.support.EpochClock;
+import com.mercateo.spring.security.jwt.token.claim.JWTClaims;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Bounded cache of extracted claims, keyed by the SHA-256 digest of the token string.
+ *
+ * <p>An entry is only valid until the earliest expiry of the tokens it was extracted from minus the
+ * token leeway. Expired entries are treated as a miss and replaced. Results without expiry and
+ * failed extractions are never cached.
+ *
+ * <p>Hits and misses are counted by the cache itself, since an entry found in the underlying cache
+ * may already be expired.
+ */
+class VerifiedTokenCache {
+
+  private final Cache<HashCode, Entry> cache;
+
+  private final long leewayMillis;
+
+  private final EpochClock clock;
+
+  private final boolean recordStats;
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  VerifiedTokenCache(long maximumSize, boolean recordStats, int tokenLeeway, EpochClock clock) {
+    final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize);
+    this.cache = recordStats ? builder.recordStats().build() : builder.build();
+    this.leewayMillis = tokenLeeway * 1000L;
+    this.clock = clock;
+    this.recordStats = recordStats;
+  }
+
+  /**
+   * @param tokenString token to extract claims from
+   * @param extractor extracts the claims and their expiry on a cache miss
+   * @return cached or freshly extracted claims
+   */
+  JWTClaims get(String tokenString, Function<String, ExtractedClaims> extractor) {
+    return get(TokenDigest.of(tokenString), tokenString, extractor);
+  }
+
+  /**
+   * @param key digest of the token
+   * @param tokenString token to extract claims from
+   * @param extractor extracts the claims and their expiry on a cache miss
+   * @return cached or freshly extracted claims
+   */
+  JWTClaims get(HashCode key, String tokenString, Function<String, ExtractedClaims> extractor) {
+    // looked up through the map view, which does not record a hit for expired entries
+    final Entry entry = cache.asMap().get(key);
+    if (entry != null) {
+      if (clock.epochMillis() < entry.validUntil) {
+        record(hitCount);
+        return entry.claims;
+      }
+      cache.asMap().remove(key, entry);
+    }
+    record(missCount);
+
+    final ExtractedClaims extracted = extractor.apply(tokenString);
+    extracted
+        .expiresAt()
+        .map(expiresAt -> expiresAt - leewayMillis)
+        .filter(validUntil -> clock.epochMillis() < validUntil)
+        .ifPresent(validUntil -> cache.put(key, new Entry(extracted.claims(), validUntil)));
+    return extracted.claims();
+  }
+
+  private void record(LongAdder count) {
+    if (recordStats) {
+      count.increment();
+    }
+  }
+
+  CacheStats stats() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), 0, 0, 0, cache.stats().evictionCount());
+  }
+
+  long size() {
+    return cache.size();
+  }
+
+  @AllArgsConstructor
+  private static final class Entry {
+    private final JWTClaims claims;
+
+    private final long validUntil;
+  }
+
+  /** Claims extracted from a token together with the earliest expiry of the contained tokens. */
+  @AllArgsConstructor
+  @Getter
+  @Accessors(fluent = true)
+  static final class ExtractedClaims {
+    private final JWTClaims claims;
+
+    /** earliest expiry in milliseconds since epoch */
+    private final Optional<Long> expiresAt;
+  }
+}
@@ -18,19 +18,46 @@ package com.mercateo.spring.security.jwt.token.keyset;
 import com.auth0.jwk.GuavaCachedJwkProvider;
 import com.auth0.jwk.Jwk;
 import com.auth0.jwk.JwkProvider;
-import com.auth0.jwk.UrlJwkProvider;
 import com.mercateo.spring.security.jwt.support.Try;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
 
+/**
+ * Keyset of an Auth0 domain. Keys are cached by key id, key ids which are not cached yet are looked
+ * up by fetching all keys of the domain, with at most one fetch per minimum fetch interval. Fetches
+ * are conditional requests, so that an unchanged key set is not transferred again.
+ */
 public class Auth0JWTKeyset implements JWTKeyset {
 
   private final String auth0Domain;
 
+  private final CoalescingJwkProvider fetchingProvider;
+
   private final JwkProvider provider;
 
   public Auth0JWTKeyset(String auth0Domain) {
+    this(auth0Domain, CoalescingJwkProvider.DEFAULT_COOLDOWN);
+  }
+
+  /**
+   * @param auth0Domain domain to fetch the keys from
+   * @param minFetchInterval minimum interval between fetches, unknown key ids fail fast in between
+   */
+  public Auth0JWTKeyset(String auth0Domain, Duration minFetchInterval) {
     this.auth0Domain = auth0Domain;
-    JwkProvider http = new UrlJwkProvider("https://" + auth0Domain);
-    provider = new GuavaCachedJwkProvider(http);
+    final JwksFetcher fetcher = new JwksFetcher(jwksUrl(auth0Domain));
+    fetchingProvider = new CoalescingJwkProvider(fetcher, minFetchInterval);
+    provider = new GuavaCachedJwkProvider(fetchingProvider);
+  }
+
+  // like UrlJwkProvider, a trailing slash or a path of the domain is replaced by the JWKS path
+  static URL jwksUrl(String auth0Domain) {
+    try {
+      return new URL(new URL("https://" + auth0Domain), "/.well-known/jwks.json");
+    } catch (MalformedURLException e) {
+      throw new IllegalArgumentException("Invalid jwks uri", e);
+    }
   }
 
   @Override
@@ -38,6 +65,11 @@ public class Auth0JWTKeyset implements JWTKeyset {
     return Try.of(() -> provider.get(keyId));
   }
 
+  @Override
+  public boolean isLoadedKeyId(String keyId) {
+    return fetchingProvider.isFetched(keyId);
+  }
+
   public String getAuth0Domain() {
     return auth0Domain;
   }
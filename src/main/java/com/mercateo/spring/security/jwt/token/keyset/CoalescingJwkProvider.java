@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.RateLimitReachedException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link JwkProvider} fetching all keys of a {@link JWKSource} at once, for the lookup of key ids
+ * which are not cached yet.
+ *
+ * <p>Concurrent lookups of the same or different key ids share one in-flight fetch. A new fetch is
+ * started at most once per cooldown. Lookups during the cooldown are answered from the keys of the
+ * last fetch and fail fast with a {@link RateLimitReachedException} for key ids missing there.
+ */
+final class CoalescingJwkProvider implements JwkProvider {
+
+  static final Duration DEFAULT_COOLDOWN = Duration.ofSeconds(10);
+
+  private final JWKSource source;
+
+  private final long cooldownNanos;
+
+  /** monotonic time source of the cooldown, {@link System#nanoTime()} in production */
+  private final LongSupplier nanoTime;
+
+  private CompletableFuture<Map<String, Jwk>> inFlight;
+
+  private volatile Map<String, Jwk> lastFetched = Collections.emptyMap();
+
+  private long lastFetchStart;
+
+  private boolean fetchStarted;
+
+  CoalescingJwkProvider(JWKSource source, Duration cooldown) {
+    this(source, cooldown, System::nanoTime);
+  }
+
+  CoalescingJwkProvider(JWKSource source, Duration cooldown, LongSupplier nanoTime) {
+    if (cooldown.isNegative()) {
+      throw new IllegalArgumentException("The cooldown must not be negative, but was " + cooldown);
+    }
+    this.source = source;
+    this.cooldownNanos = cooldown.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  @Override
+  public Jwk get(String keyId) throws JwkException {
+    final CompletableFuture<Map<String, Jwk>> fetch;
+    final boolean leader;
+    synchronized (this) {
+      if (inFlight != null) {
+        fetch = inFlight;
+        leader = false;
+      } else {
+        final long now = nanoTime.getAsLong();
+        final long availableIn = lastFetchStart + cooldownNanos - now;
+        if (fetchStarted && availableIn > 0) {
+          return lookup(lastFetched, keyId, availableIn);
+        }
+        lastFetchStart = now;
+        fetchStarted = true;
+        fetch = inFlight = new CompletableFuture<>();
+        leader = true;
+      }
+    }
+
+    if (leader) {
+      fetch(fetch);
+    }
+    try {
+      return lookup(fetch.join(), keyId, 0);
+    } catch (CompletionException e) {
+      throw new SigningKeyNotFoundException("Failed to fetch keys for kid " + keyId, e.getCause());
+    }
+  }
+
+  /**
+   * @param keyId id of the key
+   * @return whether the keys of the last successful fetch contain the key id
+   */
+  boolean isFetched(String keyId) {
+    return keyId != null && lastFetched.containsKey(keyId);
+  }
+
+  private void fetch(CompletableFuture<Map<String, Jwk>> fetch) {
+    try {
+      final Map<String, Jwk> keys = RefreshingJWTKeyset.index(source.getAll());
+      synchronized (this) {
+        lastFetched = keys;
+      }
+      fetch.complete(keys);
+    } catch (Throwable e) {
+      // any failure must complete the fetch, otherwise waiting lookups block forever, the
+      // cooldown applies to failed fetches as well
+      fetch.completeExceptionally(e);
+    } finally {
+      synchronized (this) {
+        inFlight = null;
+      }
+    }
+  }
+
+  private static Jwk lookup(Map<String, Jwk> keys, String keyId, long availableInNanos)
+      throws JwkException {
+    final Jwk jwk = keys.get(keyId);
+    if (jwk != null) {
+      return jwk;
+    }
+    if (availableInNanos > 0) {
+      // rounded up, so that a lookup after the given millis is never rejected again
+      throw new RateLimitReachedException(
+          TimeUnit.NANOSECONDS.toMillis(availableInNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+    }
+    throw new UnknownKeyIdException(keyId);
+  }
+}
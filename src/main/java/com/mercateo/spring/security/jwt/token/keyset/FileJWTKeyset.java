@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link RefreshingJWTKeyset} of a local JWKS file, e.g. on a mounted volume.
+ *
+ * <p>Once the keyset is started, the directory of the file is watched by a {@link WatchService},
+ * any change in it reloads the keys on the background thread. As watch events are not delivered
+ * reliably on every file system, the file is checked in the poll interval as well. It is only
+ * parsed again if it changed. The keys are swapped as a whole, a file which can not be parsed, e.g.
+ * while it is being written, keeps the previous keys.
+ */
+@Slf4j
+public class FileJWTKeyset extends RefreshingJWTKeyset {
+
+  private final Path file;
+
+  private final WatchService watchService;
+
+  public FileJWTKeyset(Path file) {
+    this(file, DEFAULT_REFRESH_INTERVAL);
+  }
+
+  public FileJWTKeyset(Path file, Duration pollInterval) {
+    super(new JwksFile(file.toAbsolutePath()), pollInterval);
+    this.file = file.toAbsolutePath();
+    try {
+      final Path directory = this.file.getParent();
+      this.watchService = directory.getFileSystem().newWatchService();
+      directory.register(
+          watchService,
+          StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY,
+          StandardWatchEventKinds.ENTRY_DELETE);
+    } catch (IOException e) {
+      super.close();
+      throw new UncheckedIOException("could not watch " + this.file, e);
+    }
+  }
+
+  @Override
+  public FileJWTKeyset start() {
+    super.start();
+    return this;
+  }
+
+  @Override
+  protected void onStart() {
+    // changes since the directory was registered are already queued by the watch service
+    new ThreadFactoryBuilder()
+        .setNameFormat("jwks-watch-%d")
+        .setDaemon(true)
+        .build()
+        .newThread(this::watch)
+        .start();
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        final WatchKey key = watchService.take();
+        // the file may be replaced through a link, so any change of the directory is checked
+        key.pollEvents();
+        refreshNow();
+        if (!key.reset()) {
+          log.warn("stopped watching {}, its directory is no longer accessible", file);
+          return;
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // the keyset was closed
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  /** stops watching the file and the refreshes, the keyset keeps its current keys */
+  @Override
+  public void close() {
+    super.close();
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      log.warn("could not stop watching {}", file, e);
+    }
+  }
+}
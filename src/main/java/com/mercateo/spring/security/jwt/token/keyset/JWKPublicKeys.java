@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import com.auth0.jwk.InvalidPublicKeyException;
+import com.auth0.jwk.Jwk;
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Derives the public key of a {@link Jwk}.
+ *
+ * <p>{@link Jwk#getPublicKey()} only supports RSA keys, elliptic curve keys ("kty" EC) on the
+ * curves P-256, P-384 and P-521 are derived here from their "crv", "x" and "y" parameters. Octet
+ * key pairs ("kty" OKP) on the curve Ed25519 are derived from their "x" parameter, which requires a
+ * JVM providing Ed25519 (Java 15 or later).
+ */
+public final class JWKPublicKeys {
+
+  /** DER encoded X.509 SubjectPublicKeyInfo prefix of a 32 byte Ed25519 public key */
+  private static final byte[] ED25519_X509_PREFIX = {
+    0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00
+  };
+
+  private static final int ED25519_KEY_LENGTH = 32;
+
+  private static final Map<String, String> EC_CURVES;
+
+  static {
+    final Map<String, String> curves = new HashMap<>();
+    curves.put("P-256", "secp256r1");
+    curves.put("P-384", "secp384r1");
+    curves.put("P-521", "secp521r1");
+    EC_CURVES = Collections.unmodifiableMap(curves);
+  }
+
+  private JWKPublicKeys() {}
+
+  /**
+   * @param jwk key of type RSA, EC or OKP
+   * @return public key of the given JWK
+   * @throws InvalidPublicKeyException if the key type or curve is not supported or the key
+   *     parameters are invalid
+   */
+  public static PublicKey publicKey(Jwk jwk) throws InvalidPublicKeyException {
+    final String type = jwk.getType();
+    if ("RSA".equalsIgnoreCase(type)) {
+      return jwk.getPublicKey();
+    }
+    if ("EC".equalsIgnoreCase(type)) {
+      return ecPublicKey(jwk);
+    }
+    if ("OKP".equalsIgnoreCase(type)) {
+      return okpPublicKey(jwk);
+    }
+    throw new InvalidPublicKeyException("The key type " + type + " is not supported", null);
+  }
+
+  private static PublicKey ecPublicKey(Jwk jwk) throws InvalidPublicKeyException {
+    final Map<String, Object> attributes = jwk.getAdditionalAttributes();
+    final String curve = EC_CURVES.get(String.valueOf(attributes.get("crv")));
+    if (curve == null) {
+      throw new InvalidPublicKeyException(
+          "The curve " + attributes.get("crv") + " is not supported", null);
+    }
+    try {
+      final AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+      parameters.init(new ECGenParameterSpec(curve));
+      final ECPoint point = new ECPoint(coordinate(attributes, "x"), coordinate(attributes, "y"));
+      return KeyFactory.getInstance("EC")
+          .generatePublic(
+              new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      throw new InvalidPublicKeyException("Invalid public key", e);
+    }
+  }
+
+  private static PublicKey okpPublicKey(Jwk jwk) throws InvalidPublicKeyException {
+    final Map<String, Object> attributes = jwk.getAdditionalAttributes();
+    if (!"Ed25519".equals(attributes.get("crv"))) {
+      throw new InvalidPublicKeyException(
+          "The curve " + attributes.get("crv") + " is not supported", null);
+    }
+    try {
+      final byte[] key = decode(attributes, "x");
+      if (key.length != ED25519_KEY_LENGTH) {
+        throw new IllegalArgumentException("invalid key length " + key.length);
+      }
+      final byte[] encoded =
+          Arrays.copyOf(ED25519_X509_PREFIX, ED25519_X509_PREFIX.length + key.length);
+      System.arraycopy(key, 0, encoded, ED25519_X509_PREFIX.length, key.length);
+      return KeyFactory.getInstance("Ed25519").generatePublic(new X509EncodedKeySpec(encoded));
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      throw new InvalidPublicKeyException("Invalid public key", e);
+    }
+  }
+
+  private static BigInteger coordinate(Map<String, Object> attributes, String name) {
+    return new BigInteger(1, decode(attributes, name));
+  }
+
+  private static byte[] decode(Map<String, Object> attributes, String name) {
+    final Object value = attributes.get(name);
+    if (!(value instanceof String)) {
+      throw new IllegalArgumentException("missing parameter " + name);
+    }
+    return Base64.getUrlDecoder().decode((String) value);
+  }
+}
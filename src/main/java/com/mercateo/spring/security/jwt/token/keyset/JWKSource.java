@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/** Source of the complete set of keys, e.g. a JWKS endpoint. */
+@FunctionalInterface
+public interface JWKSource {
+
+  /**
+   * @return all keys currently provided by the source
+   * @throws JwkException if the keys could not be loaded
+   */
+  List<Jwk> getAll() throws JwkException;
+
+  /**
+   * @return how long the keys of the last successful {@link #getAll()} may be used before loading
+   *     them again, empty if the source does not know
+   */
+  default Optional<Duration> maxAge() {
+    return Optional.empty();
+  }
+}
@@ -19,5 +19,27 @@ import com.auth0.jwk.Jwk;
 import com.mercateo.spring.security.jwt.support.Try;
 
 public interface JWTKeyset {
+  /**
+   * @param keyId id of the key
+   * @return key of the given id, a failure with an {@link UnknownKeyIdException} if the keys were
+   *     loaded successfully and do not contain the key id, other failures are considered transient
+   */
   Try<Jwk> getKeysetForId(String keyId);
+
+  /**
+   * @param keyId id of the key
+   * @return whether the keys loaded so far contain the key id, without loading any keys. Keysets
+   *     which do not keep loaded keys return {@code false}.
+   */
+  default boolean isLoadedKeyId(String keyId) {
+    return false;
+  }
+
+  /**
+   * Registers a listener which is called whenever the keys of this keyset change, so that keys
+   * derived from it can be dropped. Keysets which do not detect changes ignore the listener.
+   *
+   * @param listener called after the keys changed
+   */
+  default void addChangeListener(Runnable listener) {}
 }
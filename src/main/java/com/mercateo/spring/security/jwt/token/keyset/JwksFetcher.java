@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link JWKSource} loading the keys from a JWKS URL with conditional requests.
+ *
+ * <p>The ETag and Last-Modified validators of the last response are sent along, a "304 Not
+ * Modified" response returns the keys of the previous response as the same list without parsing
+ * them again. The max-age of the Cache-Control header of the last response is provided as {@link
+ * #maxAge()}. The response body is always read completely, so that the connection is kept alive and
+ * reused for the next request.
+ */
+final class JwksFetcher implements JWKSource {
+
+  static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final URL url;
+
+  private final int timeoutMillis;
+
+  private List<Jwk> keys;
+
+  private String entityTag;
+
+  private String lastModified;
+
+  private volatile Optional<Duration> maxAge = Optional.empty();
+
+  JwksFetcher(URL url) {
+    this(url, DEFAULT_TIMEOUT);
+  }
+
+  JwksFetcher(URL url, Duration timeout) {
+    this.url = url;
+    this.timeoutMillis = (int) timeout.toMillis();
+  }
+
+  @Override
+  public synchronized List<Jwk> getAll() throws JwkException {
+    maxAge = Optional.empty();
+    try {
+      final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      connection.setConnectTimeout(timeoutMillis);
+      connection.setReadTimeout(timeoutMillis);
+      connection.setRequestProperty("Accept", "application/json");
+      if (keys != null) {
+        if (entityTag != null) {
+          connection.setRequestProperty("If-None-Match", entityTag);
+        }
+        if (lastModified != null) {
+          connection.setRequestProperty("If-Modified-Since", lastModified);
+        }
+      }
+
+      final int status = connection.getResponseCode();
+      if (status == HttpURLConnection.HTTP_NOT_MODIFIED && keys != null) {
+        drain(connection.getInputStream());
+      } else if (status == HttpURLConnection.HTTP_OK) {
+        try (InputStream in = connection.getInputStream()) {
+          keys = parse(in, url);
+        }
+        entityTag = connection.getHeaderField("ETag");
+        lastModified = connection.getHeaderField("Last-Modified");
+      } else {
+        drain(connection.getErrorStream());
+        throw new SigningKeyNotFoundException(
+            "Cannot obtain jwks from url " + url + ", status " + status, null);
+      }
+      maxAge = maxAge(connection.getHeaderField("Cache-Control"));
+      return keys;
+    } catch (IOException e) {
+      throw new SigningKeyNotFoundException("Cannot obtain jwks from url " + url, e);
+    }
+  }
+
+  @Override
+  public Optional<Duration> maxAge() {
+    return maxAge;
+  }
+
+  /**
+   * @param in JWKS document
+   * @param origin origin of the document, for error messages
+   * @return keys of the document
+   * @throws IOException if the document could not be read
+   * @throws JwkException if the document contains no keys
+   */
+  static List<Jwk> parse(InputStream in, Object origin) throws IOException, JwkException {
+    final JsonNode keyNodes = MAPPER.readTree(in).path("keys");
+    if (!keyNodes.isArray() || keyNodes.size() == 0) {
+      throw new SigningKeyNotFoundException("No keys found in " + origin, null);
+    }
+    final List<Jwk> parsed = new ArrayList<>(keyNodes.size());
+    for (JsonNode keyNode : keyNodes) {
+      @SuppressWarnings("unchecked")
+      final Map<String, Object> values = MAPPER.convertValue(keyNode, Map.class);
+      parsed.add(Jwk.fromValues(values));
+    }
+    return Collections.unmodifiableList(parsed);
+  }
+
+  /**
+   * @param cacheControl value of the Cache-Control header
+   * @return max-age directive of the header, empty if there is none or the response must not be
+   *     cached, which includes a max-age of zero
+   */
+  static Optional<Duration> maxAge(String cacheControl) {
+    if (cacheControl == null) {
+      return Optional.empty();
+    }
+    Optional<Duration> maxAge = Optional.empty();
+    for (String directive : cacheControl.split(",")) {
+      final String trimmed = directive.trim().toLowerCase(Locale.ROOT);
+      if (trimmed.equals("no-cache") || trimmed.equals("no-store")) {
+        return Optional.empty();
+      }
+      if (trimmed.startsWith("max-age=")) {
+        try {
+          final long seconds = Long.parseLong(trimmed.substring(8).replace("\"", ""));
+          if (seconds <= 0) {
+            return Optional.empty();
+          }
+          maxAge = Optional.of(Duration.ofSeconds(seconds));
+        } catch (NumberFormatException e) {
+          return Optional.empty();
+        }
+      }
+    }
+    return maxAge;
+  }
+
+  private static void drain(InputStream in) throws IOException {
+    if (in == null) {
+      return;
+    }
+    try (InputStream stream = in) {
+      final byte[] buffer = new byte[1024];
+      while (stream.read(buffer) >= 0) {
+        // the remaining body is discarded, so that the connection can be reused
+      }
+    }
+  }
+}
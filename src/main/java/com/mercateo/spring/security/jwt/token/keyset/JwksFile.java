@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * {@link JWKSource} reading the keys from a JWKS file. The file is read on every call, but only
+ * parsed again if the digest of its content changed, otherwise the keys of the last read are
+ * returned as the same list. Size and modification time are not compared, as a key rotated within
+ * the modification time granularity of the file system may not change either. The file is read in
+ * one call and not memory mapped, a mapping would only be released when it is garbage collected
+ * and, on Windows, lock the file against being replaced until then.
+ */
+final class JwksFile implements JWKSource {
+
+  private final Path file;
+
+  private List<Jwk> keys;
+
+  private HashCode digest;
+
+  JwksFile(Path file) {
+    this.file = file;
+  }
+
+  @Override
+  public synchronized List<Jwk> getAll() throws JwkException {
+    try {
+      final byte[] content = Files.readAllBytes(file);
+      final HashCode contentDigest = Hashing.sha256().hashBytes(content);
+      if (keys == null || !contentDigest.equals(digest)) {
+        keys = JwksFetcher.parse(new ByteArrayInputStream(content), file);
+        digest = contentDigest;
+      }
+      return keys;
+    } catch (IOException e) {
+      throw new SigningKeyNotFoundException("Cannot read jwks from file " + file, e);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/** Statistics of the background refreshes of a {@link RefreshingJWTKeyset}. */
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+@Getter
+@Accessors(fluent = true)
+public class RefreshStats {
+
+  /** number of successful refreshes, including the initial load */
+  private final long refreshCount;
+
+  /** number of failed refreshes */
+  private final long failureCount;
+
+  /** milliseconds since the keys were loaded successfully, {@code -1} if they never were */
+  private final long ageMillis;
+
+  /** milliseconds the last refresh took, whether it succeeded or not */
+  private final long lastDurationMillis;
+
+  /** number of keys in the current snapshot */
+  private final int keyCount;
+}
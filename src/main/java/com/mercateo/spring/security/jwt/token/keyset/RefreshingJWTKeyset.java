@@ -0,0 +1,285 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mercateo.spring.security.jwt.support.EpochClock;
+import com.mercateo.spring.security.jwt.support.Try;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link JWTKeyset} which loads all keys of a {@link JWKSource} on a background thread, so that
+ * lookups never wait for the source. The keys are loaded again after the {@link JWKSource#maxAge()
+ * maximum age} given by the source, or after the refresh interval if it gives none or a maximum age
+ * which is not positive. After a failed refresh, the keys are loaded again after {@link
+ * #MIN_RETRY_DELAY}, doubled with every further failure up to the refresh interval.
+ *
+ * <p>Lookups read an immutable snapshot of the keys by key id, which is replaced as a whole after
+ * each successful refresh. Keys the source returns unchanged, as the same list, are not indexed
+ * again. A failed refresh keeps the previous snapshot, its age is reported by {@link #stats()}.
+ * Change listeners are called when a refresh added, removed or changed keys.
+ *
+ * <p>The keys are loaded once by {@link #start()}, which has to be called after the keyset is
+ * created and starts the refreshes. {@link #close()} stops them.
+ */
+@Slf4j
+public class RefreshingJWTKeyset implements JWTKeyset, AutoCloseable {
+
+  public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+  /** lower bound of the maximum age given by the source */
+  static final Duration MIN_MAX_AGE = Duration.ofSeconds(1);
+
+  /** delay of the first retry after a failed refresh */
+  static final Duration MIN_RETRY_DELAY = Duration.ofSeconds(1);
+
+  private final JWKSource source;
+
+  private final ScheduledExecutorService scheduler;
+
+  private final long refreshIntervalMillis;
+
+  private final EpochClock clock;
+
+  private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+  private final AtomicLong refreshCount = new AtomicLong();
+
+  private final AtomicLong failureCount = new AtomicLong();
+
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  /** failed refreshes since the last successful one, refreshes never run concurrently */
+  private volatile int consecutiveFailures;
+
+  private volatile long lastDurationMillis;
+
+  private volatile Snapshot snapshot;
+
+  public RefreshingJWTKeyset(JWKSource source, Duration refreshInterval) {
+    this(
+        source,
+        refreshInterval,
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("jwks-refresh-%d").setDaemon(true).build()),
+        EpochClock.system());
+  }
+
+  RefreshingJWTKeyset(
+      JWKSource source,
+      Duration refreshInterval,
+      ScheduledExecutorService scheduler,
+      EpochClock clock) {
+    if (refreshInterval.isNegative() || refreshInterval.isZero()) {
+      throw new IllegalArgumentException(
+          "The refresh interval must be positive, but was " + refreshInterval);
+    }
+    this.source = source;
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.refreshIntervalMillis = refreshInterval.toMillis();
+    this.snapshot =
+        new Snapshot(
+            Collections.emptyList(),
+            Collections.emptyMap(),
+            -1,
+            new IllegalStateException("The keyset is not started"));
+  }
+
+  /**
+   * loads the keys and starts the refreshes on the background thread, calls after the first one
+   * have no effect
+   *
+   * @return this keyset
+   */
+  public RefreshingJWTKeyset start() {
+    if (started.compareAndSet(false, true)) {
+      refresh();
+      scheduleRefresh();
+      onStart();
+    }
+    return this;
+  }
+
+  /** called once by {@link #start()} after the keys were loaded the first time */
+  protected void onStart() {}
+
+  private void scheduleRefresh() {
+    if (scheduler.isShutdown()) {
+      return;
+    }
+    final int failures = consecutiveFailures;
+    final long delay =
+        failures == 0
+            ? source
+                .maxAge()
+                .filter(maxAge -> !maxAge.isNegative() && !maxAge.isZero())
+                .map(maxAge -> Math.max(maxAge.toMillis(), MIN_MAX_AGE.toMillis()))
+                .orElse(refreshIntervalMillis)
+            : Math.min(
+                MIN_RETRY_DELAY.toMillis() << Math.min(failures - 1, 30), refreshIntervalMillis);
+    scheduler.schedule(
+        () -> {
+          try {
+            refresh();
+          } finally {
+            // keep polling even if the refresh failed unexpectedly
+            scheduleRefresh();
+          }
+        },
+        delay,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Try<Jwk> getKeysetForId(String keyId) {
+    final Snapshot current = snapshot;
+    final Jwk jwk = current.keys.get(keyId);
+    if (jwk != null) {
+      return Try.success(jwk);
+    }
+    if (current.loadedAt >= 0 && current.failure == null) {
+      return Try.failure(new UnknownKeyIdException(keyId));
+    }
+    return Try.failure(
+        new SigningKeyNotFoundException("No key found with kid " + keyId, current.failure));
+  }
+
+  @Override
+  public boolean isLoadedKeyId(String keyId) {
+    return snapshot.keys.containsKey(keyId);
+  }
+
+  @Override
+  public void addChangeListener(Runnable listener) {
+    changeListeners.add(listener);
+  }
+
+  /**
+   * loads the keys and replaces the snapshot, called by the scheduler. Any {@link Throwable} of the
+   * source is a failed refresh.
+   */
+  void refresh() {
+    final long start = clock.epochMillis();
+    final Snapshot previous = snapshot;
+    try {
+      final List<Jwk> loaded = source.getAll();
+      final Map<String, Jwk> keys = loaded == previous.loaded ? previous.keys : index(loaded);
+      lastDurationMillis = clock.epochMillis() - start;
+      snapshot = new Snapshot(loaded, keys, clock.epochMillis(), null);
+      consecutiveFailures = 0;
+      refreshCount.incrementAndGet();
+      if (keys != previous.keys && !sameKeys(previous.keys, keys)) {
+        log.info("loaded {} keys with ids {}", keys.size(), keys.keySet());
+        changeListeners.forEach(Runnable::run);
+      }
+    } catch (Throwable e) {
+      lastDurationMillis = clock.epochMillis() - start;
+      snapshot = new Snapshot(previous.loaded, previous.keys, previous.loadedAt, e);
+      consecutiveFailures++;
+      failureCount.incrementAndGet();
+      log.warn("could not refresh keys, keeping {} keys", previous.keys.size(), e);
+    }
+  }
+
+  /** loads the keys on the background thread as soon as possible */
+  void refreshNow() {
+    if (!scheduler.isShutdown()) {
+      scheduler.execute(this::refresh);
+    }
+  }
+
+  /** @return statistics of the refreshes */
+  public RefreshStats stats() {
+    final Snapshot current = snapshot;
+    return new RefreshStats(
+        refreshCount.get(),
+        failureCount.get(),
+        current.loadedAt < 0 ? -1 : clock.epochMillis() - current.loadedAt,
+        lastDurationMillis,
+        current.keys.size());
+  }
+
+  /** stops the refreshes, the keyset keeps its current keys */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  static Map<String, Jwk> index(List<Jwk> jwks) {
+    final Map<String, Jwk> keys = new HashMap<>();
+    for (Jwk jwk : jwks) {
+      // keys without id can not be looked up
+      if (jwk.getId() != null) {
+        keys.put(jwk.getId(), jwk);
+      }
+    }
+    return Collections.unmodifiableMap(keys);
+  }
+
+  private static boolean sameKeys(Map<String, Jwk> previous, Map<String, Jwk> current) {
+    if (!previous.keySet().equals(current.keySet())) {
+      return false;
+    }
+    for (Map.Entry<String, Jwk> entry : current.entrySet()) {
+      if (!sameKey(previous.get(entry.getKey()), entry.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean sameKey(Jwk previous, Jwk current) {
+    return Objects.equals(previous.getType(), current.getType())
+        && Objects.equals(previous.getAlgorithm(), current.getAlgorithm())
+        && Objects.equals(previous.getUsage(), current.getUsage())
+        && Objects.equals(previous.getAdditionalAttributes(), current.getAdditionalAttributes());
+  }
+
+  private static final class Snapshot {
+    /** keys as returned by the source */
+    private final List<Jwk> loaded;
+
+    private final Map<String, Jwk> keys;
+
+    /** epoch millis of the last successful load, {@code -1} if there was none */
+    private final long loadedAt;
+
+    /** failure of the last refresh, {@code null} if it succeeded */
+    private final Throwable failure;
+
+    private Snapshot(List<Jwk> loaded, Map<String, Jwk> keys, long loadedAt, Throwable failure) {
+      this.loaded = loaded;
+      this.keys = keys;
+      this.loadedAt = loadedAt;
+      this.failure = failure;
+    }
+  }
+}
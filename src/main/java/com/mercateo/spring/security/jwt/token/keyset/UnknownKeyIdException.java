@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import com.auth0.jwk.SigningKeyNotFoundException;
+
+/**
+ * Failure of a key lookup in a {@link JWTKeyset} whose keys were loaded successfully but do not
+ * contain the key id. Other lookup failures, e.g. failed or rate limited fetches, may be transient
+ * and are not reported with this exception.
+ */
+public class UnknownKeyIdException extends SigningKeyNotFoundException {
+
+  private static final long serialVersionUID = 1L;
+
+  public UnknownKeyIdException(String keyId) {
+    super("No key found with kid " + keyId, null);
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import java.net.URL;
+import java.time.Duration;
+
+/**
+ * {@link RefreshingJWTKeyset} of a JWKS URL. The keys are refreshed with conditional requests, so
+ * that an unchanged key set costs a "304 Not Modified" response, after the max-age of the
+ * Cache-Control header of the endpoint or, if there is none, after the refresh interval.
+ */
+public class UrlJWTKeyset extends RefreshingJWTKeyset {
+
+  private final URL jwksUrl;
+
+  public UrlJWTKeyset(URL jwksUrl) {
+    this(jwksUrl, DEFAULT_REFRESH_INTERVAL);
+  }
+
+  public UrlJWTKeyset(URL jwksUrl, Duration refreshInterval) {
+    super(new JwksFetcher(jwksUrl), refreshInterval);
+    this.jwksUrl = jwksUrl;
+  }
+
+  @Override
+  public UrlJWTKeyset start() {
+    super.start();
+    return this;
+  }
+
+  public URL getJwksUrl() {
+    return jwksUrl;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import java.util.Arrays;
+
+/** Base64 decoding with the URL safe alphabet (RFC 4648 section 5) working on character ranges. */
+public enum Base64Url {
+  ;
+
+  private static final int INVALID = -1;
+
+  private static final int[] DECODE_TABLE = createDecodeTable();
+
+  private static int[] createDecodeTable() {
+    final int[] table = new int[128];
+    Arrays.fill(table, INVALID);
+    final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+    for (int i = 0; i < alphabet.length(); i++) {
+      table[alphabet.charAt(i)] = i;
+    }
+    return table;
+  }
+
+  /**
+   * Decodes the given character range into the reusable buffer of the current thread.
+   *
+   * @param source characters to decode, padding is optional
+   * @param start index of the first character
+   * @param end index after the last character
+   * @return the buffer of the current thread, valid until the next decode on this thread
+   * @throws JWTDecodeException if the range is not valid base64url
+   */
+  public static DecodeBuffer decode(CharSequence source, int start, int end) {
+    while (end > start && source.charAt(end - 1) == '=') {
+      end--;
+    }
+    final int charCount = end - start;
+    if (charCount % 4 == 1) {
+      throw invalidInput();
+    }
+    final DecodeBuffer buffer = DecodeBuffer.forCurrentThread();
+    final byte[] target = buffer.prepare(charCount / 4 * 3 + 2);
+
+    int length = 0;
+    int bits = 0;
+    int bitCount = 0;
+    for (int i = start; i < end; i++) {
+      bits = (bits << 6) | valueOf(source.charAt(i));
+      bitCount += 6;
+      if (bitCount >= 8) {
+        bitCount -= 8;
+        target[length++] = (byte) (bits >> bitCount);
+      }
+    }
+    buffer.setLength(length);
+    return buffer;
+  }
+
+  private static int valueOf(char c) {
+    final int value = c < DECODE_TABLE.length ? DECODE_TABLE[c] : INVALID;
+    if (value == INVALID) {
+      throw invalidInput();
+    }
+    return value;
+  }
+
+  private static JWTDecodeException invalidInput() {
+    return new JWTDecodeException("The input is not a valid base 64 encoded string.");
+  }
+}
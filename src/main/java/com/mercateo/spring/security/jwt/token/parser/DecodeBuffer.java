@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+/**
+ * Reusable per thread byte buffer, filled by {@link Base64Url#decode(CharSequence, int, int)}.
+ *
+ * <p>The buffer is a view which is only valid until the next decode operation on the same thread.
+ * Its content has to be consumed (e.g. parsed) before decoding the next segment.
+ */
+public final class DecodeBuffer {
+
+  private static final int INITIAL_CAPACITY = 512;
+
+  /** Larger buffers are not retained, so single huge tokens do not pin memory per thread. */
+  private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+  private static final ThreadLocal<DecodeBuffer> BUFFERS =
+      ThreadLocal.withInitial(DecodeBuffer::new);
+
+  private byte[] retained = new byte[INITIAL_CAPACITY];
+
+  private byte[] bytes = retained;
+
+  private int length;
+
+  private DecodeBuffer() {}
+
+  static DecodeBuffer forCurrentThread() {
+    return BUFFERS.get();
+  }
+
+  byte[] prepare(int capacity) {
+    if (capacity <= retained.length) {
+      bytes = retained;
+    } else if (capacity <= MAX_RETAINED_CAPACITY) {
+      retained = new byte[Math.min(Integer.highestOneBit(capacity) << 1, MAX_RETAINED_CAPACITY)];
+      bytes = retained;
+    } else {
+      bytes = new byte[capacity];
+    }
+    length = 0;
+    return bytes;
+  }
+
+  void setLength(int length) {
+    this.length = length;
+  }
+
+  /** @return backing array, only the first {@link #length()} bytes are valid */
+  public byte[] bytes() {
+    return bytes;
+  }
+
+  /** @return number of valid bytes */
+  public int length() {
+    return length;
+  }
+}
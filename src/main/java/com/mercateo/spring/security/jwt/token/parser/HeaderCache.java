@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+/**
+ * Bounded cache of decoded headers by their raw segment. Tokens of one issuer usually share a
+ * handful of distinct headers, so decoding them again is skipped.
+ *
+ * <p>The cache is direct mapped: each segment hashes to one slot, a colliding segment replaces the
+ * previous entry. Lookups compare the characters in place without creating a string. Entries are
+ * immutable and slots are read and written without locking, a racing reader just misses.
+ */
+final class HeaderCache {
+
+  /** longer header segments are not cached, which bounds the memory of the cache */
+  static final int MAX_SEGMENT_LENGTH = 512;
+
+  private final Entry[] entries;
+
+  private final int mask;
+
+  /**
+   * @param size number of slots, rounded up to a power of two
+   */
+  HeaderCache(int size) {
+    final int slots = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    this.entries = new Entry[slots];
+    this.mask = slots - 1;
+  }
+
+  /**
+   * @param source character sequence containing the header segment
+   * @param start index of the first character of the segment
+   * @param end index after the last character of the segment
+   * @return cached header or {@code null}
+   */
+  TokenHeader get(CharSequence source, int start, int end) {
+    if (end - start > MAX_SEGMENT_LENGTH) {
+      return null;
+    }
+    final Entry entry = entries[hash(source, start, end) & mask];
+    return entry != null && entry.matches(source, start, end) ? entry.header : null;
+  }
+
+  void put(CharSequence source, int start, int end, TokenHeader header) {
+    if (end - start > MAX_SEGMENT_LENGTH) {
+      return;
+    }
+    entries[hash(source, start, end) & mask] =
+        new Entry(source.subSequence(start, end).toString(), header);
+  }
+
+  private static int hash(CharSequence source, int start, int end) {
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + source.charAt(i);
+    }
+    return h ^ (h >>> 16);
+  }
+
+  private static final class Entry {
+    private final String segment;
+
+    private final TokenHeader header;
+
+    private Entry(String segment, TokenHeader header) {
+      this.segment = segment;
+      this.header = header;
+    }
+
+    private boolean matches(CharSequence source, int start, int end) {
+      if (segment.length() != end - start) {
+        return false;
+      }
+      for (int i = 0; i < segment.length(); i++) {
+        if (segment.charAt(i) != source.charAt(start + i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.Claim;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Claim} backed by a Jackson {@link JsonNode}, behaves like the claims of java-jwt but
+ * exposes the underlying node.
+ */
+public final class NodeClaim implements Claim {
+
+  private static final TypeReference<Map<String, Object>> MAP_TYPE =
+      new TypeReference<Map<String, Object>>() {};
+
+  private static final NodeClaim NULL_CLAIM = new NodeClaim(null, null);
+
+  private final JsonNode node;
+
+  private final ObjectMapper objectMapper;
+
+  private NodeClaim(JsonNode node, ObjectMapper objectMapper) {
+    this.node = node;
+    this.objectMapper = objectMapper;
+  }
+
+  static NodeClaim of(JsonNode node, ObjectMapper objectMapper) {
+    if (node == null || node.isNull() || node.isMissingNode()) {
+      return NULL_CLAIM;
+    }
+    return new NodeClaim(node, objectMapper);
+  }
+
+  /** @return the underlying node or {@code null} for a missing or null claim */
+  public JsonNode node() {
+    return node;
+  }
+
+  @Override
+  public boolean isNull() {
+    return node == null;
+  }
+
+  @Override
+  public Boolean asBoolean() {
+    return node != null && node.isBoolean() ? node.asBoolean() : null;
+  }
+
+  @Override
+  public Integer asInt() {
+    return node != null && node.isNumber() ? node.asInt() : null;
+  }
+
+  @Override
+  public Long asLong() {
+    return node != null && node.isNumber() ? node.asLong() : null;
+  }
+
+  @Override
+  public Double asDouble() {
+    return node != null && node.isNumber() ? node.asDouble() : null;
+  }
+
+  @Override
+  public String asString() {
+    return node != null && node.isTextual() ? node.asText() : null;
+  }
+
+  @Override
+  public Date asDate() {
+    return node != null && node.canConvertToLong() ? new Date(node.asLong() * 1000) : null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T[] asArray(Class<T> tClazz) throws JWTDecodeException {
+    if (node == null || !node.isArray()) {
+      return null;
+    }
+    final T[] array = (T[]) Array.newInstance(tClazz, node.size());
+    for (int i = 0; i < node.size(); i++) {
+      array[i] = elementAs(node.get(i), tClazz);
+    }
+    return array;
+  }
+
+  @Override
+  public <T> List<T> asList(Class<T> tClazz) throws JWTDecodeException {
+    if (node == null || !node.isArray()) {
+      return null;
+    }
+    final List<T> list = new ArrayList<>(node.size());
+    for (JsonNode element : node) {
+      list.add(elementAs(element, tClazz));
+    }
+    return list;
+  }
+
+  @Override
+  public Map<String, Object> asMap() throws JWTDecodeException {
+    if (node == null || !node.isObject()) {
+      return null;
+    }
+    try {
+      return objectMapper.convertValue(node, MAP_TYPE);
+    } catch (IllegalArgumentException e) {
+      throw new JWTDecodeException("Couldn't map the Claim value to Map", e);
+    }
+  }
+
+  @Override
+  public <T> T as(Class<T> tClazz) throws JWTDecodeException {
+    if (node == null) {
+      return null;
+    }
+    try {
+      return objectMapper.treeToValue(node, tClazz);
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      throw new JWTDecodeException("Couldn't map the Claim value to " + tClazz.getSimpleName(), e);
+    }
+  }
+
+  private <T> T elementAs(JsonNode element, Class<T> tClazz) {
+    try {
+      return objectMapper.treeToValue(element, tClazz);
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      throw new JWTDecodeException(
+          "Couldn't map the Claim's array contents to " + tClazz.getSimpleName(), e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return node == null ? "Null claim" : node.toString();
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.impl.PublicClaims;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DecodedJWT} created by {@link TokenDecoder}. Header and payload are kept as Jackson trees,
+ * the raw segments are only materialized as strings on request.
+ */
+public final class ParsedJWT implements DecodedJWT {
+
+  private final TokenSegments segments;
+
+  private final TokenHeader header;
+
+  private final ObjectNode payload;
+
+  private final ObjectMapper objectMapper;
+
+  ParsedJWT(
+      TokenSegments segments, TokenHeader header, ObjectNode payload, ObjectMapper objectMapper) {
+    this.segments = segments;
+    this.header = header;
+    this.payload = payload;
+    this.objectMapper = objectMapper;
+  }
+
+  /** @return segment boundaries of this token */
+  public TokenSegments segments() {
+    return segments;
+  }
+
+  /**
+   * @return parsed header, shared with other tokens of the same header and therefore not to be
+   *     modified
+   */
+  public ObjectNode headerNode() {
+    return header.node();
+  }
+
+  /** @return parsed payload */
+  public ObjectNode payloadNode() {
+    return payload;
+  }
+
+  @Override
+  public String getToken() {
+    return segments.token();
+  }
+
+  @Override
+  public String getHeader() {
+    return segments.header();
+  }
+
+  @Override
+  public String getPayload() {
+    return segments.payload();
+  }
+
+  @Override
+  public String getSignature() {
+    return segments.signature();
+  }
+
+  @Override
+  public String getAlgorithm() {
+    return header.getAlgorithm();
+  }
+
+  @Override
+  public String getType() {
+    return header.getType();
+  }
+
+  @Override
+  public String getContentType() {
+    return text(header.node(), PublicClaims.CONTENT_TYPE);
+  }
+
+  @Override
+  public String getKeyId() {
+    return header.getKeyId();
+  }
+
+  @Override
+  public Claim getHeaderClaim(String name) {
+    return NodeClaim.of(header.node().get(name), objectMapper);
+  }
+
+  @Override
+  public String getIssuer() {
+    return text(payload, PublicClaims.ISSUER);
+  }
+
+  @Override
+  public String getSubject() {
+    return text(payload, PublicClaims.SUBJECT);
+  }
+
+  @Override
+  public List<String> getAudience() {
+    final JsonNode node = payload.get(PublicClaims.AUDIENCE);
+    if (isNull(node)) {
+      return null;
+    }
+    if (node.isTextual()) {
+      return Collections.singletonList(node.asText());
+    }
+    if (!node.isArray()) {
+      throw new JWTDecodeException(
+          String.format(
+              "The claim '%s' contained an unexpected value: %s", PublicClaims.AUDIENCE, node));
+    }
+    final List<String> audience = new ArrayList<>(node.size());
+    for (JsonNode element : node) {
+      audience.add(element.asText());
+    }
+    return audience;
+  }
+
+  @Override
+  public Date getExpiresAt() {
+    return date(PublicClaims.EXPIRES_AT);
+  }
+
+  @Override
+  public Date getNotBefore() {
+    return date(PublicClaims.NOT_BEFORE);
+  }
+
+  @Override
+  public Date getIssuedAt() {
+    return date(PublicClaims.ISSUED_AT);
+  }
+
+  @Override
+  public String getId() {
+    return text(payload, PublicClaims.JWT_ID);
+  }
+
+  @Override
+  public Claim getClaim(String name) {
+    return NodeClaim.of(payload.get(name), objectMapper);
+  }
+
+  @Override
+  public Map<String, Claim> getClaims() {
+    final Map<String, Claim> claims = new LinkedHashMap<>();
+    final Iterator<Map.Entry<String, JsonNode>> fields = payload.fields();
+    while (fields.hasNext()) {
+      final Map.Entry<String, JsonNode> field = fields.next();
+      claims.put(field.getKey(), NodeClaim.of(field.getValue(), objectMapper));
+    }
+    return Collections.unmodifiableMap(claims);
+  }
+
+  /**
+   * Reads a date claim without creating a {@link Date}.
+   *
+   * @param claimName name of the date claim
+   * @param defaultValue returned if the claim is missing or null
+   * @return the claim as seconds since the epoch
+   * @throws JWTDecodeException if the claim is not numeric
+   */
+  public long numericDate(String claimName, long defaultValue) {
+    final JsonNode node = payload.get(claimName);
+    return isNull(node) ? defaultValue : seconds(node, claimName);
+  }
+
+  private Date date(String claimName) {
+    final JsonNode node = payload.get(claimName);
+    return isNull(node) ? null : new Date(seconds(node, claimName) * 1000);
+  }
+
+  private static long seconds(JsonNode node, String claimName) {
+    if (!node.canConvertToLong()) {
+      throw new JWTDecodeException(
+          String.format("The claim '%s' contained a non-numeric date value.", claimName));
+    }
+    return node.asLong();
+  }
+
+  private static String text(ObjectNode object, String name) {
+    final JsonNode node = object.get(name);
+    return isNull(node) ? null : node.asText();
+  }
+
+  private static boolean isNull(JsonNode node) {
+    return node == null || node.isNull();
+  }
+
+  @Override
+  public String toString() {
+    return "ParsedJWT{" + "header=" + header.node() + ", payload=" + payload + '}';
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Decodes compact serialized tokens into {@link ParsedJWT} instances.
+ *
+ * <p>The segments are located by index in the given character sequence and base64url decoded into
+ * the reusable buffer of the current thread, which is handed to Jackson directly. No intermediate
+ * strings are created for the segments. Instances are thread safe.
+ *
+ * <p>Decoded headers are kept in a small {@link HeaderCache} by their raw segment, so the few
+ * distinct headers of the tokens are only decoded once. Tokens sharing a header share its parsed
+ * node.
+ *
+ * <p>A decoder created with {@link #retaining(Set)} scans the payload as a stream and only keeps
+ * the given claims. All other payload fields are skipped without being materialized, so the decoded
+ * token does not see them.
+ */
+public class TokenDecoder {
+
+  /** number of cached distinct headers */
+  static final int HEADER_CACHE_SIZE = 64;
+
+  private final ObjectMapper objectMapper;
+
+  private final HeaderCache headerCache = new HeaderCache(HEADER_CACHE_SIZE);
+
+  private final Optional<Set<String>> retainedClaims;
+
+  public TokenDecoder() {
+    this(new ObjectMapper());
+  }
+
+  public TokenDecoder(ObjectMapper objectMapper) {
+    this(objectMapper, Optional.empty());
+  }
+
+  private TokenDecoder(ObjectMapper objectMapper, Optional<Set<String>> retainedClaims) {
+    this.objectMapper = objectMapper;
+    this.retainedClaims = retainedClaims;
+  }
+
+  /**
+   * @param claimNames names of the payload claims to keep
+   * @return decoder which streams the payload and only keeps the given claims
+   */
+  public static TokenDecoder retaining(Set<String> claimNames) {
+    return new TokenDecoder(
+        new ObjectMapper(), Optional.of(Collections.unmodifiableSet(new HashSet<>(claimNames))));
+  }
+
+  /**
+   * @param token compact serialized token
+   * @return decoded token
+   * @throws JWTDecodeException if the token could not be decoded
+   */
+  public ParsedJWT decode(CharSequence token) {
+    return decode(TokenSegments.of(token));
+  }
+
+  /**
+   * @param segments located token segments
+   * @return decoded token
+   * @throws JWTDecodeException if the token could not be decoded
+   */
+  public ParsedJWT decode(TokenSegments segments) {
+    return decode(segments, decodeHeader(segments));
+  }
+
+  /**
+   * Decodes only the header of a token, e.g. to reject it before its payload is decoded.
+   *
+   * @param segments located token segments
+   * @return decoded header
+   * @throws JWTDecodeException if the token is malformed or the header could not be decoded
+   */
+  public TokenHeader decodeHeader(TokenSegments segments) {
+    segments.requireWellFormed();
+    final int start = segments.headerStart();
+    final int end = segments.headerEnd();
+    final TokenHeader cached = headerCache.get(segments.source(), start, end);
+    if (cached != null) {
+      return cached;
+    }
+    final TokenHeader header = TokenHeader.of(parseSegment(segments, start, end));
+    headerCache.put(segments.source(), start, end, header);
+    return header;
+  }
+
+  /**
+   * @param segments located token segments
+   * @param header header decoded from the same segments
+   * @return decoded token
+   * @throws JWTDecodeException if the payload could not be decoded
+   */
+  public ParsedJWT decode(TokenSegments segments, TokenHeader header) {
+    final ObjectNode payload =
+        retainedClaims.isPresent()
+            ? scanSegment(segments, segments.payloadStart(), segments.payloadEnd())
+            : parseSegment(segments, segments.payloadStart(), segments.payloadEnd());
+    return new ParsedJWT(segments, header, payload, objectMapper);
+  }
+
+  private ObjectNode parseSegment(TokenSegments segments, int start, int end) {
+    final DecodeBuffer buffer = Base64Url.decode(segments.source(), start, end);
+    final JsonNode node;
+    try {
+      node = objectMapper.readTree(buffer.bytes(), 0, buffer.length());
+    } catch (IOException e) {
+      throw new JWTDecodeException("The token segment doesn't have a valid JSON format.", e);
+    }
+    if (node == null || !node.isObject()) {
+      throw new JWTDecodeException("The token segment doesn't contain a JSON object.");
+    }
+    return (ObjectNode) node;
+  }
+
+  private ObjectNode scanSegment(TokenSegments segments, int start, int end) {
+    final Set<String> claimNames = retainedClaims.get();
+    final DecodeBuffer buffer = Base64Url.decode(segments.source(), start, end);
+    final ObjectNode node = objectMapper.createObjectNode();
+    try (JsonParser parser =
+        objectMapper.getFactory().createParser(buffer.bytes(), 0, buffer.length())) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JWTDecodeException("The token segment doesn't contain a JSON object.");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+        parser.nextToken();
+        if (claimNames.contains(name)) {
+          final JsonNode value = objectMapper.readTree(parser);
+          node.set(name, value == null ? NullNode.getInstance() : value);
+        } else {
+          parser.skipChildren();
+        }
+      }
+      if (parser.currentToken() != JsonToken.END_OBJECT) {
+        throw new JWTDecodeException("The token segment doesn't have a valid JSON format.");
+      }
+    } catch (IOException e) {
+      throw new JWTDecodeException("The token segment doesn't have a valid JSON format.", e);
+    }
+    return node;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+import com.auth0.jwt.impl.PublicClaims;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Decoded header of a token, decoded by {@link TokenDecoder#decodeHeader(TokenSegments)} without
+ * touching the payload. Can be passed to {@link TokenDecoder#decode(TokenSegments, TokenHeader)} to
+ * decode the rest of the token.
+ */
+public final class TokenHeader {
+
+  private final ObjectNode node;
+
+  private final String algorithm;
+
+  private final String keyId;
+
+  private final String type;
+
+  private TokenHeader(ObjectNode node) {
+    this.node = node;
+    this.algorithm = text(node, PublicClaims.ALGORITHM);
+    this.keyId = text(node, PublicClaims.KEY_ID);
+    this.type = text(node, PublicClaims.TYPE);
+  }
+
+  static TokenHeader of(ObjectNode node) {
+    return new TokenHeader(node);
+  }
+
+  /** @return parsed header */
+  ObjectNode node() {
+    return node;
+  }
+
+  /** @return algorithm ("alg") or {@code null} */
+  public String getAlgorithm() {
+    return algorithm;
+  }
+
+  /** @return key id ("kid") or {@code null} */
+  public String getKeyId() {
+    return keyId;
+  }
+
+  /** @return type ("typ") or {@code null} */
+  public String getType() {
+    return type;
+  }
+
+  private static String text(ObjectNode object, String name) {
+    final JsonNode node = object.get(name);
+    return node == null || node.isNull() ? null : node.asText();
+  }
+
+  @Override
+  public String toString() {
+    return "TokenHeader" + node;
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+
+/**
+ * Segment boundaries of a compact serialized JWT ({@code header.payload.signature}) located by
+ * index inside of an arbitrary {@link CharSequence}, e.g. the raw value of an authorization header.
+ *
+ * <p>Locating the segments does not copy any characters. Strings are only created on request.
+ */
+public final class TokenSegments {
+
+  private static final int MAX_SEPARATORS = 2;
+
+  private final CharSequence source;
+
+  private final int start;
+
+  private final int end;
+
+  private final int firstDot;
+
+  private final int secondDot;
+
+  private final int separatorCount;
+
+  private TokenSegments(
+      CharSequence source, int start, int end, int firstDot, int secondDot, int separatorCount) {
+    this.source = source;
+    this.start = start;
+    this.end = end;
+    this.firstDot = firstDot;
+    this.secondDot = secondDot;
+    this.separatorCount = separatorCount;
+  }
+
+  /**
+   * Locates the segments of the whole given token.
+   *
+   * @param token compact serialized token
+   * @return located segments, check {@link #isWellFormed()} before accessing single segments
+   */
+  public static TokenSegments of(CharSequence token) {
+    return of(token, 0, token.length());
+  }
+
+  /**
+   * Locates the segments of the token stored in the given range.
+   *
+   * @param source character sequence containing the token
+   * @param start index of the first character of the token
+   * @param end index after the last character of the token
+   * @return located segments, check {@link #isWellFormed()} before accessing single segments
+   */
+  public static TokenSegments of(CharSequence source, int start, int end) {
+    int firstDot = -1;
+    int secondDot = -1;
+    int separatorCount = 0;
+    for (int i = start; i < end; i++) {
+      if (source.charAt(i) == '.') {
+        if (separatorCount == 0) {
+          firstDot = i;
+        } else if (separatorCount == 1) {
+          secondDot = i;
+        }
+        separatorCount++;
+      }
+    }
+    return new TokenSegments(source, start, end, firstDot, secondDot, separatorCount);
+  }
+
+  /**
+   * Locates the first whitespace delimited token starting at the given index. Leading whitespace
+   * is skipped, the token ends before the next whitespace character or at the end of the source.
+   *
+   * @param source character sequence containing the token, e.g. an authorization header value
+   * @param from index to start searching at
+   * @return located segments, check {@link #isWellFormed()} before accessing single segments
+   */
+  public static TokenSegments locate(CharSequence source, int from) {
+    final int length = source.length();
+    int start = Math.min(from, length);
+    while (start < length && Character.isWhitespace(source.charAt(start))) {
+      start++;
+    }
+    int end = start;
+    while (end < length && !Character.isWhitespace(source.charAt(end))) {
+      end++;
+    }
+    return of(source, start, end);
+  }
+
+  /** @return {@code true} if the token consists of exactly three segments */
+  public boolean isWellFormed() {
+    return separatorCount == MAX_SEPARATORS;
+  }
+
+  /**
+   * Ensures that the token consists of exactly three segments.
+   *
+   * @return this instance
+   * @throws JWTDecodeException if the token has not exactly three segments
+   */
+  public TokenSegments requireWellFormed() {
+    if (!isWellFormed()) {
+      throw new JWTDecodeException(
+          String.format(
+              "The token was expected to have 3 parts, but got %s.", separatorCount + 1));
+    }
+    return this;
+  }
+
+  public CharSequence source() {
+    return source;
+  }
+
+  public int start() {
+    return start;
+  }
+
+  public int end() {
+    return end;
+  }
+
+  public int length() {
+    return end - start;
+  }
+
+  public int headerStart() {
+    return start;
+  }
+
+  public int headerEnd() {
+    return firstDot;
+  }
+
+  public int payloadStart() {
+    return firstDot + 1;
+  }
+
+  public int payloadEnd() {
+    return secondDot;
+  }
+
+  public int signatureStart() {
+    return secondDot + 1;
+  }
+
+  public int signatureEnd() {
+    return end;
+  }
+
+  /** @return the complete token as string, without copying if the source is the token itself */
+  public String token() {
+    if (start == 0 && end == source.length() && source instanceof String) {
+      return (String) source;
+    }
+    return source.subSequence(start, end).toString();
+  }
+
+  public String header() {
+    return source.subSequence(headerStart(), headerEnd()).toString();
+  }
+
+  public String payload() {
+    return source.subSequence(payloadStart(), payloadEnd()).toString();
+  }
+
+  public String signature() {
+    return source.subSequence(signatureStart(), signatureEnd()).toString();
+  }
+
+  @Override
+  public String toString() {
+    return "TokenSegments{"
+        + "start="
+        + start
+        + ", end="
+        + end
+        + ", firstDot="
+        + firstDot
+        + ", secondDot="
+        + secondDot
+        + ", separatorCount="
+        + separatorCount
+        + '}';
+  }
+}
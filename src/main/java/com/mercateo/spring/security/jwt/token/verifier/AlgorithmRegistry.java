@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable set of prebuilt, thread safe {@link Algorithm} instances by their JWS name ("alg").
+ *
+ * <p>Names are resolved by an exact lookup. Only if that misses, the name is compared ignoring
+ * case, as the verifier accepted e.g. {@code rs256} before.
+ */
+public final class AlgorithmRegistry {
+
+  private final Map<String, Optional<Algorithm>> algorithms;
+
+  private final Map<String, Optional<Algorithm>> algorithmsIgnoringCase;
+
+  private AlgorithmRegistry(Map<String, Optional<Algorithm>> algorithms) {
+    this.algorithms = Collections.unmodifiableMap(algorithms);
+    final Map<String, Optional<Algorithm>> algorithmsIgnoringCase = new HashMap<>();
+    algorithms.forEach((name, algorithm) -> algorithmsIgnoringCase.put(upperCase(name), algorithm));
+    this.algorithmsIgnoringCase = Collections.unmodifiableMap(algorithmsIgnoringCase);
+  }
+
+  /**
+   * @param rsaKeyProvider key provider for the RSA algorithms
+   * @return registry with the RS256, RS384 and RS512 algorithms
+   */
+  public static AlgorithmRegistry rsa(RSAKeyProvider rsaKeyProvider) {
+    return builder().registerRsa(rsaKeyProvider).build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @param name JWS algorithm name, as given in the "alg" header
+   * @return algorithm registered for the given name
+   */
+  public Optional<Algorithm> get(String name) {
+    if (name == null) {
+      return Optional.empty();
+    }
+    final Optional<Algorithm> algorithm = algorithms.get(name);
+    if (algorithm != null) {
+      return algorithm;
+    }
+    return algorithmsIgnoringCase.getOrDefault(upperCase(name), Optional.empty());
+  }
+
+  /** @return names of the registered algorithms */
+  public Set<String> names() {
+    return algorithms.keySet();
+  }
+
+  private static String upperCase(String name) {
+    return name.toUpperCase(Locale.ROOT);
+  }
+
+  @Override
+  public String toString() {
+    return "AlgorithmRegistry" + new LinkedHashSet<>(algorithms.keySet());
+  }
+
+  public static final class Builder {
+
+    private final Map<String, Optional<Algorithm>> algorithms = new HashMap<>();
+
+    private Builder() {}
+
+    /**
+     * @param algorithm thread safe algorithm to register under its name
+     * @return this builder
+     * @throws IllegalArgumentException if an algorithm of the same name is already registered
+     */
+    public Builder register(Algorithm algorithm) {
+      final String name = Objects.requireNonNull(algorithm, "algorithm").getName();
+      if (algorithms.containsKey(name)) {
+        throw new IllegalArgumentException("algorithm " + name + " is already registered");
+      }
+      algorithms.put(name, Optional.of(algorithm));
+      return this;
+    }
+
+    /**
+     * @param rsaKeyProvider key provider for the RSA algorithms
+     * @return this builder
+     */
+    public Builder registerRsa(RSAKeyProvider rsaKeyProvider) {
+      return register(RSASignatureAlgorithm.rs256(rsaKeyProvider))
+          .register(RSASignatureAlgorithm.rs384(rsaKeyProvider))
+          .register(RSASignatureAlgorithm.rs512(rsaKeyProvider));
+    }
+
+    /**
+     * @param rsaKeyProvider key provider for the RSASSA-PSS algorithms
+     * @return this builder, with the PS256, PS384 and PS512 algorithms registered if the JVM
+     *     supports them
+     */
+    public Builder registerRsaPss(RSAKeyProvider rsaKeyProvider) {
+      if (!RSASignatureAlgorithm.isPssSupported()) {
+        return this;
+      }
+      return register(RSASignatureAlgorithm.ps256(rsaKeyProvider))
+          .register(RSASignatureAlgorithm.ps384(rsaKeyProvider))
+          .register(RSASignatureAlgorithm.ps512(rsaKeyProvider));
+    }
+
+    /**
+     * @param ecdsaKeyProvider key provider for the elliptic curve algorithms
+     * @return this builder
+     */
+    public Builder registerEcdsa(ECDSAKeyProvider ecdsaKeyProvider) {
+      return register(Algorithm.ECDSA256(ecdsaKeyProvider))
+          .register(Algorithm.ECDSA384(ecdsaKeyProvider))
+          .register(Algorithm.ECDSA512(ecdsaKeyProvider));
+    }
+
+    /**
+     * @param eddsaKeyProvider key provider for the Ed25519 keys
+     * @return this builder, with the EdDSA algorithm registered if the JVM supports it
+     */
+    public Builder registerEdDsa(EdDSAKeyProvider eddsaKeyProvider) {
+      return EdDSAAlgorithm.isSupported() ? register(new EdDSAAlgorithm(eddsaKeyProvider)) : this;
+    }
+
+    /**
+     * Registers HS256 with all secrets, HS384 and HS512 only with the secrets of at least 384 and
+     * 512 bits. An algorithm without any secret long enough is not registered.
+     *
+     * @param secrets shared secrets by issuer ("iss")
+     * @return this builder
+     * @throws IllegalArgumentException if a secret is shorter than 256 bits
+     */
+    public Builder registerHmac(Map<String, byte[]> secrets) {
+      register(HMACAlgorithm.hs256(secrets));
+      registerHmac(secrets, HMACAlgorithm.HS384_MIN_SECRET_LENGTH, HMACAlgorithm::hs384);
+      return registerHmac(secrets, HMACAlgorithm.HS512_MIN_SECRET_LENGTH, HMACAlgorithm::hs512);
+    }
+
+    private Builder registerHmac(
+        Map<String, byte[]> secrets,
+        int minSecretLength,
+        Function<Map<String, byte[]>, HMACAlgorithm> algorithm) {
+      final Map<String, byte[]> longEnough = new HashMap<>();
+      secrets.forEach(
+          (issuer, secret) -> {
+            if (secret.length >= minSecretLength) {
+              longEnough.put(issuer, secret);
+            }
+          });
+      return longEnough.isEmpty() ? this : register(algorithm.apply(longEnough));
+    }
+
+    public AlgorithmRegistry build() {
+      return new AlgorithmRegistry(new HashMap<>(algorithms));
+    }
+  }
+}
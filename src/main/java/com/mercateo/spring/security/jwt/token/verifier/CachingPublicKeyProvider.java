@@ -0,0 +1,357 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.mercateo.spring.security.jwt.token.keyset.JWKPublicKeys;
+import com.mercateo.spring.security.jwt.token.keyset.JWTKeyset;
+import com.mercateo.spring.security.jwt.token.keyset.UnknownKeyIdException;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the public keys derived from the {@link JWTKeyset} in an immutable snapshot by key id and
+ * provides them to the algorithms through the {@link #rsa()}, {@link #ecdsa()} and {@link #eddsa()}
+ * views.
+ *
+ * <p>Lookups read the current snapshot without locking. A missing key is derived from the keyset
+ * once and published by swapping in a copy of the snapshot. The snapshot is dropped when the keyset
+ * reports a change and, for keysets without change notification, when it reaches its maximum age.
+ *
+ * <p>Tokens can be screened with {@link #isKnownOrLookupAllowed(String)} before their key is
+ * requested, so that tokens with junk key ids do not cause a keyset lookup each. Key ids of keys
+ * already derived or already loaded by the keyset pass, other key ids are looked up within a budget
+ * shared by all key ids. Tokens with junk key ids may use up the budget, but a rotated key id is
+ * accepted as soon as the keyset loaded its key, e.g. by a background refresh or a fetch for
+ * another key id, at the latest when the lookup window resets. Key ids which the keyset reported as
+ * {@link UnknownKeyIdException unknown} after loading its keys successfully are remembered for a
+ * short time in a bounded negative cache, which is checked before the keyset is asked again.
+ * Transient failures, like failed or rate limited fetches, are not remembered. Failed lookups are
+ * logged at most once per {@link #FAILURE_LOG_INTERVAL}.
+ */
+@Slf4j
+final class CachingPublicKeyProvider {
+
+  static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(10);
+
+  /** lookups of unknown key ids allowed per {@link #UNKNOWN_KEY_LOOKUP_WINDOW} */
+  static final int UNKNOWN_KEY_LOOKUPS = 10;
+
+  static final Duration UNKNOWN_KEY_LOOKUP_WINDOW = Duration.ofMinutes(1);
+
+  /** maximum number of remembered unknown key ids */
+  static final int UNKNOWN_KEY_IDS = 1000;
+
+  static final Duration UNKNOWN_KEY_ID_TTL = Duration.ofSeconds(30);
+
+  static final Duration FAILURE_LOG_INTERVAL = Duration.ofSeconds(10);
+
+  private final JWTKeyset jwtKeyset;
+
+  private final long maxAgeNanos;
+
+  /** monotonic time source for the durations, {@link System#nanoTime()} by default */
+  private final LongSupplier nanoTime;
+
+  private final int unknownKeyLookups;
+
+  private final long lookupWindowNanos;
+
+  private long lookupWindowStart;
+
+  private int lookupsInWindow;
+
+  private final Cache<String, Exception> unknownKeyIds;
+
+  private long lastFailureLog;
+
+  private int suppressedFailures;
+
+  private final RSAKeyProvider rsaKeyProvider = new RSAView();
+
+  private final ECDSAKeyProvider ecdsaKeyProvider = new ECDSAView();
+
+  private final EdDSAKeyProvider eddsaKeyProvider = this::getEdDSAPublicKeyById;
+
+  private volatile Snapshot snapshot;
+
+  CachingPublicKeyProvider(JWTKeyset jwtKeyset) {
+    this(jwtKeyset, DEFAULT_MAX_AGE, System::nanoTime);
+  }
+
+  CachingPublicKeyProvider(JWTKeyset jwtKeyset, Duration maxAge, LongSupplier nanoTime) {
+    this(jwtKeyset, maxAge, UNKNOWN_KEY_LOOKUPS, UNKNOWN_KEY_LOOKUP_WINDOW, nanoTime);
+  }
+
+  CachingPublicKeyProvider(
+      JWTKeyset jwtKeyset,
+      Duration maxAge,
+      int unknownKeyLookups,
+      Duration lookupWindow,
+      LongSupplier nanoTime) {
+    this.jwtKeyset = jwtKeyset;
+    this.maxAgeNanos = maxAge.toNanos();
+    this.nanoTime = nanoTime;
+    this.unknownKeyLookups = unknownKeyLookups;
+    this.lookupWindowNanos = lookupWindow.toNanos();
+    this.lookupWindowStart = nanoTime.getAsLong();
+    this.lastFailureLog = nanoTime.getAsLong() - FAILURE_LOG_INTERVAL.toNanos();
+    this.unknownKeyIds =
+        CacheBuilder.newBuilder()
+            .maximumSize(UNKNOWN_KEY_IDS)
+            .expireAfterWrite(UNKNOWN_KEY_ID_TTL.toNanos(), TimeUnit.NANOSECONDS)
+            .ticker(
+                new Ticker() {
+                  @Override
+                  public long read() {
+                    return nanoTime.getAsLong();
+                  }
+                })
+            .recordStats()
+            .build();
+    this.snapshot = new Snapshot(Collections.emptyMap(), nanoTime.getAsLong() + maxAgeNanos);
+    jwtKeyset.addChangeListener(this::invalidate);
+  }
+
+  /** @return view providing the RSA keys of the keyset */
+  RSAKeyProvider rsa() {
+    return rsaKeyProvider;
+  }
+
+  /** @return view providing the elliptic curve keys of the keyset */
+  ECDSAKeyProvider ecdsa() {
+    return ecdsaKeyProvider;
+  }
+
+  /** @return view providing the Ed25519 keys of the keyset */
+  EdDSAKeyProvider eddsa() {
+    return eddsaKeyProvider;
+  }
+
+  /**
+   * @param keyId id of the key
+   * @param type expected type of the key
+   * @return public key of the given id
+   * @throws IllegalStateException if the key can not be derived or is not of the expected type
+   */
+  <K extends PublicKey> K getPublicKeyById(String keyId, Class<K> type) {
+    final PublicKey key = getPublicKeyById(keyId);
+    if (!type.isInstance(key)) {
+      throw new IllegalStateException(
+          "public key for id " + keyId + " is not of type " + type.getSimpleName());
+    }
+    return type.cast(key);
+  }
+
+  private PublicKey getEdDSAPublicKeyById(String keyId) {
+    final PublicKey key = getPublicKeyById(keyId);
+    // there is no Java 8 type for Edwards curve keys, their algorithm is EdDSA or Ed25519
+    final String algorithm = key.getAlgorithm();
+    if (!"EdDSA".equals(algorithm) && !"Ed25519".equals(algorithm)) {
+      throw new IllegalStateException("public key for id " + keyId + " is not of type EdDSA");
+    }
+    return key;
+  }
+
+  /**
+   * @param keyId key id of a token
+   * @return whether the key of the given id is known or loaded by the keyset, otherwise whether it
+   *     did not fail recently and the budget of unknown key id lookups allows to look it up
+   */
+  boolean isKnownOrLookupAllowed(String keyId) {
+    return snapshot.keys.containsKey(keyId)
+        || jwtKeyset.isLoadedKeyId(keyId)
+        || (knownFailure(keyId) == null && acquireLookup());
+  }
+
+  private Exception knownFailure(String keyId) {
+    return keyId == null ? null : unknownKeyIds.getIfPresent(keyId);
+  }
+
+  private synchronized boolean acquireLookup() {
+    final long now = nanoTime.getAsLong();
+    if (now - lookupWindowStart >= lookupWindowNanos) {
+      lookupWindowStart = now;
+      lookupsInWindow = 0;
+    }
+    if (lookupsInWindow < unknownKeyLookups) {
+      lookupsInWindow++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Looks up the key of the given id ahead of its use, if the key is known or the budget of unknown
+   * key id lookups allows it. A failed lookup is not reported here, it fails the verification of
+   * the tokens with this key id.
+   *
+   * @param keyId key id of a token
+   */
+  void resolve(String keyId) {
+    if (isKnownOrLookupAllowed(keyId)) {
+      try {
+        getPublicKeyById(keyId);
+      } catch (RuntimeException e) {
+        log.debug("could not resolve key id {} in advance", keyId, e);
+      }
+    }
+  }
+
+  PublicKey getPublicKeyById(String keyId) {
+    final Snapshot current = snapshot;
+    final PublicKey key = current.keys.get(keyId);
+    if (key != null && nanoTime.getAsLong() - current.expiresAt < 0) {
+      return key;
+    }
+    final Exception failure = knownFailure(keyId);
+    if (failure != null) {
+      throw new IllegalStateException("key id " + keyId + " is unknown", failure);
+    }
+    return load(keyId);
+  }
+
+  private PublicKey load(String keyId) {
+    final PublicKey key =
+        jwtKeyset
+            .getKeysetForId(keyId)
+            .mapTry(JWKPublicKeys::publicKey)
+            .onFailure(e -> rejected(keyId, e))
+            .getOrElseThrow(IllegalStateException::new);
+    publish(keyId, key);
+    return key;
+  }
+
+  private void rejected(String keyId, Throwable e) {
+    if (keyId != null && isUnknownKeyId(e)) {
+      unknownKeyIds.put(keyId, (Exception) e);
+    }
+    final int suppressed;
+    synchronized (this) {
+      final long now = nanoTime.getAsLong();
+      if (now - lastFailureLog < FAILURE_LOG_INTERVAL.toNanos()) {
+        suppressedFailures++;
+        return;
+      }
+      lastFailureLog = now;
+      suppressed = suppressedFailures;
+      suppressedFailures = 0;
+    }
+    log.warn(
+        "Error getting public key for id {}: {} ({} further failures not logged)",
+        keyId,
+        e.toString(),
+        suppressed);
+    log.debug("Error getting public key for id " + keyId, e);
+  }
+
+  private static boolean isUnknownKeyId(Throwable e) {
+    // keysets may wrap the failure, e.g. the Guava cache of the Auth0 keyset
+    return e instanceof Exception
+        && Throwables.getCausalChain(e).stream().anyMatch(UnknownKeyIdException.class::isInstance);
+  }
+
+  /**
+   * @return statistics of the negative cache of unknown key ids, its hit count is the number of
+   *     lookups rejected without asking the keyset
+   */
+  CacheStats unknownKeyIdStats() {
+    return unknownKeyIds.stats();
+  }
+
+  private synchronized void publish(String keyId, PublicKey key) {
+    final long now = nanoTime.getAsLong();
+    final Snapshot current = snapshot;
+    final boolean expired = now - current.expiresAt >= 0;
+    final Map<String, PublicKey> keys = expired ? new HashMap<>() : new HashMap<>(current.keys);
+    keys.put(keyId, key);
+    snapshot =
+        new Snapshot(
+            Collections.unmodifiableMap(keys), expired ? now + maxAgeNanos : current.expiresAt);
+  }
+
+  /**
+   * drops all keys and unknown key ids, the keys are derived from the keyset again on their next
+   * use
+   */
+  synchronized void invalidate() {
+    snapshot = new Snapshot(Collections.emptyMap(), nanoTime.getAsLong() + maxAgeNanos);
+    // changed keys may contain previously unknown key ids
+    unknownKeyIds.invalidateAll();
+  }
+
+  private static final class Snapshot {
+    private final Map<String, PublicKey> keys;
+
+    /** {@link System#nanoTime()} at which the snapshot expires */
+    private final long expiresAt;
+
+    private Snapshot(Map<String, PublicKey> keys, long expiresAt) {
+      this.keys = keys;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final class RSAView implements RSAKeyProvider {
+    @Override
+    public RSAPublicKey getPublicKeyById(String keyId) {
+      return CachingPublicKeyProvider.this.getPublicKeyById(keyId, RSAPublicKey.class);
+    }
+
+    @Override
+    public RSAPrivateKey getPrivateKey() {
+      return null;
+    }
+
+    @Override
+    public String getPrivateKeyId() {
+      return null;
+    }
+  }
+
+  private final class ECDSAView implements ECDSAKeyProvider {
+    @Override
+    public ECPublicKey getPublicKeyById(String keyId) {
+      return CachingPublicKeyProvider.this.getPublicKeyById(keyId, ECPublicKey.class);
+    }
+
+    @Override
+    public ECPrivateKey getPrivateKey() {
+      return null;
+    }
+
+    @Override
+    public String getPrivateKeyId() {
+      return null;
+    }
+  }
+}
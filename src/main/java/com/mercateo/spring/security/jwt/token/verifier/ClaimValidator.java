@@ -0,0 +1,395 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.impl.PublicClaims;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mercateo.spring.security.jwt.token.parser.ParsedJWT;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Check of a single claim compiled from the required claims of a {@link JWTVerifier}. Tokens
+ * decoded by the {@link com.mercateo.spring.security.jwt.token.parser.TokenDecoder} are checked on
+ * their payload nodes, so that validating a valid token does not allocate.
+ */
+abstract class ClaimValidator {
+
+  /**
+   * Compiles the required claims into validators.
+   *
+   * @param claims required claims, the date claims map to their leeway in seconds
+   * @return validators of the given claims
+   * @throws IllegalArgumentException if a claim value has an unsupported type
+   */
+  static ClaimValidator[] compile(Map<String, Object> claims) throws IllegalArgumentException {
+    final List<ClaimValidator> validators = new ArrayList<>(claims.size());
+    for (Map.Entry<String, Object> entry : claims.entrySet()) {
+      validators.add(compile(entry.getKey(), entry.getValue()));
+    }
+    return validators.toArray(new ClaimValidator[0]);
+  }
+
+  private static ClaimValidator compile(String name, Object value) {
+    switch (name) {
+      case PublicClaims.AUDIENCE:
+        return new Audience(strings(name, value));
+      case PublicClaims.ISSUER:
+        return new Issuer(strings(name, value));
+      case PublicClaims.EXPIRES_AT:
+        return new ExpiresAt((Long) value);
+      case PublicClaims.NOT_BEFORE:
+        return new NotBefore((Long) value);
+      default:
+        return equalTo(name, value);
+    }
+  }
+
+  private static Set<String> strings(String name, Object value) {
+    if (value instanceof Set) {
+      final Set<String> strings = new HashSet<>();
+      for (Object element : (Set<?>) value) {
+        if (!(element instanceof String)) {
+          throw new IllegalArgumentException(
+              String.format("The Claim '%s' value contains a non string element.", name));
+        }
+        strings.add((String) element);
+      }
+      return Collections.unmodifiableSet(strings);
+    }
+    throw new IllegalArgumentException(
+        String.format(
+            "The Claim '%s' value of type %s is not supported.",
+            name, value.getClass().getSimpleName()));
+  }
+
+  private static ClaimValidator equalTo(String name, Object value) {
+    if (value instanceof String) {
+      return new StringValue(name, (String) value);
+    } else if (value instanceof Integer) {
+      return new IntValue(name, (Integer) value);
+    } else if (value instanceof Long) {
+      return new LongValue(name, (Long) value);
+    } else if (value instanceof Boolean) {
+      return new BooleanValue(name, (Boolean) value);
+    } else if (value instanceof Double) {
+      return new DoubleValue(name, (Double) value);
+    } else if (value instanceof Date) {
+      return new DateValue(name, (Date) value);
+    } else if (value instanceof Object[]) {
+      return new ArrayValue(name, (Object[]) value);
+    }
+    throw new IllegalArgumentException(
+        String.format(
+            "The Claim '%s' value of type %s is not supported.",
+            name, value.getClass().getSimpleName()));
+  }
+
+  /**
+   * @param jwt decoded token
+   * @param now current time in seconds since the epoch
+   * @throws TokenExpiredException if the token has expired
+   * @throws InvalidClaimException if the claim is not valid
+   */
+  abstract void validate(DecodedJWT jwt, long now)
+      throws TokenExpiredException, InvalidClaimException;
+
+  private static final class ExpiresAt extends ClaimValidator {
+    private final long leeway;
+
+    ExpiresAt(long leeway) {
+      this.leeway = leeway;
+    }
+
+    @Override
+    void validate(DecodedJWT jwt, long now) {
+      final long expiresAt = numericDate(jwt, PublicClaims.EXPIRES_AT, Long.MAX_VALUE);
+      if (now - leeway > expiresAt) {
+        throw new TokenExpiredException(
+            String.format("The Token has expired on %s.", new Date(expiresAt * 1000)));
+      }
+    }
+  }
+
+  private static final class NotBefore extends ClaimValidator {
+    private final long leeway;
+
+    NotBefore(long leeway) {
+      this.leeway = leeway;
+    }
+
+    @Override
+    void validate(DecodedJWT jwt, long now) {
+      final long notBefore = numericDate(jwt, PublicClaims.NOT_BEFORE, Long.MIN_VALUE);
+      if (now + leeway < notBefore) {
+        throw new InvalidClaimException(
+            String.format("The Token can't be used before %s.", new Date(notBefore * 1000)));
+      }
+    }
+  }
+
+  private static final class Audience extends ClaimValidator {
+    private final Set<String> audiences;
+
+    Audience(Set<String> audiences) {
+      this.audiences = audiences;
+    }
+
+    @Override
+    void validate(DecodedJWT jwt, long now) {
+      if (!(jwt instanceof ParsedJWT ? matches((ParsedJWT) jwt) : matches(jwt.getAudience()))) {
+        throw new InvalidClaimException(
+            "The Claim 'aud' value doesn't contain at least one of the required audiences.");
+      }
+    }
+
+    private boolean matches(ParsedJWT jwt) {
+      final JsonNode node = jwt.payloadNode().get(PublicClaims.AUDIENCE);
+      if (node == null || node.isNull()) {
+        return false;
+      }
+      if (node.isTextual()) {
+        return audiences.contains(node.textValue());
+      }
+      if (!node.isArray()) {
+        // fails with the decoding error of the audience
+        return matches(jwt.getAudience());
+      }
+      for (int i = 0; i < node.size(); i++) {
+        if (audiences.contains(node.get(i).asText())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean matches(List<String> audience) {
+      return audience != null && audience.stream().anyMatch(audiences::contains);
+    }
+  }
+
+  private static final class Issuer extends ClaimValidator {
+    private final Set<String> issuers;
+
+    Issuer(Set<String> issuers) {
+      this.issuers = issuers;
+    }
+
+    @Override
+    void validate(DecodedJWT jwt, long now) {
+      final String issuer;
+      if (jwt instanceof ParsedJWT) {
+        final JsonNode node = ((ParsedJWT) jwt).payloadNode().get(PublicClaims.ISSUER);
+        issuer = node == null ? null : node.textValue();
+      } else {
+        issuer = jwt.getIssuer();
+      }
+      if (issuer == null || !issuers.contains(issuer)) {
+        throw notMatching(PublicClaims.ISSUER);
+      }
+    }
+  }
+
+  /** Requires a custom claim to have the configured value. */
+  private abstract static class EqualTo extends ClaimValidator {
+    private final String name;
+
+    EqualTo(String name) {
+      this.name = name;
+    }
+
+    @Override
+    final void validate(DecodedJWT jwt, long now) {
+      final boolean isValid =
+          jwt instanceof ParsedJWT
+              ? matches(((ParsedJWT) jwt).payloadNode().get(name))
+              : matches(jwt.getClaim(name));
+      if (!isValid) {
+        throw notMatching(name);
+      }
+    }
+
+    /**
+     * @param node payload node of the claim, {@code null} if it is missing
+     * @return true if the claim has the required value
+     */
+    abstract boolean matches(JsonNode node);
+
+    abstract boolean matches(Claim claim);
+  }
+
+  private static final class StringValue extends EqualTo {
+    private final String value;
+
+    StringValue(String name, String value) {
+      super(name);
+      this.value = value;
+    }
+
+    @Override
+    boolean matches(JsonNode node) {
+      return node != null && node.isTextual() && value.equals(node.textValue());
+    }
+
+    @Override
+    boolean matches(Claim claim) {
+      return value.equals(claim.asString());
+    }
+  }
+
+  private static final class IntValue extends EqualTo {
+    private final int value;
+
+    IntValue(String name, int value) {
+      super(name);
+      this.value = value;
+    }
+
+    @Override
+    boolean matches(JsonNode node) {
+      return node != null && node.isNumber() && node.asInt() == value;
+    }
+
+    @Override
+    boolean matches(Claim claim) {
+      final Integer claimValue = claim.asInt();
+      return claimValue != null && claimValue == value;
+    }
+  }
+
+  private static final class LongValue extends EqualTo {
+    private final long value;
+
+    LongValue(String name, long value) {
+      super(name);
+      this.value = value;
+    }
+
+    @Override
+    boolean matches(JsonNode node) {
+      return node != null && node.isNumber() && node.asLong() == value;
+    }
+
+    @Override
+    boolean matches(Claim claim) {
+      final Long claimValue = claim.asLong();
+      return claimValue != null && claimValue == value;
+    }
+  }
+
+  private static final class BooleanValue extends EqualTo {
+    private final boolean value;
+
+    BooleanValue(String name, boolean value) {
+      super(name);
+      this.value = value;
+    }
+
+    @Override
+    boolean matches(JsonNode node) {
+      return node != null && node.isBoolean() && node.booleanValue() == value;
+    }
+
+    @Override
+    boolean matches(Claim claim) {
+      final Boolean claimValue = claim.asBoolean();
+      return claimValue != null && claimValue == value;
+    }
+  }
+
+  private static final class DoubleValue extends EqualTo {
+    private final long bits;
+
+    DoubleValue(String name, double value) {
+      super(name);
+      this.bits = Double.doubleToLongBits(value);
+    }
+
+    @Override
+    boolean matches(JsonNode node) {
+      return node != null && node.isNumber() && Double.doubleToLongBits(node.asDouble()) == bits;
+    }
+
+    @Override
+    boolean matches(Claim claim) {
+      final Double claimValue = claim.asDouble();
+      return claimValue != null && Double.doubleToLongBits(claimValue) == bits;
+    }
+  }
+
+  private static final class DateValue extends EqualTo {
+    private final long millis;
+
+    DateValue(String name, Date value) {
+      super(name);
+      this.millis = value.getTime();
+    }
+
+    @Override
+    boolean matches(JsonNode node) {
+      return node != null && node.canConvertToLong() && node.asLong() * 1000 == millis;
+    }
+
+    @Override
+    boolean matches(Claim claim) {
+      final Date claimValue = claim.asDate();
+      return claimValue != null && claimValue.getTime() == millis;
+    }
+  }
+
+  /** Requires an array claim to contain all configured values, always maps the claim values. */
+  private static final class ArrayValue extends ClaimValidator {
+    private final String name;
+
+    private final Set<Object> values;
+
+    ArrayValue(String name, Object[] values) {
+      this.name = name;
+      this.values = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(values)));
+    }
+
+    @Override
+    void validate(DecodedJWT jwt, long now) {
+      final Object[] claimValues = jwt.getClaim(name).as(Object[].class);
+      if (claimValues == null || !Arrays.asList(claimValues).containsAll(values)) {
+        throw notMatching(name);
+      }
+    }
+  }
+
+  private static InvalidClaimException notMatching(String name) {
+    return new InvalidClaimException(
+        String.format("The Claim '%s' value doesn't match the required one.", name));
+  }
+
+  private static long numericDate(DecodedJWT jwt, String claimName, long defaultValue) {
+    if (jwt instanceof ParsedJWT) {
+      return ((ParsedJWT) jwt).numericDate(claimName, defaultValue);
+    }
+    final Date date = jwt.getClaim(claimName).asDate();
+    return date == null ? defaultValue : date.getTime() / 1000;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+/**
+ * Verifies EdDSA ("alg" EdDSA) signatures made with Ed25519 keys, using the {@link
+ * java.security.Signature} built into the JVM (Java 15 or later) on a per thread instance.
+ */
+public final class EdDSAAlgorithm extends PooledSignatureAlgorithm {
+
+  public static final String NAME = "EdDSA";
+
+  private static final String SIGNATURE_ALGORITHM = "Ed25519";
+
+  public EdDSAAlgorithm(EdDSAKeyProvider keyProvider) {
+    super(NAME, SIGNATURE_ALGORITHM, null, keyProvider::getPublicKeyById);
+  }
+
+  /** @return whether the JVM provides Ed25519 signatures */
+  public static boolean isSupported() {
+    return isSupported(SIGNATURE_ALGORITHM);
+  }
+}
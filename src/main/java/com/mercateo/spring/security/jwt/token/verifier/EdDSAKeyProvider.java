@@ -0,0 +1,29 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import java.security.PublicKey;
+
+/** Provides the public keys for the EdDSA algorithm by key id. */
+@FunctionalInterface
+public interface EdDSAKeyProvider {
+
+  /**
+   * @param keyId id of the key, as given in the "kid" header
+   * @return Ed25519 public key of the given id
+   */
+  PublicKey getPublicKeyById(String keyId);
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Verifies HMAC signatures (HS256, HS384, HS512) with shared secrets, chosen by the issuer ("iss")
+ * of the token. The key id ("kid") is ignored, so a token can only be verified with the secret of
+ * the issuer it claims.
+ *
+ * <p>Each thread keeps one {@link Mac} per secret which is initialized with its key once, so
+ * verifying a token neither looks up a provider nor sets up the key again.
+ *
+ * <p>The algorithm can only verify tokens, signing is not supported.
+ */
+public final class HMACAlgorithm extends Algorithm {
+
+  // RFC 7518 requires a key at least as long as the hash output, in bytes
+  static final int HS256_MIN_SECRET_LENGTH = 32;
+
+  static final int HS384_MIN_SECRET_LENGTH = 48;
+
+  static final int HS512_MIN_SECRET_LENGTH = 64;
+
+  private final String macAlgorithm;
+
+  private final Map<String, SecretKeySpec> secrets;
+
+  private final ThreadLocal<Map<String, Mac>> macs = ThreadLocal.withInitial(HashMap::new);
+
+  private HMACAlgorithm(
+      String name, String macAlgorithm, int minSecretLength, Map<String, byte[]> secrets) {
+    super(name, macAlgorithm);
+    this.macAlgorithm = macAlgorithm;
+    final Map<String, SecretKeySpec> keys = new HashMap<>();
+    secrets.forEach(
+        (issuer, secret) -> {
+          if (secret.length < minSecretLength) {
+            throw new IllegalArgumentException(
+                "HMAC secret for "
+                    + issuer
+                    + " must have at least "
+                    + minSecretLength * 8
+                    + " bits for "
+                    + name);
+          }
+          keys.put(issuer, new SecretKeySpec(secret, macAlgorithm));
+        });
+    this.secrets = Collections.unmodifiableMap(keys);
+  }
+
+  /**
+   * @param secrets shared secrets by issuer
+   * @return algorithm verifying HS256 signatures
+   * @throws IllegalArgumentException if a secret is shorter than 256 bits
+   */
+  public static HMACAlgorithm hs256(Map<String, byte[]> secrets) {
+    return new HMACAlgorithm("HS256", "HmacSHA256", HS256_MIN_SECRET_LENGTH, secrets);
+  }
+
+  /**
+   * @param secrets shared secrets by issuer
+   * @return algorithm verifying HS384 signatures
+   * @throws IllegalArgumentException if a secret is shorter than 384 bits
+   */
+  public static HMACAlgorithm hs384(Map<String, byte[]> secrets) {
+    return new HMACAlgorithm("HS384", "HmacSHA384", HS384_MIN_SECRET_LENGTH, secrets);
+  }
+
+  /**
+   * @param secrets shared secrets by issuer
+   * @return algorithm verifying HS512 signatures
+   * @throws IllegalArgumentException if a secret is shorter than 512 bits
+   */
+  public static HMACAlgorithm hs512(Map<String, byte[]> secrets) {
+    return new HMACAlgorithm("HS512", "HmacSHA512", HS512_MIN_SECRET_LENGTH, secrets);
+  }
+
+  @Override
+  public void verify(DecodedJWT jwt) throws SignatureVerificationException {
+    final String issuer = jwt.getIssuer();
+    if (issuer == null || !secrets.containsKey(issuer)) {
+      throw new SignatureVerificationException(
+          this, new IllegalStateException("no HMAC secret for issuer " + issuer));
+    }
+    final boolean valid;
+    try {
+      final Mac mac = mac(issuer);
+      SigningInput.of(jwt).update(mac);
+      valid =
+          MessageDigest.isEqual(mac.doFinal(), Base64.getUrlDecoder().decode(jwt.getSignature()));
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      throw new SignatureVerificationException(this, e);
+    }
+    if (!valid) {
+      throw new SignatureVerificationException(this);
+    }
+  }
+
+  private Mac mac(String issuer) throws GeneralSecurityException {
+    final Map<String, Mac> threadMacs = macs.get();
+    Mac mac = threadMacs.get(issuer);
+    if (mac == null) {
+      mac = Mac.getInstance(macAlgorithm);
+      mac.init(secrets.get(issuer));
+      threadMacs.put(issuer, mac);
+    }
+    return mac;
+  }
+
+  @Override
+  @Deprecated
+  public byte[] sign(byte[] contentBytes) throws SignatureGenerationException {
+    throw new SignatureGenerationException(
+        this, new UnsupportedOperationException(getName() + " is supported for verification only"));
+  }
+}
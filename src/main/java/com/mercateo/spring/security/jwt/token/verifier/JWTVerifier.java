@@ -23,18 +23,21 @@ import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.SignatureVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.impl.PublicClaims;
-import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.Clock;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.google.common.cache.CacheStats;
+import com.mercateo.spring.security.jwt.support.EpochClock;
+import com.mercateo.spring.security.jwt.token.parser.TokenHeader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 import lombok.val;
 
 /**
@@ -43,14 +46,40 @@ import lombok.val;
  */
 @SuppressWarnings("WeakerAccess")
 public final class JWTVerifier {
-  private final Map<String, Object> claims;
-  private final RSAKeyProvider rsaKeyProvider;
-  private final Clock clock;
+  private final ClaimValidator[] validators;
+  private final AlgorithmRegistry algorithms;
+  private final EpochClock clock;
+  private final Set<String> keyIdAlgorithms;
+  private final Predicate<String> keyIds;
+  private final Optional<CachingPublicKeyProvider> keyProvider;
 
-  JWTVerifier(RSAKeyProvider rsaKeyProvider, Map<String, Object> claims, Clock clock) {
-    this.rsaKeyProvider = rsaKeyProvider;
-    this.claims = Collections.unmodifiableMap(claims);
+  JWTVerifier(RSAKeyProvider rsaKeyProvider, Map<String, Object> claims, EpochClock clock) {
+    this(AlgorithmRegistry.rsa(rsaKeyProvider), claims, clock);
+  }
+
+  JWTVerifier(AlgorithmRegistry algorithms, Map<String, Object> claims, EpochClock clock) {
+    this(
+        algorithms,
+        ClaimValidator.compile(claims),
+        clock,
+        Collections.emptySet(),
+        keyId -> true,
+        Optional.empty());
+  }
+
+  private JWTVerifier(
+      AlgorithmRegistry algorithms,
+      ClaimValidator[] validators,
+      EpochClock clock,
+      Set<String> keyIdAlgorithms,
+      Predicate<String> keyIds,
+      Optional<CachingPublicKeyProvider> keyProvider) {
+    this.algorithms = algorithms;
+    this.validators = validators;
     this.clock = clock;
+    this.keyIdAlgorithms = keyIdAlgorithms;
+    this.keyIds = keyIds;
+    this.keyProvider = keyProvider;
   }
 
   /**
@@ -62,7 +91,19 @@ public final class JWTVerifier {
    */
   public static BaseVerification init(RSAKeyProvider rsaKeyProvider)
       throws IllegalArgumentException {
-    return new BaseVerification(rsaKeyProvider);
+    return new BaseVerification(AlgorithmRegistry.rsa(rsaKeyProvider));
+  }
+
+  /**
+   * Initialize a JWTVerifier instance accepting the algorithms of the given registry.
+   *
+   * @param algorithms registry of the accepted algorithms.
+   * @return a JWTVerifier.Verification instance to configure.
+   * @throws IllegalArgumentException if the provided registry is null.
+   */
+  public static BaseVerification init(AlgorithmRegistry algorithms)
+      throws IllegalArgumentException {
+    return new BaseVerification(algorithms);
   }
 
   /**
@@ -77,129 +118,111 @@ public final class JWTVerifier {
    * @throws InvalidClaimException if a claim contained a different value than the expected one.
    */
   public DecodedJWT verify(String token) throws JWTVerificationException {
-    DecodedJWT jwt = JWT.decode(token);
+    return verify(JWT.decode(token));
+  }
+
+  /**
+   * Perform the verification against the given already decoded Token, using any previous configured
+   * options.
+   *
+   * @param jwt to verify.
+   * @return the given verified JWT.
+   * @throws AlgorithmMismatchException if the algorithm stated in the token's header it's not equal
+   *     to the one defined in the {@link JWTVerifier}.
+   * @throws SignatureVerificationException if the signature is invalid.
+   * @throws TokenExpiredException if the token has expired.
+   * @throws InvalidClaimException if a claim contained a different value than the expected one.
+   */
+  public DecodedJWT verify(DecodedJWT jwt) throws JWTVerificationException {
     Algorithm algorithm = getAlgorithm(jwt);
+    // the claims are cheap to check, a token failing them is rejected without key lookup and
+    // signature verification
+    verifyClaims(jwt);
     algorithm.verify(jwt);
-    verifyClaims(jwt, claims);
     return jwt;
   }
 
-  Algorithm getAlgorithm(DecodedJWT jwt) throws AlgorithmMismatchException {
-    switch (jwt.getAlgorithm().toLowerCase()) {
-      case "rs256":
-        return Algorithm.RSA256(rsaKeyProvider);
-      case "rs384":
-        return Algorithm.RSA384(rsaKeyProvider);
-      case "rs512":
-        return Algorithm.RSA512(rsaKeyProvider);
-      default:
-        throw new AlgorithmMismatchException("The provided Algorithm has to be RSA.");
-    }
-  }
-
-  private void verifyClaims(DecodedJWT jwt, Map<String, Object> claims)
-      throws TokenExpiredException, InvalidClaimException {
-    for (Map.Entry<String, Object> entry : claims.entrySet()) {
-      switch (entry.getKey()) {
-        case PublicClaims.AUDIENCE:
-          // noinspection unchecked
-          assertValidAudienceClaim(jwt.getAudience(), (Set<String>) entry.getValue());
-          break;
-        case PublicClaims.EXPIRES_AT:
-          assertValidDateClaim(jwt.getExpiresAt(), (Long) entry.getValue(), true);
-          break;
-        case PublicClaims.NOT_BEFORE:
-          assertValidDateClaim(jwt.getNotBefore(), (Long) entry.getValue(), false);
-          break;
-        default:
-          assertValidClaim(jwt.getClaim(entry.getKey()), entry.getKey(), entry.getValue());
-          break;
-      }
+  /**
+   * Screens a token on its header alone, before its payload is decoded: the algorithm has to be
+   * accepted and, for algorithms with keys of a keyset, the key id has to be known or still allowed
+   * to be looked up.
+   *
+   * @param header decoded header of a token
+   * @throws AlgorithmMismatchException if the algorithm stated in the token's header it's not
+   *     accepted by the {@link JWTVerifier}.
+   * @throws SignatureVerificationException if the key id is not accepted.
+   */
+  public void screen(TokenHeader header) throws JWTVerificationException {
+    final Algorithm algorithm = getAlgorithm(header.getAlgorithm());
+    if (keyIdAlgorithms.contains(algorithm.getName()) && !keyIds.test(header.getKeyId())) {
+      throw new SignatureVerificationException(
+          algorithm,
+          new IllegalStateException(
+              "key id " + header.getKeyId() + " is unknown and no key lookup is allowed"));
     }
   }
 
-  private void assertValidClaim(Claim claim, String claimName, Object value) {
-    boolean isValid = false;
-    if (value instanceof String) {
-      isValid = value.equals(claim.asString());
-    } else if (value instanceof Integer) {
-      isValid = value.equals(claim.asInt());
-    } else if (value instanceof Long) {
-      isValid = value.equals(claim.asLong());
-    } else if (value instanceof Boolean) {
-      isValid = value.equals(claim.asBoolean());
-    } else if (value instanceof Double) {
-      isValid = value.equals(claim.asDouble());
-    } else if (value instanceof Date) {
-      isValid = value.equals(claim.asDate());
-    } else if (value instanceof Object[]) {
-      List<Object> claimArr = Arrays.asList(claim.as(Object[].class));
-      List<Object> valueArr = Arrays.asList((Object[]) value);
-      isValid = new HashSet<>(claimArr).containsAll(valueArr);
-    }
-
-    if (!isValid) {
-      throw new InvalidClaimException(
-          String.format("The Claim '%s' value doesn't match the required one.", claimName));
-    }
+  /**
+   * Resolves the key of the given key id before tokens signed with it are verified, if the verifier
+   * has a keyset. A failed lookup fails the verification of these tokens.
+   *
+   * @param keyId key id of the header of a token
+   */
+  public void resolveKey(String keyId) {
+    keyProvider.ifPresent(keys -> keys.resolve(keyId));
   }
 
-  private void assertValidDateClaim(Date date, long leeway, boolean shouldBeFuture) {
-    Date today = clock.getToday();
-    today.setTime((long) Math.floor((today.getTime() / 1000.0) * 1000)); // truncate millis
-    if (shouldBeFuture) {
-      assertDateIsFuture(date, leeway, today);
-    } else {
-      assertDateIsPast(date, leeway, today);
-    }
+  Algorithm getAlgorithm(DecodedJWT jwt) throws AlgorithmMismatchException {
+    return getAlgorithm(jwt.getAlgorithm());
   }
 
-  private void assertDateIsFuture(Date date, long leeway, Date today) {
-    today.setTime(today.getTime() - leeway * 1000);
-    if (date != null && today.after(date)) {
-      throw new TokenExpiredException(String.format("The Token has expired on %s.", date));
-    }
+  private Algorithm getAlgorithm(String name) throws AlgorithmMismatchException {
+    return algorithms
+        .get(name)
+        .orElseThrow(
+            () ->
+                new AlgorithmMismatchException(
+                    String.format(
+                        "The provided Algorithm has to be one of %s, but was %s.",
+                        algorithms.names(), name)));
   }
 
-  private void assertDateIsPast(Date date, long leeway, Date today) {
-    today.setTime(today.getTime() + leeway * 1000);
-    if (date != null && today.before(date)) {
-      throw new InvalidClaimException(String.format("The Token can't be used before %s.", date));
+  private void verifyClaims(DecodedJWT jwt) throws TokenExpiredException, InvalidClaimException {
+    final long now = clock.epochSeconds();
+    for (ClaimValidator validator : validators) {
+      validator.validate(jwt, now);
     }
   }
 
-  private void assertValidAudienceClaim(List<String> audience, Set<String> value) {
-    if (audience == null || audience.stream().noneMatch(value::contains)) {
-      throw new InvalidClaimException(
-          "The Claim 'aud' value doesn't contain at least one of the required audiences.");
-    }
-  }
-
-  static final class ClockImpl implements Clock {
-
-    ClockImpl() {}
-
-    @Override
-    public Date getToday() {
-      return new Date();
-    }
+  /**
+   * @return statistics of the unknown key ids of the keyset, if the verifier has one. Its hit count
+   *     is the number of key lookups rejected without asking the keyset.
+   */
+  public Optional<CacheStats> unknownKeyIdStats() {
+    return keyProvider.map(CachingPublicKeyProvider::unknownKeyIdStats);
   }
 
   /** The Verification class holds the Claims required by a JWT to be valid. */
   @SuppressWarnings({"UnusedReturnValue", "unused"})
   public static class BaseVerification {
-    private final RSAKeyProvider rsaKeyProvider;
+    private final AlgorithmRegistry algorithms;
 
     private final Map<String, Object> claims;
 
     private long defaultLeeway;
 
-    BaseVerification(RSAKeyProvider rsaKeyProvider) throws IllegalArgumentException {
-      if (rsaKeyProvider == null) {
-        throw new IllegalArgumentException("The rsaKeyprovider cannot be null.");
+    private Set<String> keyIdAlgorithms = Collections.emptySet();
+
+    private Predicate<String> keyIds = keyId -> true;
+
+    private Optional<CachingPublicKeyProvider> keyProvider = Optional.empty();
+
+    BaseVerification(AlgorithmRegistry algorithms) throws IllegalArgumentException {
+      if (algorithms == null) {
+        throw new IllegalArgumentException("The algorithms cannot be null.");
       }
 
-      this.rsaKeyProvider = rsaKeyProvider;
+      this.algorithms = algorithms;
       this.claims = new HashMap<>();
       this.defaultLeeway = 0;
     }
@@ -216,6 +239,18 @@ public final class JWTVerifier {
       return this;
     }
 
+    /**
+     * Require one of the given Issuer ("iss") claims.
+     *
+     * @param issuer the accepted Issuer values
+     * @return this same Verification instance.
+     */
+    public BaseVerification withIssuer(String... issuer) {
+      val issuers = new HashSet<>(Arrays.asList(issuer));
+      requireClaim(PublicClaims.ISSUER, issuers);
+      return this;
+    }
+
     /**
      * Define the default window in seconds in which the Not Before, Issued At and Expires At Claims
      * will still be valid. Setting a specific leeway value on a given Claim will override this
@@ -246,14 +281,52 @@ public final class JWTVerifier {
       return this;
     }
 
+    /**
+     * Screen the key ids of tokens of the given algorithms in {@link JWTVerifier#screen}.
+     *
+     * @param keyIds accepts the key ids which are known or may be looked up
+     * @param algorithms names of the algorithms whose keys are looked up by key id
+     * @return this same Verification instance.
+     */
+    public BaseVerification screenKeyIds(Predicate<String> keyIds, Set<String> algorithms) {
+      this.keyIds = keyIds;
+      this.keyIdAlgorithms = Collections.unmodifiableSet(new HashSet<>(algorithms));
+      return this;
+    }
+
+    /**
+     * Screen the key ids of tokens of the given algorithms against the keys of the provider.
+     *
+     * @param keys provider of the keys of the keyset
+     * @param algorithms names of the algorithms whose keys are provided by key id
+     * @return this same Verification instance.
+     */
+    BaseVerification screenKeyIds(CachingPublicKeyProvider keys, Set<String> algorithms) {
+      this.keyProvider = Optional.of(keys);
+      return screenKeyIds(keys::isKnownOrLookupAllowed, algorithms);
+    }
+
     /**
      * Creates a new and reusable instance of the JWTVerifier with the configuration already
-     * provided.
+     * provided, using the shared {@link EpochClock#coarse() coarse clock}.
      *
      * @return a new JWTVerifier instance.
      */
     public JWTVerifier build() {
-      return this.build(new ClockImpl());
+      return this.build(EpochClock.coarse());
+    }
+
+    /**
+     * Creates a new and reusable instance of the JWTVerifier with the configuration already
+     * provided. The required claims are compiled into validators once. ONLY FOR TEST PURPOSES.
+     *
+     * @param clock the instance that will handle the current time.
+     * @return a new JWTVerifier instance with a custom Clock.
+     */
+    public JWTVerifier build(EpochClock clock) {
+      addLeewayToDateClaims();
+      return new JWTVerifier(
+          algorithms, ClaimValidator.compile(claims), clock, keyIdAlgorithms, keyIds, keyProvider);
     }
 
     /**
@@ -262,10 +335,11 @@ public final class JWTVerifier {
      *
      * @param clock the instance that will handle the current time.
      * @return a new JWTVerifier instance with a custom Clock.
+     * @deprecated use {@link #build(EpochClock)}, this clock allocates a date per verification
      */
+    @Deprecated
     public JWTVerifier build(Clock clock) {
-      addLeewayToDateClaims();
-      return new JWTVerifier(rsaKeyProvider, claims, clock);
+      return build((EpochClock) () -> clock.getToday().getTime());
     }
 
     private void assertPositive(long leeway) {
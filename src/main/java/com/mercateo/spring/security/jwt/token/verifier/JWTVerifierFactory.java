@@ -15,59 +15,61 @@
  */
 package com.mercateo.spring.security.jwt.token.verifier;
 
-import com.auth0.jwk.Jwk;
-import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.mercateo.spring.security.jwt.support.EpochClock;
 import com.mercateo.spring.security.jwt.token.config.JWTConfig;
 import com.mercateo.spring.security.jwt.token.keyset.JWTKeyset;
 import com.mercateo.spring.security.jwt.token.verifier.JWTVerifier.BaseVerification;
-import java.security.Key;
-import java.security.KeyFactory;
-import java.security.NoSuchAlgorithmException;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.X509EncodedKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
-@Slf4j
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class JWTVerifierFactory {
-  private final JWTKeyset jwtKeyset;
+  private final Optional<JWTKeyset> jwtKeyset;
 
   private final JWTConfig jwtConfig;
 
-  private static IllegalStateException wrapInIllegateStateException(Throwable cause) {
-    return new IllegalStateException(cause);
+  public JWTVerifierFactory(JWTKeyset jwtKeyset, JWTConfig jwtConfig) {
+    this(Optional.of(jwtKeyset), jwtConfig);
+  }
+
+  /**
+   * @param jwtConfig configuration providing the optional keyset and the HMAC secrets
+   */
+  public JWTVerifierFactory(JWTConfig jwtConfig) {
+    this(jwtConfig.jwtKeyset(), jwtConfig);
   }
 
   public JWTVerifier create() {
-    final RSAKeyProvider rsaKeyProvider =
-        new RSAKeyProvider() {
-          @Override
-          public RSAPublicKey getPublicKeyById(String keyId) {
-            return jwtKeyset
-                .getKeysetForId(keyId)
-                .mapTry(Jwk::getPublicKey)
-                .map(Key::getEncoded)
-                .mapTry(JWTVerifierFactory::createKey)
-                .onFailure(e -> log.error("Error getting public key for id " + keyId, e))
-                .getOrElseThrow(JWTVerifierFactory::wrapInIllegateStateException);
-          }
+    final AlgorithmRegistry.Builder algorithms = AlgorithmRegistry.builder();
 
-          @Override
-          public RSAPrivateKey getPrivateKey() {
-            return null;
-          }
+    // public keys are derived once per key id and kept until the keyset changes
+    final Optional<CachingPublicKeyProvider> keyProvider =
+        jwtKeyset.map(CachingPublicKeyProvider::new);
+    keyProvider.ifPresent(
+        keys ->
+            algorithms
+                .registerRsa(keys.rsa())
+                .registerRsaPss(keys.rsa())
+                .registerEcdsa(keys.ecdsa())
+                .registerEdDsa(keys.eddsa()));
+    final Set<String> keysetAlgorithms = algorithms.build().names();
 
-          @Override
-          public String getPrivateKeyId() {
-            return null;
-          }
-        };
+    final Map<String, String> hmacSecrets = jwtConfig.getHmacSecrets();
+    if (!hmacSecrets.isEmpty()) {
+      final Map<String, byte[]> secrets = new HashMap<>();
+      hmacSecrets.forEach(
+          (issuer, secret) -> secrets.put(issuer, secret.getBytes(StandardCharsets.UTF_8)));
+      algorithms.registerHmac(secrets);
+    }
 
-    final BaseVerification verification = JWTVerifier.init(rsaKeyProvider);
+    final BaseVerification verification = JWTVerifier.init(algorithms.build());
+    keyProvider.ifPresent(keys -> verification.screenKeyIds(keys, keysetAlgorithms));
 
     final int tokenLeeway = jwtConfig.getTokenLeeway();
     verification.acceptLeeway(tokenLeeway);
@@ -77,12 +79,12 @@ public class JWTVerifierFactory {
       verification.withAudience(tokenAudiences.stream().toArray(String[]::new));
     }
 
-    return verification.build();
-  }
+    final Set<String> tokenIssuers = jwtConfig.getTokenIssuers();
+    if (!tokenIssuers.isEmpty()) {
+      verification.withIssuer(tokenIssuers.toArray(new String[0]));
+    }
 
-  private static RSAPublicKey createKey(byte[] bytes)
-      throws NoSuchAlgorithmException, InvalidKeySpecException {
-    return (RSAPublicKey)
-        KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(bytes));
+    return verification.build(
+        EpochClock.coarse(Duration.ofMillis(jwtConfig.getClockResolutionMillis())));
   }
 }
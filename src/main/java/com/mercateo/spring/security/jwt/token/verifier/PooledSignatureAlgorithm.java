@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Base of the algorithms verifying signatures with a {@link Signature} of the JVM.
+ *
+ * <p>Each thread keeps its own {@link Signature} instance, which stays initialized with the key it
+ * verified last. So the provider is looked up once per thread and the key is only set up again when
+ * it changes. The signed content is fed from the token without copying it into strings.
+ *
+ * <p>The algorithms can only verify tokens, signing is not supported.
+ */
+public abstract class PooledSignatureAlgorithm extends Algorithm {
+
+  private final String signatureAlgorithm;
+
+  private final AlgorithmParameterSpec parameters;
+
+  private final Function<String, ? extends PublicKey> keys;
+
+  private final ThreadLocal<PooledSignature> signatures =
+      ThreadLocal.withInitial(this::createSignature);
+
+  /**
+   * @param name JWS algorithm name
+   * @param signatureAlgorithm JCA name of the signature algorithm
+   * @param parameters parameters of the signature algorithm, or {@code null} if it has none
+   * @param keys resolves the public key by the key id of the token
+   */
+  protected PooledSignatureAlgorithm(
+      String name,
+      String signatureAlgorithm,
+      AlgorithmParameterSpec parameters,
+      Function<String, ? extends PublicKey> keys) {
+    super(name, signatureAlgorithm);
+    this.signatureAlgorithm = signatureAlgorithm;
+    this.parameters = parameters;
+    this.keys = keys;
+  }
+
+  /**
+   * @param signatureAlgorithm JCA name of the signature algorithm
+   * @return whether the JVM provides the signature algorithm
+   */
+  protected static boolean isSupported(String signatureAlgorithm) {
+    try {
+      Signature.getInstance(signatureAlgorithm);
+      return true;
+    } catch (NoSuchAlgorithmException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void verify(DecodedJWT jwt) throws SignatureVerificationException {
+    final boolean valid;
+    try {
+      final byte[] signature = Base64.getUrlDecoder().decode(jwt.getSignature());
+      final PublicKey key = keys.apply(jwt.getKeyId());
+      valid = signatures.get().verify(key, SigningInput.of(jwt), signature);
+    } catch (GeneralSecurityException | IllegalStateException | IllegalArgumentException e) {
+      throw new SignatureVerificationException(this, e);
+    }
+    if (!valid) {
+      throw new SignatureVerificationException(this);
+    }
+  }
+
+  @Override
+  @Deprecated
+  public byte[] sign(byte[] contentBytes) throws SignatureGenerationException {
+    throw new SignatureGenerationException(
+        this, new UnsupportedOperationException(getName() + " is supported for verification only"));
+  }
+
+  private PooledSignature createSignature() {
+    try {
+      final Signature signature = Signature.getInstance(signatureAlgorithm);
+      if (parameters != null) {
+        signature.setParameter(parameters);
+      }
+      return new PooledSignature(signature);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class PooledSignature {
+    private final Signature signature;
+
+    /** key the signature is initialized with, {@code null} if its state is unknown */
+    private PublicKey key;
+
+    private PooledSignature(Signature signature) {
+      this.signature = signature;
+    }
+
+    boolean verify(PublicKey key, SigningInput input, byte[] signatureBytes)
+        throws GeneralSecurityException {
+      if (key != this.key) {
+        this.key = null;
+        signature.initVerify(key);
+        this.key = key;
+      }
+      try {
+        input.update(signature);
+        // resets the signature to the state after initVerify, ready for the next token
+        return signature.verify(signatureBytes);
+      } catch (GeneralSecurityException | RuntimeException e) {
+        this.key = null;
+        throw e;
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+
+/**
+ * Verifies RSA signatures, either RSASSA-PKCS1-v1_5 (RS256, RS384, RS512) or RSASSA-PSS (PS256,
+ * PS384, PS512), on a per thread {@link java.security.Signature}.
+ */
+public final class RSASignatureAlgorithm extends PooledSignatureAlgorithm {
+
+  private static final String RSASSA_PSS = "RSASSA-PSS";
+
+  private static final int TRAILER_FIELD = 1;
+
+  private RSASignatureAlgorithm(
+      String name,
+      String signatureAlgorithm,
+      AlgorithmParameterSpec parameters,
+      RSAKeyProvider keyProvider) {
+    super(name, signatureAlgorithm, parameters, keyProvider::getPublicKeyById);
+  }
+
+  public static RSASignatureAlgorithm rs256(RSAKeyProvider keyProvider) {
+    return new RSASignatureAlgorithm("RS256", "SHA256withRSA", null, keyProvider);
+  }
+
+  public static RSASignatureAlgorithm rs384(RSAKeyProvider keyProvider) {
+    return new RSASignatureAlgorithm("RS384", "SHA384withRSA", null, keyProvider);
+  }
+
+  public static RSASignatureAlgorithm rs512(RSAKeyProvider keyProvider) {
+    return new RSASignatureAlgorithm("RS512", "SHA512withRSA", null, keyProvider);
+  }
+
+  public static RSASignatureAlgorithm ps256(RSAKeyProvider keyProvider) {
+    return new RSASignatureAlgorithm(
+        "PS256", RSASSA_PSS, pss("SHA-256", MGF1ParameterSpec.SHA256, 32), keyProvider);
+  }
+
+  public static RSASignatureAlgorithm ps384(RSAKeyProvider keyProvider) {
+    return new RSASignatureAlgorithm(
+        "PS384", RSASSA_PSS, pss("SHA-384", MGF1ParameterSpec.SHA384, 48), keyProvider);
+  }
+
+  public static RSASignatureAlgorithm ps512(RSAKeyProvider keyProvider) {
+    return new RSASignatureAlgorithm(
+        "PS512", RSASSA_PSS, pss("SHA-512", MGF1ParameterSpec.SHA512, 64), keyProvider);
+  }
+
+  /** @return whether the JVM provides RSASSA-PSS signatures (Java 11 or later) */
+  public static boolean isPssSupported() {
+    return isSupported(RSASSA_PSS);
+  }
+
+  /** parameters as defined by RFC 7518, MGF1 with the same hash and a salt of the hash length */
+  private static PSSParameterSpec pss(String hash, MGF1ParameterSpec mgf, int saltLength) {
+    return new PSSParameterSpec(hash, "MGF1", mgf, saltLength, TRAILER_FIELD);
+  }
+}
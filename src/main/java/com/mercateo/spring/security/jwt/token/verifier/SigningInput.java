@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mercateo.spring.security.jwt.token.parser.ParsedJWT;
+import com.mercateo.spring.security.jwt.token.parser.TokenSegments;
+import java.security.Signature;
+import java.security.SignatureException;
+import javax.crypto.Mac;
+
+/**
+ * Signed content ({@code header.payload}) of a token as ASCII bytes, encoded straight from the
+ * token into a buffer which is reused by the current thread.
+ */
+final class SigningInput {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /** larger buffers are not kept by the thread, so a single huge token does not pin memory */
+  private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+  private static final char MAX_ASCII = 0x7f;
+
+  private static final ThreadLocal<SigningInput> CURRENT =
+      ThreadLocal.withInitial(SigningInput::new);
+
+  private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+  private byte[] bytes;
+
+  private int length;
+
+  private SigningInput() {}
+
+  /**
+   * Uses the located segments of a {@link ParsedJWT}, other tokens are scanned again.
+   *
+   * @param jwt decoded token
+   * @return signed content of the token, valid until the next call on the current thread
+   * @throws IllegalArgumentException if the token is not well formed or contains a character which
+   *     is not ASCII
+   */
+  static SigningInput of(DecodedJWT jwt) {
+    final TokenSegments segments =
+        jwt instanceof ParsedJWT ? ((ParsedJWT) jwt).segments() : TokenSegments.of(jwt.getToken());
+    if (!segments.isWellFormed()) {
+      throw new IllegalArgumentException("The token was expected to have 3 parts.");
+    }
+    final SigningInput input = CURRENT.get();
+    input.encode(segments.source(), segments.headerStart(), segments.payloadEnd());
+    return input;
+  }
+
+  private void encode(CharSequence source, int start, int end) {
+    length = end - start;
+    if (length <= buffer.length) {
+      bytes = buffer;
+    } else if (length <= MAX_RETAINED_CAPACITY) {
+      buffer = new byte[Math.min(Math.max(length, buffer.length * 2), MAX_RETAINED_CAPACITY)];
+      bytes = buffer;
+    } else {
+      bytes = new byte[length];
+    }
+    for (int i = 0; i < length; i++) {
+      final char c = source.charAt(start + i);
+      if (c > MAX_ASCII) {
+        throw new IllegalArgumentException("The token contains a non ASCII character.");
+      }
+      bytes[i] = (byte) c;
+    }
+  }
+
+  int length() {
+    return length;
+  }
+
+  void update(Signature signature) throws SignatureException {
+    signature.update(bytes, 0, length);
+  }
+
+  void update(Mac mac) {
+    mac.update(bytes, 0, length);
+  }
+}
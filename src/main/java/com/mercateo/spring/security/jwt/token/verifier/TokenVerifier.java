@@ -17,6 +17,7 @@ package com.mercateo.spring.security.jwt.token.verifier;
 
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.mercateo.spring.security.jwt.token.exception.InvalidTokenException;
+import com.mercateo.spring.security.jwt.token.parser.TokenHeader;
 import java.util.Optional;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
@@ -26,6 +27,24 @@ public class TokenVerifier {
 
   @NonNull private final Optional<JWTVerifier> verifier;
 
+  /**
+   * Rejects a token on its header alone, which {@link #verifyToken(DecodedJWT)} would reject
+   * anyway. Unsigned tokens pass, they are not verified.
+   *
+   * @param header decoded header of a token
+   * @throws InvalidTokenException if the algorithm or the key id of the token is not accepted
+   */
+  public void screenHeader(TokenHeader header) {
+    if ("none".equals(header.getAlgorithm()) || !verifier.isPresent()) {
+      return;
+    }
+    try {
+      verifier.get().screen(header);
+    } catch (RuntimeException e) {
+      throw new InvalidTokenException("could not verify token", e);
+    }
+  }
+
   public boolean verifyToken(DecodedJWT token) {
 
     final boolean tokenHasAlgorithm = !"none".equals(token.getAlgorithm());
@@ -37,7 +56,7 @@ public class TokenVerifier {
       return false;
     }
     try {
-      verifier.get().verify(token.getToken());
+      verifier.get().verify(token);
       return true;
     } catch (RuntimeException e) {
       throw new InvalidTokenException("could not verify token", e);
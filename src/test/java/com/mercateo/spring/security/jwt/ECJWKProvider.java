@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwt.algorithms.Algorithm;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+
+/** Creates elliptic curve JWKs for a freshly generated P-256 key pair. */
+public class ECJWKProvider {
+
+  private static final int COORDINATE_LENGTH = 32;
+
+  private final ECPublicKey publicKey;
+
+  private final Algorithm algorithm;
+
+  public ECJWKProvider() {
+    try {
+      final KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+      generator.initialize(new ECGenParameterSpec("secp256r1"));
+      final KeyPair keyPair = generator.generateKeyPair();
+      publicKey = (ECPublicKey) keyPair.getPublic();
+      algorithm = Algorithm.ECDSA256(publicKey, (ECPrivateKey) keyPair.getPrivate());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("could not create required keys", e);
+    }
+  }
+
+  public Jwk create(String keyId) {
+
+    final HashMap<String, Object> additionalValues = new HashMap<>();
+    additionalValues.put("crv", "P-256");
+    additionalValues.put("x", encode(publicKey.getW().getAffineX()));
+    additionalValues.put("y", encode(publicKey.getW().getAffineY()));
+
+    return new Jwk(
+        keyId,
+        "EC",
+        algorithm.getName(),
+        null,
+        Collections.emptyList(),
+        null,
+        Collections.emptyList(),
+        null,
+        additionalValues);
+  }
+
+  private static String encode(BigInteger coordinate) {
+    final byte[] bytes = coordinate.toByteArray();
+    final byte[] unsigned = new byte[COORDINATE_LENGTH];
+    final int length = Math.min(bytes.length, COORDINATE_LENGTH);
+    System.arraycopy(bytes, bytes.length - length, unsigned, COORDINATE_LENGTH - length, length);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(unsigned);
+  }
+
+  public ECPublicKey getPublicKey() {
+    return publicKey;
+  }
+
+  public Algorithm getAlgorithm() {
+    return algorithm;
+  }
+}
@@ -20,6 +20,8 @@ import com.auth0.jwt.algorithms.Algorithm;
 import java.io.IOException;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
 import java.util.Collections;
 import java.util.HashMap;
 import org.apache.commons.codec.binary.Base64;
@@ -30,6 +32,8 @@ public class JWKProvider {
 
   private final Algorithm algorithm;
 
+  private final Algorithm pssAlgorithm;
+
   public JWKProvider() {
     RSAPrivateKey privateKey;
     try {
@@ -43,6 +47,12 @@ public class JWKProvider {
       throw new IllegalStateException("could not create required keys", e);
     }
     algorithm = Algorithm.RSA256(publicKey, privateKey);
+    pssAlgorithm =
+        new JcaSigningAlgorithm(
+            "PS256",
+            "RSASSA-PSS",
+            new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1),
+            privateKey);
   }
 
   public Jwk create(String keyId) {
@@ -67,4 +77,9 @@ public class JWKProvider {
   public Algorithm getAlgorithm() {
     return algorithm;
   }
+
+  /** @return algorithm signing tokens with PS256, it can not verify them */
+  public Algorithm getPssAlgorithm() {
+    return pssAlgorithm;
+  }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.AlgorithmParameterSpec;
+
+/** Signs tokens with a JCA {@link Signature}, for algorithms java-jwt can not sign with. */
+public class JcaSigningAlgorithm extends Algorithm {
+
+  private final String signatureAlgorithm;
+
+  private final AlgorithmParameterSpec parameters;
+
+  private final PrivateKey privateKey;
+
+  public JcaSigningAlgorithm(
+      String name,
+      String signatureAlgorithm,
+      AlgorithmParameterSpec parameters,
+      PrivateKey privateKey) {
+    super(name, signatureAlgorithm);
+    this.signatureAlgorithm = signatureAlgorithm;
+    this.parameters = parameters;
+    this.privateKey = privateKey;
+  }
+
+  @Override
+  public void verify(DecodedJWT jwt) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Deprecated
+  public byte[] sign(byte[] contentBytes) throws SignatureGenerationException {
+    try {
+      final Signature signature = Signature.getInstance(signatureAlgorithm);
+      if (parameters != null) {
+        signature.setParameter(parameters);
+      }
+      signature.initSign(privateKey);
+      signature.update(contentBytes);
+      return signature.sign();
+    } catch (GeneralSecurityException e) {
+      throw new SignatureGenerationException(this, e);
+    }
+  }
+}
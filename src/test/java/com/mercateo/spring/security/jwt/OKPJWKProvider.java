@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwt.algorithms.Algorithm;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+
+/** Creates octet key pair JWKs for a freshly generated Ed25519 key pair. */
+public class OKPJWKProvider {
+
+  private static final int KEY_LENGTH = 32;
+
+  private final PublicKey publicKey;
+
+  private final Algorithm algorithm;
+
+  public OKPJWKProvider() {
+    try {
+      final KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+      publicKey = keyPair.getPublic();
+      algorithm = new JcaSigningAlgorithm("EdDSA", "Ed25519", null, keyPair.getPrivate());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("could not create required keys", e);
+    }
+  }
+
+  public Jwk create(String keyId) {
+    final byte[] encoded = publicKey.getEncoded();
+
+    final HashMap<String, Object> additionalValues = new HashMap<>();
+    additionalValues.put("crv", "Ed25519");
+    additionalValues.put(
+        "x",
+        Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(
+                Arrays.copyOfRange(encoded, encoded.length - KEY_LENGTH, encoded.length)));
+
+    return new Jwk(
+        keyId,
+        "OKP",
+        algorithm.getName(),
+        null,
+        Collections.emptyList(),
+        null,
+        Collections.emptyList(),
+        null,
+        additionalValues);
+  }
+
+  public PublicKey getPublicKey() {
+    return publicKey;
+  }
+
+  /** @return algorithm signing tokens with the private key, it can not verify them */
+  public Algorithm getAlgorithm() {
+    return algorithm;
+  }
+}
@@ -79,6 +79,21 @@ public class JWTAuthenticationTokenFilterTest {
     assertThat(result).isEqualTo(authentication);
   }
 
+  @Test
+  public void returnsWrappedTokenSeparatedByMultipleWhitespaces() {
+    val tokenString = "<token>";
+    when(request.getHeader("authorization")).thenReturn("Bearer \t " + tokenString + " ");
+    val authentication = mock(Authentication.class);
+    when(authenticationManager.authenticate(new JWTAuthenticationToken(tokenString)))
+        .thenReturn(authentication);
+
+    val uut = new JWTAuthenticationTokenFilter();
+    uut.setAuthenticationManager(authenticationManager);
+    val result = uut.attemptAuthentication(request, response);
+
+    assertThat(result).isEqualTo(authentication);
+  }
+
   @Test
   public void dontAttemptAuthenticationWithoutTokenWithAnonymousPath() throws Exception {
     val uut = new JWTAuthenticationTokenFilter(Collections.singleton("/api"));
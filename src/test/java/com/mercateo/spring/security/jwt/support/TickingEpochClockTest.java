@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import lombok.val;
+import org.junit.Test;
+
+public class TickingEpochClockTest {
+
+  @Test
+  public void followsSystemTime() throws InterruptedException {
+    try (val uut = EpochClock.ticking(Duration.ofMillis(5))) {
+      final long start = uut.epochMillis();
+      assertThat(start).isLessThanOrEqualTo(System.currentTimeMillis());
+
+      final long deadline = System.currentTimeMillis() + 5_000;
+      while (uut.epochMillis() == start && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+
+      assertThat(uut.epochMillis()).isGreaterThan(start);
+      assertThat(uut.epochSeconds()).isEqualTo(uut.epochMillis() / 1000);
+    }
+  }
+
+  @Test
+  public void stopsWhenClosed() throws InterruptedException {
+    val uut = EpochClock.ticking(Duration.ofMillis(5));
+    uut.close();
+    final long stopped = uut.epochMillis();
+
+    Thread.sleep(20);
+
+    assertThat(uut.epochMillis()).isEqualTo(stopped);
+  }
+
+  @Test
+  public void rejectsNonPositiveResolution() {
+    assertThatThrownBy(() -> EpochClock.ticking(Duration.ZERO))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("The resolution must be positive, but was PT0S");
+  }
+
+  @Test
+  public void sharesCoarseClock() {
+    assertThat(EpochClock.coarse()).isSameAs(EpochClock.coarse());
+    assertThat(EpochClock.coarse().epochMillis())
+        .isBetween(
+            System.currentTimeMillis() - 10 * TickingEpochClock.DEFAULT_RESOLUTION.toMillis(),
+            System.currentTimeMillis());
+  }
+
+  @Test
+  public void sharesCoarseClockPerResolution() {
+    val resolution = Duration.ofMillis(50);
+
+    assertThat(EpochClock.coarse(resolution)).isSameAs(EpochClock.coarse(Duration.ofMillis(50)));
+    assertThat(EpochClock.coarse(resolution)).isNotSameAs(EpochClock.coarse());
+    assertThat(EpochClock.coarse(TickingEpochClock.DEFAULT_RESOLUTION))
+        .isSameAs(EpochClock.coarse());
+    assertThatThrownBy(() -> EpochClock.coarse(Duration.ofMillis(-1)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
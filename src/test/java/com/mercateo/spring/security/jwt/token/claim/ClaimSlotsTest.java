@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.claim;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import lombok.val;
+import org.junit.Test;
+
+public class ClaimSlotsTest {
+
+  @Test
+  public void assignsSlotsInIterationOrder() {
+    val uut = ClaimSlots.of(Arrays.asList("foo", "bar", "foo", "https://test.org/baz"));
+
+    assertThat(uut.size()).isEqualTo(3);
+    assertThat(uut.slotOf("foo")).isEqualTo(0);
+    assertThat(uut.slotOf("bar")).isEqualTo(1);
+    assertThat(uut.slotOf("https://test.org/baz")).isEqualTo(2);
+    assertThat(uut.name(2)).isEqualTo("https://test.org/baz");
+  }
+
+  @Test
+  public void returnsNoSlotForUnknownNames() {
+    val uut = ClaimSlots.of(Arrays.asList("foo", "bar"));
+
+    assertThat(uut.slotOf("baz")).isEqualTo(-1);
+    assertThat(uut.slotOf("")).isEqualTo(-1);
+    assertThat(ClaimSlots.of(Collections.emptyList()).slotOf("foo")).isEqualTo(-1);
+  }
+
+  @Test
+  public void separatesNamesWithEqualHashCodes() {
+    assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+
+    val uut = ClaimSlots.of(Arrays.asList("Aa", "BB", "AaBB", "BBAa"));
+
+    assertThat(uut.slotOf("Aa")).isEqualTo(0);
+    assertThat(uut.slotOf("BB")).isEqualTo(1);
+    assertThat(uut.slotOf("AaBB")).isEqualTo(2);
+    assertThat(uut.slotOf("BBAa")).isEqualTo(3);
+    assertThat(uut.slotOf("AaAa")).isEqualTo(-1);
+  }
+
+  @Test
+  public void findsSlotsOfManyNames() {
+    final List<String> names = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      names.add("https://test.org/claim" + i);
+    }
+
+    val uut = ClaimSlots.of(names);
+
+    for (int i = 0; i < names.size(); i++) {
+      assertThat(uut.slotOf(names.get(i))).isEqualTo(i);
+    }
+    assertThat(uut.slotOf("https://test.org/claim500")).isEqualTo(-1);
+  }
+}
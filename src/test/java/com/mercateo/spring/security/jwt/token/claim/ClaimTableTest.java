@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.claim;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClaimTableTest {
+
+  private ClaimSlots slots;
+
+  private JWTClaim claim1;
+
+  private JWTClaim claim3;
+
+  @Before
+  public void setUp() {
+    slots = ClaimSlots.of(Arrays.asList("jwtClaim1", "jwtClaim2", "jwtClaim3"));
+    claim1 = JWTClaim.builder().name("jwtClaim1").value("value1").issuer("iss").build();
+    claim3 = JWTClaim.builder().name("jwtClaim3").value("value3").issuer("iss").build();
+  }
+
+  @Test
+  public void containsPresentClaimsOnly() {
+    val uut = ClaimTable.of(slots, new JWTClaim[] {claim1, null, claim3});
+
+    assertThat(uut).hasSize(2).containsOnlyKeys("jwtClaim1", "jwtClaim3");
+    assertThat(uut.get("jwtClaim1")).isSameAs(claim1);
+    assertThat(uut.get("jwtClaim2")).isNull();
+    assertThat(uut.get("unknown")).isNull();
+    assertThat(uut.containsKey("jwtClaim2")).isFalse();
+  }
+
+  @Test
+  public void equalsOtherMaps() {
+    final Map<String, JWTClaim> expected = new HashMap<>();
+    expected.put("jwtClaim1", claim1);
+    expected.put("jwtClaim3", claim3);
+
+    val uut = ClaimTable.of(slots, new JWTClaim[] {claim1, null, claim3});
+
+    assertThat(uut).isEqualTo(expected);
+    assertThat(uut.hashCode()).isEqualTo(expected.hashCode());
+  }
+
+  @Test
+  public void givenNoClaims_thenEmptyMap() {
+    val uut = ClaimTable.of(slots, new JWTClaim[3]);
+
+    assertThat(uut).isEmpty();
+    assertThat(ClaimTable.of(ClaimSlots.of(Collections.emptyList()), new JWTClaim[0])).isEmpty();
+  }
+
+  @Test
+  public void isImmutable() {
+    val uut = ClaimTable.of(slots, new JWTClaim[] {claim1, null, null});
+
+    assertThatThrownBy(() -> uut.put("jwtClaim3", claim3))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  public void rejectsValuesNotMatchingSlots() {
+    assertThatThrownBy(() -> ClaimTable.of(slots, new JWTClaim[2]))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("expected 3 values, but got 2");
+  }
+}
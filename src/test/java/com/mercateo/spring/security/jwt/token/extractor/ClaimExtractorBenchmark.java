@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.extractor;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.mercateo.spring.security.jwt.support.CollectionUtils;
+import com.mercateo.spring.security.jwt.support.Pair;
+import com.mercateo.spring.security.jwt.token.parser.TokenDecoder;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the claim conversion with the former reflection based implementation, which also created
+ * a new extractor for every extraction.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.mercateo.spring.security.jwt.token.extractor.ClaimExtractorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClaimExtractorBenchmark {
+
+  private Claim[] javaJwtClaims;
+
+  private Claim[] decodedClaims;
+
+  private ClaimExtractor claimExtractor;
+
+  @Setup
+  public void setUp() throws Exception {
+    final JWTCreator.Builder builder =
+        JWT.create()
+            .withClaim("int", 123)
+            .withClaim("double", 3.1415)
+            .withClaim("bool", true)
+            .withClaim("scope", "foo bar baz")
+            .withArrayClaim("roles", new String[] {"admin", "user", "guest"});
+    final Method addClaim =
+        JWTCreator.Builder.class.getDeclaredMethod("addClaim", String.class, Object.class);
+    addClaim.setAccessible(true);
+    final Map<String, Object> objectClaim = new HashMap<>();
+    objectClaim.put("foo", 1.2);
+    objectClaim.put("bar", "test");
+    addClaim.invoke(builder, "object", objectClaim);
+    final String token = builder.sign(Algorithm.none());
+
+    final String[] names = {"int", "double", "bool", "scope", "roles", "object"};
+    final DecodedJWT javaJwt = JWT.decode(token);
+    final DecodedJWT decoded = new TokenDecoder().decode(token);
+    javaJwtClaims = new Claim[names.length];
+    decodedClaims = new Claim[names.length];
+    for (int i = 0; i < names.length; i++) {
+      javaJwtClaims[i] = javaJwt.getClaim(names[i]);
+      decodedClaims[i] = decoded.getClaim(names[i]);
+    }
+    claimExtractor = new ClaimExtractor();
+  }
+
+  @Benchmark
+  public void reflective(Blackhole blackhole) {
+    final ReflectiveClaimExtractor extractor = new ReflectiveClaimExtractor();
+    for (Claim claim : javaJwtClaims) {
+      blackhole.consume(extractor.extract(claim));
+    }
+  }
+
+  @Benchmark
+  public void nodeTypeSwitch(Blackhole blackhole) {
+    for (Claim claim : decodedClaims) {
+      blackhole.consume(claimExtractor.extract(claim));
+    }
+  }
+
+  @Benchmark
+  public void nodeTypeSwitchWithJavaJwtClaims(Blackhole blackhole) {
+    for (Claim claim : javaJwtClaims) {
+      blackhole.consume(claimExtractor.extract(claim));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ClaimExtractorBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+  /** copy of the former reflection based implementation */
+  static class ReflectiveClaimExtractor {
+
+    private final Map<Class<?>, Function<Object, Object>> accessors =
+        CollectionUtils.mapOfTuples( //
+            Pair.of(TextNode.class, (node) -> ((TextNode) node).asText()), //
+            Pair.of(IntNode.class, (node) -> ((IntNode) node).asInt()), //
+            Pair.of(DoubleNode.class, (node) -> ((DoubleNode) node).asDouble()), //
+            Pair.of(BooleanNode.class, (node) -> ((BooleanNode) node).asBoolean()), //
+            Pair.of(ArrayNode.class, (node) -> extractArray((ArrayNode) node)), //
+            Pair.of(ObjectNode.class, (node) -> extractObject((ObjectNode) node)));
+
+    Object extract(Claim claim) {
+      final Class<? extends Claim> claimClass = claim.getClass();
+      if (claimClass.getSimpleName().equals("JsonNodeClaim")) {
+        try {
+          final Field data = claimClass.getDeclaredField("data");
+          data.setAccessible(true);
+          return extractNode(data.get(claim));
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+          return null;
+        }
+      }
+      return null;
+    }
+
+    private Object extractNode(Object rawClaim) {
+      Function<Object, Object> accessorOption = accessors.get(rawClaim.getClass());
+      if (accessorOption == null) {
+        return null;
+      }
+      return accessorOption.apply(rawClaim);
+    }
+
+    private Object extractArray(ArrayNode node) {
+      return asStream(node.elements()).map(this::extractNode).toArray();
+    }
+
+    private Object extractObject(ObjectNode node) {
+      final Map<String, List<Entry<String, JsonNode>>> groupedByKey =
+          asStream(node.fields()).collect(Collectors.groupingBy(Entry::getKey));
+
+      return CollectionUtils.mapOfTuples(
+          groupedByKey.entrySet().stream()
+              .map(
+                  e -> {
+                    final Entry<String, JsonNode> head = e.getValue().get(0);
+                    final Object jsonNode = extractNode(head.getValue());
+                    return Pair.of(e.getKey(), jsonNode);
+                  })
+              .collect(Collectors.toList()));
+    }
+
+    private static <T> Stream<T> asStream(Iterator<T> sourceIterator) {
+      final Iterable<T> iterable = () -> sourceIterator;
+      return StreamSupport.stream(iterable.spliterator(), false);
+    }
+  }
+}
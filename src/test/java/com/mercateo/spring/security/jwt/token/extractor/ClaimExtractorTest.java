@@ -23,6 +23,7 @@ import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mercateo.spring.security.jwt.token.parser.TokenDecoder;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
@@ -104,6 +105,23 @@ public class ClaimExtractorTest {
     assertThat(result).isNotNull().isNotEmpty().contains(entry("foo", 1.2), entry("bar", "test"));
   }
 
+  @Test
+  public void extractsDecodedClaimsLikeJavaJwtClaims() {
+    final DecodedJWT decoded = new TokenDecoder().decode(jwt.getToken());
+
+    for (String name : jwt.getClaims().keySet()) {
+      assertThat(uut.extract(decoded.getClaim(name))).isEqualTo(uut.extract(jwt.getClaim(name)));
+    }
+  }
+
+  @Test
+  public void extractsUnsupportedNumberAsNull() {
+    final DecodedJWT jwt =
+        JWT.decode(JWT.create().withClaim("long", 1L << 40).sign(Algorithm.none()));
+
+    assertThat(uut.extract(jwt.getClaim("long"))).isNull();
+  }
+
   @Test
   public void extractsUnknownClaimAsNull() {
     val result = uut.extract(jwt.getClaim("unknown"));
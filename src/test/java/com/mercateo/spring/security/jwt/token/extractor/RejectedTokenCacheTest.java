@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.extractor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.google.common.base.Ticker;
+import com.google.common.hash.HashCode;
+import com.mercateo.spring.security.jwt.token.exception.InvalidTokenException;
+import java.security.SignatureException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RejectedTokenCacheTest {
+
+  private static final HashCode KEY = TokenDigest.of("<token>");
+
+  private AtomicLong nanoTime;
+
+  private AtomicInteger extractions;
+
+  private RejectedTokenCache uut;
+
+  @Before
+  public void setUp() {
+    nanoTime = new AtomicLong(1_000_000L);
+    extractions = new AtomicInteger();
+    uut =
+        new RejectedTokenCache(
+            2,
+            Duration.ofSeconds(60),
+            new Ticker() {
+              @Override
+              public long read() {
+                return nanoTime.get();
+              }
+            });
+  }
+
+  private Supplier<String> failingWith(RuntimeException cause) {
+    return () -> {
+      extractions.incrementAndGet();
+      throw new InvalidTokenException("could not verify token", cause);
+    };
+  }
+
+  private static SignatureVerificationException mismatch() {
+    return new SignatureVerificationException(Algorithm.none());
+  }
+
+  @Test
+  public void rejectsTokenWithMismatchingSignatureWithoutExtraction() {
+    assertThatThrownBy(() -> uut.get(KEY, failingWith(mismatch())))
+        .isInstanceOf(InvalidTokenException.class);
+    assertThatThrownBy(() -> uut.get(KEY, failingWith(mismatch())))
+        .isInstanceOf(InvalidTokenException.class)
+        .hasCauseInstanceOf(SignatureVerificationException.class);
+
+    assertThat(extractions).hasValue(1);
+    assertThat(uut.stats().hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void cachesFailingSignatureCheck() {
+    final SignatureVerificationException failure =
+        new SignatureVerificationException(Algorithm.none(), new SignatureException("<invalid>"));
+
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> uut.get(KEY, failingWith(failure)))
+          .isInstanceOf(InvalidTokenException.class);
+    }
+
+    assertThat(extractions).hasValue(1);
+  }
+
+  @Test
+  public void doesNotCacheOtherFailures() {
+    final SignatureVerificationException missingKey =
+        new SignatureVerificationException(
+            Algorithm.none(), new IllegalStateException("<unknown key>"));
+
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> uut.get(KEY, failingWith(missingKey)))
+          .isInstanceOf(InvalidTokenException.class);
+      assertThatThrownBy(() -> uut.get(KEY, failingWith(new IllegalStateException("<expired>"))))
+          .isInstanceOf(InvalidTokenException.class);
+    }
+
+    assertThat(extractions).hasValue(4);
+    assertThat(uut.size()).isZero();
+  }
+
+  @Test
+  public void doesNotCacheExtractedClaims() {
+    assertThat(uut.get(KEY, () -> "<claims>")).isEqualTo("<claims>");
+
+    assertThat(uut.size()).isZero();
+  }
+
+  @Test
+  public void expiresRejections() {
+    assertThatThrownBy(() -> uut.get(KEY, failingWith(mismatch())));
+
+    nanoTime.addAndGet(Duration.ofMillis(59_999).toNanos());
+    assertThatThrownBy(() -> uut.get(KEY, failingWith(mismatch())));
+    assertThat(extractions).hasValue(1);
+
+    nanoTime.addAndGet(Duration.ofMillis(1).toNanos());
+    assertThatThrownBy(() -> uut.get(KEY, failingWith(mismatch())));
+    assertThat(extractions).hasValue(2);
+  }
+
+  @Test
+  public void boundsNumberOfRejections() {
+    for (int i = 0; i < 10; i++) {
+      final HashCode key = TokenDigest.of("<token" + i + ">");
+      assertThatThrownBy(() -> uut.get(key, failingWith(mismatch())));
+    }
+
+    assertThat(uut.size()).isLessThanOrEqualTo(2);
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.extractor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.hash.HashCode;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SingleFlightExtractionTest {
+
+  private static final HashCode KEY = TokenDigest.of("<token>");
+
+  private AtomicInteger extractions;
+
+  private CountDownLatch release;
+
+  @Before
+  public void setUp() {
+    extractions = new AtomicInteger();
+    release = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+  }
+
+  private Supplier<String> blockingExtraction(String result) {
+    return () -> {
+      extractions.incrementAndGet();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return result;
+    };
+  }
+
+  private CompletableFuture<String> startLeader(SingleFlightExtraction uut, Supplier<String> e)
+      throws InterruptedException {
+    final CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> uut.get(KEY, e));
+    while (uut.inFlight() == 0) {
+      Thread.sleep(1);
+    }
+    return leader;
+  }
+
+  @Test
+  public void sharesExtractionBetweenConcurrentCallers() throws Exception {
+    final SingleFlightExtraction uut = new SingleFlightExtraction(10_000);
+    final CompletableFuture<String> leader = startLeader(uut, blockingExtraction("<leader>"));
+
+    final CompletableFuture<String> follower = new CompletableFuture<>();
+    final Thread thread =
+        new Thread(() -> follower.complete(uut.get(KEY, blockingExtraction("<follower>"))));
+    thread.start();
+    while (thread.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+
+    assertThat(follower.get(10, TimeUnit.SECONDS)).isEqualTo("<leader>");
+    assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("<leader>");
+    assertThat(extractions).hasValue(1);
+    assertThat(uut.inFlight()).isZero();
+  }
+
+  @Test
+  public void sharesFailureBetweenConcurrentCallers() throws Exception {
+    final SingleFlightExtraction uut = new SingleFlightExtraction(10_000);
+    final IllegalStateException failure = new IllegalStateException("<failure>");
+    startLeader(
+        uut,
+        () -> {
+          blockingExtraction(null).get();
+          throw failure;
+        });
+
+    final CompletableFuture<Throwable> follower = new CompletableFuture<>();
+    final Thread thread =
+        new Thread(
+            () -> {
+              try {
+                uut.get(KEY, blockingExtraction("<follower>"));
+              } catch (RuntimeException e) {
+                follower.complete(e);
+              }
+            });
+    thread.start();
+    while (thread.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+
+    assertThat(follower.get(10, TimeUnit.SECONDS)).isSameAs(failure);
+    assertThat(extractions).hasValue(1);
+  }
+
+  @Test
+  public void extractsItselfAfterWaitTime() throws Exception {
+    final SingleFlightExtraction uut = new SingleFlightExtraction(20);
+    startLeader(uut, blockingExtraction("<leader>"));
+
+    assertThat(uut.get(KEY, () -> "<follower>")).isEqualTo("<follower>");
+  }
+
+  @Test
+  public void doesNotShareSequentialExtractions() {
+    final SingleFlightExtraction uut = new SingleFlightExtraction(10_000);
+
+    assertThat(uut.get(KEY, () -> "<first>")).isEqualTo("<first>");
+    assertThatThrownBy(
+            () ->
+                uut.get(
+                    KEY,
+                    () -> {
+                      throw new IllegalStateException("<failure>");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(uut.get(KEY, () -> "<third>")).isEqualTo("<third>");
+    assertThat(uut.inFlight()).isZero();
+  }
+
+  @Test
+  public void rejectsNonPositiveWaitTime() {
+    assertThatThrownBy(() -> new SingleFlightExtraction(0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("The wait time must be positive, but was 0");
+  }
+}
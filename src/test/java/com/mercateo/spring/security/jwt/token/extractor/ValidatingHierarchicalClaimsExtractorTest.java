@@ -18,12 +18,16 @@ package com.mercateo.spring.security.jwt.token.extractor;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.auth0.jwk.Jwk;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.mercateo.spring.security.jwt.JWKProvider;
 import com.mercateo.spring.security.jwt.support.Try;
@@ -36,9 +40,17 @@ import com.mercateo.spring.security.jwt.token.exception.MissingClaimException;
 import com.mercateo.spring.security.jwt.token.exception.MissingSignatureException;
 import com.mercateo.spring.security.jwt.token.keyset.JWTKeyset;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.val;
 import org.junit.Before;
 import org.junit.Test;
@@ -93,6 +105,10 @@ public class ValidatingHierarchicalClaimsExtractorTest {
     return claims.claims().get(name);
   }
 
+  private static JWTClaims claimsOf(Try<JWTClaims> result) {
+    return result.getOrElseThrow(IllegalStateException::new);
+  }
+
   private void assertClaimContent(JWTClaim claim, Object value, boolean verified, int depth) {
     assertThat(claim).extracting(JWTClaim::value).isEqualTo(value);
     assertThat(claim.verified()).isEqualTo(verified);
@@ -115,6 +131,250 @@ public class ValidatingHierarchicalClaimsExtractorTest {
     assertClaimContent(getClaimByName(claims, "foo"), "<foo>", true, 0);
   }
 
+  @Test
+  public void providesDecodedOutermostToken() {
+    val wrappedTokenString = signedJwtBuilder().withClaim("foo", "<foo>").sign(algorithm);
+
+    val tokenString =
+        unsignedJwtBuilder()
+            .withSubject("<subject>")
+            .withClaim("jwt", wrappedTokenString)
+            .sign(Algorithm.none());
+
+    val claims = uut.extractClaims(tokenString);
+
+    assertThat(claims.token().getToken()).isEqualTo(tokenString);
+    assertThat(claims.token().getSubject()).isEqualTo("<subject>");
+  }
+
+  @Test
+  public void extractsClaimsFromStreamedPayload() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig())
+                .withJwtKeyset(jwks)
+                .withStreamingClaimExtraction(true));
+    val wrappedTokenString =
+        signedJwtBuilder()
+            .withClaim("foo", "<foo>")
+            .withClaim("unused", "<unused>")
+            .sign(algorithm);
+    val tokenString =
+        unsignedJwtBuilder()
+            .withSubject("<subject>")
+            .withClaim("scope", "test")
+            .withClaim("other", "<other>")
+            .withClaim("jwt", wrappedTokenString)
+            .sign(Algorithm.none());
+
+    val claims = uut.extractClaims(tokenString);
+
+    assertThat(claims.claims().keySet()).containsExactlyInAnyOrder("scope", "foo");
+    assertClaimContent(getClaimByName(claims, "foo"), "<foo>", true, 1);
+    assertThat(claims.token().getSubject()).isEqualTo("<subject>");
+    assertThat(claims.token().getClaims()).containsOnlyKeys("iss", "sub", "scope", "jwt");
+  }
+
+  @Test
+  public void cachesClaimsOfVerifiedTokens() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig())
+                .withJwtKeyset(jwks)
+                .withVerifiedTokenCacheSize(10)
+                .withVerifiedTokenCacheStats(true));
+    val tokenString =
+        signedJwtBuilder()
+            .withClaim("foo", "<foo>")
+            .withExpiresAt(new Date(System.currentTimeMillis() + 60_000))
+            .sign(algorithm);
+
+    val claims = uut.extractClaims(tokenString);
+
+    assertThat(uut.extractClaims(tokenString)).isSameAs(claims);
+    assertThat(uut.verifiedTokenCacheStats().get().hitCount()).isEqualTo(1);
+    assertThat(this.uut.verifiedTokenCacheStats()).isEmpty();
+  }
+
+  @Test
+  public void rejectsTokensWithMismatchingSignatureFromCache() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig())
+                .withJwtKeyset(jwks)
+                .withRejectedTokenCacheSize(10));
+    val signedToken = signedJwtBuilder().withClaim("foo", "<foo>").sign(algorithm);
+    val otherToken = signedJwtBuilder().withClaim("foo", "<other>").sign(algorithm);
+    val tokenString =
+        signedToken.substring(0, signedToken.lastIndexOf('.'))
+            + otherToken.substring(otherToken.lastIndexOf('.'));
+
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(() -> uut.extractClaims(tokenString))
+          .isInstanceOf(InvalidTokenException.class)
+          .hasCauseInstanceOf(SignatureVerificationException.class);
+    }
+    assertThat(uut.rejectedTokenCacheStats().get().hitCount()).isEqualTo(2);
+    assertThat(this.uut.rejectedTokenCacheStats()).isEmpty();
+  }
+
+  @Test
+  public void extractsClaimsWithSingleFlightExtraction() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig())
+                .withJwtKeyset(jwks)
+                .withSingleFlightWaitMillis(1_000));
+    val tokenString = signedJwtBuilder().withClaim("foo", "<foo>").sign(algorithm);
+
+    val claims = uut.extractClaims(tokenString);
+
+    assertClaimContent(getClaimByName(claims, "foo"), "<foo>", true, 0);
+  }
+
+  @Test
+  public void extractsClaimsWithSingleFlightExtractionOnCacheMiss() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig())
+                .withJwtKeyset(jwks)
+                .withVerifiedTokenCacheSize(10)
+                .withVerifiedTokenCacheStats(true)
+                .withSingleFlightWaitMillis(1_000));
+    val tokenString =
+        signedJwtBuilder()
+            .withClaim("foo", "<foo>")
+            .withExpiresAt(new Date(System.currentTimeMillis() + 60_000))
+            .sign(algorithm);
+
+    val claims = uut.extractClaims(tokenString);
+
+    assertThat(uut.extractClaims(tokenString)).isSameAs(claims);
+    assertThat(uut.verifiedTokenCacheStats().get().hitCount()).isEqualTo(1);
+    assertThat(uut.verifiedTokenCacheStats().get().missCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void extractsClaimsOfBatch() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig()).withJwtKeyset(jwks));
+    val first = signedJwtBuilder().withClaim("foo", "<first>").sign(algorithm);
+    val second = signedJwtBuilder().withClaim("foo", "<second>").sign(algorithm);
+    val missingClaim = signedJwtBuilder().withClaim("scope", "test").sign(algorithm);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      val results =
+          uut.extractClaims(
+              Arrays.asList(first, "<malformed>", second, first, missingClaim), executor);
+
+      assertThat(results).hasSize(5);
+      assertClaimContent(getClaimByName(claimsOf(results.get(0)), "foo"), "<first>", true, 0);
+      assertThat(results.get(1).getCause()).isInstanceOf(InvalidTokenException.class);
+      assertClaimContent(getClaimByName(claimsOf(results.get(2)), "foo"), "<second>", true, 0);
+      assertThat(claimsOf(results.get(3))).isSameAs(claimsOf(results.get(0)));
+      assertThat(results.get(4).getCause()).isInstanceOf(MissingClaimException.class);
+    } finally {
+      executor.shutdown();
+    }
+    verify(jwks, times(1)).getKeysetForId(KEY_ID);
+  }
+
+  @Test
+  public void resolvesKeyOfBatchStartingWithExpiredToken() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig()).withJwtKeyset(jwks));
+    val expired =
+        signedJwtBuilder()
+            .withClaim("foo", "<expired>")
+            .withExpiresAt(new Date(System.currentTimeMillis() - 60_000))
+            .sign(algorithm);
+    final List<String> tokens = new ArrayList<>();
+    tokens.add(expired);
+    for (int i = 0; i < 8; i++) {
+      tokens.add(signedJwtBuilder().withClaim("foo", "<foo" + i + ">").sign(algorithm));
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      val results = uut.extractClaims(tokens, executor);
+
+      assertThat(results.get(0).isFailure()).isTrue();
+      assertThat(results.subList(1, results.size())).allMatch(Try::isSuccess);
+    } finally {
+      executor.shutdown();
+    }
+    verify(jwks, times(1)).getKeysetForId(KEY_ID);
+  }
+
+  @Test
+  public void reportsKeyLookupFailurePerTokenOfBatch() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig()).withJwtKeyset(jwks));
+    when(jwks.getKeysetForId(KEY_ID)).thenThrow(new IllegalArgumentException("<keyset>"));
+    val first = signedJwtBuilder().withClaim("foo", "<first>").sign(algorithm);
+    val second = signedJwtBuilder().withClaim("foo", "<second>").sign(algorithm);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      val results = uut.extractClaims(Arrays.asList(first, "<malformed>", second), executor);
+
+      assertThat(results).hasSize(3).allMatch(Try::isFailure);
+      assertThat(results.get(1).getCause()).isInstanceOf(InvalidTokenException.class);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void reportsRejectedExtractionPerTokenOfBatch() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig()).withJwtKeyset(jwks));
+    val first = signedJwtBuilder().withClaim("foo", "<first>").sign(algorithm);
+    val second = signedJwtBuilder().withClaim("foo", "<second>").sign(algorithm);
+    val submitted = new AtomicInteger();
+    // runs the key lookup and the first extraction, rejects everything else
+    final Executor executor =
+        task -> {
+          if (submitted.incrementAndGet() > 2) {
+            throw new RejectedExecutionException("<full>");
+          }
+          task.run();
+        };
+
+    val results = uut.extractClaims(Arrays.asList(first, second), executor);
+
+    assertClaimContent(getClaimByName(claimsOf(results.get(0)), "foo"), "<first>", true, 0);
+    assertThat(results.get(1).getCause())
+        .isInstanceOf(RejectedExecutionException.class)
+        .hasMessage("<full>");
+  }
+
+  @Test
+  public void doesNotCacheFailedExtractions() {
+    val uut =
+        new ValidatingHierarchicalClaimsExtractor(
+            JWTConfigData.copyOf((JWTConfigData) securityConfig())
+                .withJwtKeyset(jwks)
+                .withVerifiedTokenCacheSize(10)
+                .withVerifiedTokenCacheStats(true));
+    val tokenString =
+        signedJwtBuilder()
+            .withClaim("scope", "test")
+            .withExpiresAt(new Date(System.currentTimeMillis() + 60_000))
+            .sign(algorithm);
+
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> uut.extractClaims(tokenString))
+          .isInstanceOf(MissingClaimException.class);
+    }
+    assertThat(uut.verifiedTokenCacheStats().get().missCount()).isEqualTo(2);
+  }
+
   @Test
   public void extractsClaimsOfDifferentType() throws Exception {
     val securityConfig =
@@ -253,6 +513,17 @@ public class ValidatingHierarchicalClaimsExtractorTest {
         .hasMessage("could not decode token");
   }
 
+  @Test
+  public void rejectsTokenOnHeaderBeforeDecodingPayload() {
+    val token = JWT.create().withKeyId(KEY_ID).sign(Algorithm.HMAC256("secret"));
+    val tokenWithBrokenPayload = token.substring(0, token.indexOf('.') + 1) + "e30K!!." + "AAAA";
+
+    assertThatThrownBy(() -> uut.extractClaims(tokenWithBrokenPayload))
+        .isInstanceOf(InvalidTokenException.class)
+        .hasMessage("could not verify token")
+        .hasCauseInstanceOf(AlgorithmMismatchException.class);
+  }
+
   @Test
   public void throwsExceptionWhenTokenIsExpired() {
     final String tokenString =
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.extractor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mercateo.spring.security.jwt.token.claim.JWTClaims;
+import com.mercateo.spring.security.jwt.token.extractor.VerifiedTokenCache.ExtractedClaims;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VerifiedTokenCacheTest {
+
+  private AtomicLong now;
+
+  private AtomicInteger extractions;
+
+  private VerifiedTokenCache uut;
+
+  @Before
+  public void setUp() {
+    now = new AtomicLong(1_000_000L);
+    extractions = new AtomicInteger();
+    uut = new VerifiedTokenCache(2, true, 10, now::get);
+  }
+
+  private Function<String, ExtractedClaims> expiringAt(Long expiresAt) {
+    return token -> {
+      extractions.incrementAndGet();
+      return new ExtractedClaims(JWTClaims.builder().build(), Optional.ofNullable(expiresAt));
+    };
+  }
+
+  @Test
+  public void returnsCachedClaimsForSameToken() {
+    final JWTClaims first = uut.get("<token>", expiringAt(2_000_000L));
+    final JWTClaims second = uut.get("<token>", expiringAt(2_000_000L));
+
+    assertThat(second).isSameAs(first);
+    assertThat(extractions).hasValue(1);
+    assertThat(uut.stats().hitCount()).isEqualTo(1);
+    assertThat(uut.stats().missCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void distinguishesTokens() {
+    uut.get("<token1>", expiringAt(2_000_000L));
+    uut.get("<token2>", expiringAt(2_000_000L));
+
+    assertThat(extractions).hasValue(2);
+    assertThat(uut.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void expiresEntriesAtExpiryMinusLeeway() {
+    uut.get("<token>", expiringAt(2_000_000L));
+
+    now.set(1_989_999L);
+    uut.get("<token>", expiringAt(2_000_000L));
+    assertThat(extractions).hasValue(1);
+
+    now.set(1_990_000L);
+    uut.get("<token>", expiringAt(2_000_000L));
+    assertThat(extractions).hasValue(2);
+    assertThat(uut.size()).isZero();
+  }
+
+  @Test
+  public void countsExpiredEntryAsMiss() {
+    uut.get("<token>", expiringAt(2_000_000L));
+    now.set(1_990_000L);
+
+    uut.get("<token>", expiringAt(2_000_000L));
+
+    assertThat(uut.stats().hitCount()).isZero();
+    assertThat(uut.stats().missCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void countsEvictions() {
+    uut.get("<token1>", expiringAt(2_000_000L));
+    uut.get("<token2>", expiringAt(2_000_000L));
+    uut.get("<token3>", expiringAt(2_000_000L));
+
+    assertThat(uut.stats().evictionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void doesNotCacheTokensWithoutExpiry() {
+    uut.get("<token>", expiringAt(null));
+    uut.get("<token>", expiringAt(null));
+
+    assertThat(extractions).hasValue(2);
+    assertThat(uut.size()).isZero();
+  }
+
+  @Test
+  public void isBounded() {
+    uut.get("<token1>", expiringAt(2_000_000L));
+    uut.get("<token2>", expiringAt(2_000_000L));
+    uut.get("<token3>", expiringAt(2_000_000L));
+
+    assertThat(uut.size()).isEqualTo(2);
+  }
+}
@@ -31,6 +31,18 @@ public class Auth0JWTKeysetTest {
     assertThat(jwtKeyset.getAuth0Domain()).isEqualTo("domain");
   }
 
+  @Test
+  public void shouldFetchKeysFromWellKnownPathOfDomain() {
+    assertThat(Auth0JWTKeyset.jwksUrl("domain"))
+        .hasToString("https://domain/.well-known/jwks.json");
+    assertThat(Auth0JWTKeyset.jwksUrl("domain/"))
+        .hasToString("https://domain/.well-known/jwks.json");
+    assertThat(Auth0JWTKeyset.jwksUrl("domain/tenant"))
+        .hasToString("https://domain/.well-known/jwks.json");
+    assertThat(Auth0JWTKeyset.jwksUrl("domain:8443/tenant/"))
+        .hasToString("https://domain:8443/.well-known/jwks.json");
+  }
+
   @Test
   public void shouldReturnFailureForUnknownKeyId() {
     final Auth0JWTKeyset jwtKeyset = new Auth0JWTKeyset("domain");
@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwk.GuavaCachedJwkProvider;
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.RateLimitReachedException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.auth0.jwt.JWT;
+import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.support.Try;
+import com.mercateo.spring.security.jwt.token.config.JWTConfigData;
+import com.mercateo.spring.security.jwt.token.verifier.JWTVerifier;
+import com.mercateo.spring.security.jwt.token.verifier.JWTVerifierFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CoalescingJwkProviderTest {
+
+  private final AtomicLong nanoTime = new AtomicLong(-1_000_000L);
+
+  private final AtomicInteger fetches = new AtomicInteger();
+
+  private final AtomicReference<List<Jwk>> keys = new AtomicReference<>();
+
+  private CoalescingJwkProvider uut;
+
+  @Before
+  public void setUp() {
+    keys.set(Collections.singletonList(jwk("0815")));
+    uut =
+        new CoalescingJwkProvider(
+            () -> {
+              fetches.incrementAndGet();
+              return keys.get();
+            },
+            Duration.ofSeconds(10),
+            nanoTime::get);
+  }
+
+  private static Jwk jwk(String keyId) {
+    return new Jwk(keyId, "RSA", "RS256", null, Collections.emptyList(), null, null, null, null);
+  }
+
+  @Test
+  public void fetchesUnknownKey() throws Exception {
+    assertThat(uut.isFetched("0815")).isFalse();
+
+    assertThat(uut.get("0815").getId()).isEqualTo("0815");
+    assertThat(uut.isFetched("0815")).isTrue();
+    assertThat(fetches).hasValue(1);
+  }
+
+  @Test
+  public void answersFromLastFetchDuringCooldown() throws Exception {
+    uut.get("0815");
+    keys.set(Arrays.asList(jwk("0815"), jwk("4711")));
+    nanoTime.addAndGet(Duration.ofMillis(9_999).toNanos());
+
+    assertThat(uut.get("0815").getId()).isEqualTo("0815");
+    assertThatThrownBy(() -> uut.get("4711"))
+        .isInstanceOfSatisfying(
+            RateLimitReachedException.class, e -> assertThat(e.getAvailableIn()).isEqualTo(1));
+    assertThat(fetches).hasValue(1);
+
+    nanoTime.addAndGet(Duration.ofMillis(1).toNanos());
+    assertThat(uut.get("4711").getId()).isEqualTo("4711");
+    assertThat(fetches).hasValue(2);
+  }
+
+  @Test
+  public void failsForKeyMissingInFetch() {
+    assertThatThrownBy(() -> uut.get("4711"))
+        .isInstanceOf(UnknownKeyIdException.class)
+        .hasMessage("No key found with kid 4711");
+  }
+
+  @Test
+  public void appliesCooldownToFailedFetches() {
+    uut =
+        new CoalescingJwkProvider(
+            () -> {
+              fetches.incrementAndGet();
+              throw new SigningKeyNotFoundException("<unreachable>", null);
+            },
+            Duration.ofSeconds(10),
+            nanoTime::get);
+
+    assertThatThrownBy(() -> uut.get("0815"))
+        .isInstanceOf(SigningKeyNotFoundException.class)
+        .isNotInstanceOf(UnknownKeyIdException.class)
+        .hasRootCauseMessage("<unreachable>");
+    assertThatThrownBy(() -> uut.get("0815")).isInstanceOf(RateLimitReachedException.class);
+    assertThat(fetches).hasValue(1);
+  }
+
+  @Test
+  public void completesFetchFailingWithError() throws Exception {
+    uut =
+        new CoalescingJwkProvider(
+            () -> {
+              if (fetches.incrementAndGet() == 1) {
+                throw new InternalError("<error>");
+              }
+              return keys.get();
+            },
+            Duration.ZERO,
+            nanoTime::get);
+
+    assertThatThrownBy(() -> uut.get("0815"))
+        .isInstanceOf(SigningKeyNotFoundException.class)
+        .hasRootCauseMessage("<error>");
+    assertThat(uut.get("0815").getId()).isEqualTo("0815");
+    assertThat(fetches).hasValue(2);
+  }
+
+  @Test
+  public void sharesInFlightFetch() throws Exception {
+    final CountDownLatch fetching = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    keys.set(Arrays.asList(jwk("0815"), jwk("4711"), jwk("4712")));
+    uut =
+        new CoalescingJwkProvider(
+            () -> {
+              fetches.incrementAndGet();
+              fetching.countDown();
+              try {
+                release.await(10, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return keys.get();
+            },
+            Duration.ZERO,
+            nanoTime::get);
+
+    final List<CompletableFuture<String>> lookups = new ArrayList<>();
+    lookups.add(lookupAsync("0815"));
+    assertThat(fetching.await(10, TimeUnit.SECONDS)).isTrue();
+    final List<Thread> waiting = new ArrayList<>();
+    for (String keyId : Arrays.asList("4711", "4712")) {
+      final CompletableFuture<String> lookup = new CompletableFuture<>();
+      final Thread thread = new Thread(() -> lookup.complete(lookupId(keyId)));
+      thread.start();
+      waiting.add(thread);
+      lookups.add(lookup);
+    }
+    for (Thread thread : waiting) {
+      while (thread.getState() != Thread.State.WAITING) {
+        Thread.sleep(1);
+      }
+    }
+    release.countDown();
+
+    for (CompletableFuture<String> lookup : lookups) {
+      assertThat(lookup.get(10, TimeUnit.SECONDS)).isNotNull();
+    }
+    assertThat(fetches).hasValue(1);
+  }
+
+  private CompletableFuture<String> lookupAsync(String keyId) {
+    return CompletableFuture.supplyAsync(() -> lookupId(keyId));
+  }
+
+  private String lookupId(String keyId) {
+    try {
+      return uut.get(keyId).getId();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  public void rejectsNegativeCooldown() {
+    assertThatThrownBy(
+            () -> new CoalescingJwkProvider(keys::get, Duration.ofMillis(-1), nanoTime::get))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("The cooldown must not be negative, but was PT-0.001S");
+  }
+
+  @Test
+  public void acceptsRotatedKeyIdAfterCooldown() {
+    final JWKProvider jwkProvider = new JWKProvider();
+    keys.set(Collections.singletonList(jwkProvider.create("0815")));
+    final GuavaCachedJwkProvider provider = new GuavaCachedJwkProvider(uut);
+    final JWTVerifier verifier =
+        new JWTVerifierFactory(
+                keyId -> Try.of(() -> provider.get(keyId)), JWTConfigData.builder().build())
+            .create();
+    verifier.verify(JWT.create().withKeyId("0815").sign(jwkProvider.getAlgorithm()));
+    keys.set(Arrays.asList(jwkProvider.create("0815"), jwkProvider.create("4711")));
+    final String rotated = JWT.create().withKeyId("4711").sign(jwkProvider.getAlgorithm());
+
+    assertThatThrownBy(() -> verifier.verify(rotated))
+        .hasRootCauseInstanceOf(RateLimitReachedException.class);
+
+    nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertThat(verifier.verify(rotated).getKeyId()).isEqualTo("4711");
+    assertThat(fetches).hasValue(2);
+  }
+}
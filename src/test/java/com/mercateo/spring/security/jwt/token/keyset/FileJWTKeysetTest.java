@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import static com.mercateo.spring.security.jwt.token.keyset.JwksServer.jwk;
+import static com.mercateo.spring.security.jwt.token.keyset.JwksServer.jwks;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileJWTKeysetTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path file;
+
+  private FileJWTKeyset uut;
+
+  @Before
+  public void setUp() throws Exception {
+    file = folder.getRoot().toPath().resolve("jwks.json");
+    Files.write(file, jwks(jwk("0815", "<n1>")).getBytes(StandardCharsets.UTF_8));
+    uut = new FileJWTKeyset(file, Duration.ofHours(1)).start();
+  }
+
+  @After
+  public void tearDown() {
+    uut.close();
+  }
+
+  private static boolean await(BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    return condition.getAsBoolean();
+  }
+
+  @Test
+  public void loadsKeysOfFile() {
+    assertThat(uut.getFile()).isEqualTo(file.toAbsolutePath());
+    assertThat(uut.getKeysetForId("0815").isSuccess()).isTrue();
+    assertThat(uut.getKeysetForId("4711").isFailure()).isTrue();
+  }
+
+  @Test
+  public void reloadsReplacedFile() throws Exception {
+    final Path update = folder.newFile("jwks.json.tmp").toPath();
+    Files.write(
+        update, jwks(jwk("0815", "<n1>"), jwk("4711", "<n2>")).getBytes(StandardCharsets.UTF_8));
+
+    Files.move(update, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    assertThat(await(() -> uut.getKeysetForId("4711").isSuccess())).isTrue();
+    assertThat(uut.getKeysetForId("0815").isSuccess()).isTrue();
+  }
+
+  @Test
+  public void keepsKeysOfUnreadableFile() throws Exception {
+    Files.write(file, "{\"keys\":[".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(await(() -> uut.stats().failureCount() > 0)).isTrue();
+    assertThat(uut.getKeysetForId("0815").isSuccess()).isTrue();
+  }
+}
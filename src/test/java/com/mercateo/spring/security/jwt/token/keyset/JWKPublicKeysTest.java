@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwk.InvalidPublicKeyException;
+import com.auth0.jwk.Jwk;
+import com.mercateo.spring.security.jwt.ECJWKProvider;
+import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.OKPJWKProvider;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.val;
+import org.junit.Test;
+
+public class JWKPublicKeysTest {
+
+  @Test
+  public void derivesRsaKey() throws Exception {
+    val key = JWKPublicKeys.publicKey(new JWKProvider().create("0815"));
+
+    assertThat(key).isInstanceOf(RSAPublicKey.class);
+  }
+
+  @Test
+  public void derivesEcKey() throws Exception {
+    val provider = new ECJWKProvider();
+
+    val key = JWKPublicKeys.publicKey(provider.create("0815"));
+
+    assertThat(key).isEqualTo(provider.getPublicKey());
+  }
+
+  @Test
+  public void derivesOkpKey() throws Exception {
+    val provider = new OKPJWKProvider();
+
+    val key = JWKPublicKeys.publicKey(provider.create("0815"));
+
+    assertThat(key).isEqualTo(provider.getPublicKey());
+  }
+
+  @Test
+  public void rejectsUnsupportedOkpCurve() {
+    val attributes = new HashMap<>(new OKPJWKProvider().create("0815").getAdditionalAttributes());
+    attributes.put("crv", "X25519");
+
+    assertThatThrownBy(() -> JWKPublicKeys.publicKey(jwk("OKP", attributes)))
+        .isInstanceOf(InvalidPublicKeyException.class)
+        .hasMessage("The curve X25519 is not supported");
+  }
+
+  @Test
+  public void rejectsOkpKeyOfInvalidLength() {
+    val attributes = new HashMap<String, Object>();
+    attributes.put("crv", "Ed25519");
+    attributes.put("x", "AAAA");
+
+    assertThatThrownBy(() -> JWKPublicKeys.publicKey(jwk("OKP", attributes)))
+        .isInstanceOf(InvalidPublicKeyException.class)
+        .hasMessage("Invalid public key");
+  }
+
+  @Test
+  public void rejectsUnsupportedCurve() {
+    val attributes = new HashMap<>(new ECJWKProvider().create("0815").getAdditionalAttributes());
+    attributes.put("crv", "P-192");
+
+    assertThatThrownBy(() -> JWKPublicKeys.publicKey(jwk("EC", attributes)))
+        .isInstanceOf(InvalidPublicKeyException.class)
+        .hasMessage("The curve P-192 is not supported");
+  }
+
+  @Test
+  public void rejectsMissingCoordinate() {
+    val attributes = new HashMap<>(new ECJWKProvider().create("0815").getAdditionalAttributes());
+    attributes.remove("y");
+
+    assertThatThrownBy(() -> JWKPublicKeys.publicKey(jwk("EC", attributes)))
+        .isInstanceOf(InvalidPublicKeyException.class)
+        .hasMessage("Invalid public key");
+  }
+
+  @Test
+  public void rejectsUnsupportedKeyType() {
+    assertThatThrownBy(() -> JWKPublicKeys.publicKey(jwk("oct", Collections.emptyMap())))
+        .isInstanceOf(InvalidPublicKeyException.class)
+        .hasMessage("The key type oct is not supported");
+  }
+
+  private static Jwk jwk(String type, Map<String, Object> attributes) {
+    return new Jwk(
+        "0815",
+        type,
+        null,
+        null,
+        Collections.emptyList(),
+        null,
+        Collections.emptyList(),
+        null,
+        attributes);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import static com.mercateo.spring.security.jwt.token.keyset.JwksServer.jwk;
+import static com.mercateo.spring.security.jwt.token.keyset.JwksServer.jwks;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JwksFetcherTest {
+
+  private JwksServer server;
+
+  private JwksFetcher uut;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new JwksServer();
+    uut = new JwksFetcher(server.url());
+  }
+
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  @Test
+  public void fetchesKeys() throws Exception {
+    server.keys.set(jwks(jwk("0815", "<n1>"), jwk("4711", "<n2>")));
+
+    final List<Jwk> keys = uut.getAll();
+
+    assertThat(keys).extracting(Jwk::getId).containsExactly("0815", "4711");
+    assertThat(keys.get(1).getAdditionalAttributes()).containsEntry("n", "<n2>");
+    assertThat(server.requests.get(0).getFirst("If-None-Match")).isNull();
+  }
+
+  @Test
+  public void reusesKeysOfNotModifiedResponse() throws Exception {
+    server.responseHeaders.put("ETag", "\"v1\"");
+    server.responseHeaders.put("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT");
+    final List<Jwk> keys = uut.getAll();
+    server.status.set(304);
+
+    assertThat(uut.getAll()).isSameAs(keys);
+    assertThat(server.requests.get(1).getFirst("If-None-Match")).isEqualTo("\"v1\"");
+    assertThat(server.requests.get(1).getFirst("If-Modified-Since"))
+        .isEqualTo("Wed, 21 Oct 2015 07:28:00 GMT");
+  }
+
+  @Test
+  public void providesMaximumAgeOfLastResponse() throws Exception {
+    server.responseHeaders.put("Cache-Control", "public, max-age=120, must-revalidate");
+    uut.getAll();
+    assertThat(uut.maxAge()).contains(Duration.ofSeconds(120));
+
+    server.status.set(500);
+    assertThatThrownBy(uut::getAll)
+        .isInstanceOf(SigningKeyNotFoundException.class)
+        .hasMessageEndingWith("status 500");
+    assertThat(uut.maxAge()).isEmpty();
+  }
+
+  @Test
+  public void parsesCacheControl() {
+    assertThat(JwksFetcher.maxAge(null)).isEmpty();
+    assertThat(JwksFetcher.maxAge("max-age=60")).contains(Duration.ofSeconds(60));
+    assertThat(JwksFetcher.maxAge("Public, Max-Age=\"30\"")).contains(Duration.ofSeconds(30));
+    assertThat(JwksFetcher.maxAge("no-cache, max-age=60")).isEmpty();
+    assertThat(JwksFetcher.maxAge("max-age=0")).isEmpty();
+    assertThat(JwksFetcher.maxAge("max-age=soon")).isEmpty();
+  }
+
+  @Test
+  public void failsForDocumentWithoutKeys() {
+    server.keys.set("{\"keys\":[]}");
+
+    assertThatThrownBy(uut::getAll)
+        .isInstanceOf(SigningKeyNotFoundException.class)
+        .hasMessageStartingWith("No keys found in");
+  }
+}
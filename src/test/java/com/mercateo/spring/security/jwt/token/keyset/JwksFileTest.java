@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import static com.mercateo.spring.security.jwt.token.keyset.JwksServer.jwk;
+import static com.mercateo.spring.security.jwt.token.keyset.JwksServer.jwks;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JwksFileTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path file;
+
+  private JwksFile uut;
+
+  @Before
+  public void setUp() throws Exception {
+    file = folder.newFile("jwks.json").toPath();
+    write(jwks(jwk("0815", "<n1>")));
+    uut = new JwksFile(file);
+  }
+
+  private void write(String content) throws Exception {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void readsKeys() throws Exception {
+    assertThat(uut.getAll()).extracting(Jwk::getId).containsExactly("0815");
+  }
+
+  @Test
+  public void doesNotParseUnchangedFile() throws Exception {
+    final List<Jwk> keys = uut.getAll();
+
+    assertThat(uut.getAll()).isSameAs(keys);
+  }
+
+  @Test
+  public void parsesChangedFile() throws Exception {
+    final List<Jwk> keys = uut.getAll();
+    write(jwks(jwk("0815", "<n1>"), jwk("4711", "<n2>")));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+    assertThat(uut.getAll()).isNotSameAs(keys).extracting(Jwk::getId).contains("4711");
+  }
+
+  @Test
+  public void parsesChangedFileOfSameSizeAndModificationTime() throws Exception {
+    final FileTime lastModified = Files.getLastModifiedTime(file);
+    final List<Jwk> keys = uut.getAll();
+    write(jwks(jwk("4711", "<n1>")));
+    Files.setLastModifiedTime(file, lastModified);
+
+    assertThat(uut.getAll()).isNotSameAs(keys).extracting(Jwk::getId).containsExactly("4711");
+  }
+
+  @Test
+  public void failsForInvalidFile() throws Exception {
+    write("{\"keys\":[");
+
+    assertThatThrownBy(uut::getAll)
+        .isInstanceOf(SigningKeyNotFoundException.class)
+        .hasMessageStartingWith("Cannot read jwks from file");
+  }
+
+  @Test
+  public void failsForMissingFile() throws Exception {
+    Files.delete(file);
+
+    assertThatThrownBy(uut::getAll).isInstanceOf(SigningKeyNotFoundException.class);
+  }
+}
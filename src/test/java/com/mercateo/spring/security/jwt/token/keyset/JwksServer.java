@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Local JWKS endpoint serving the configured keys and recording the request headers. */
+class JwksServer implements AutoCloseable {
+
+  final AtomicReference<String> keys = new AtomicReference<>(jwks(jwk("0815", "<n1>")));
+
+  final AtomicInteger status = new AtomicInteger(200);
+
+  final Map<String, String> responseHeaders = new ConcurrentHashMap<>();
+
+  final List<Headers> requests = new CopyOnWriteArrayList<>();
+
+  private final HttpServer server;
+
+  JwksServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/jwks.json",
+        exchange -> {
+          requests.add(exchange.getRequestHeaders());
+          final int code = status.get();
+          final byte[] body =
+              code == 304 ? new byte[0] : keys.get().getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("Content-Type", "application/json");
+          responseHeaders.forEach(exchange.getResponseHeaders()::add);
+          exchange.sendResponseHeaders(code, code == 304 ? -1 : body.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+          }
+        });
+    server.start();
+  }
+
+  URL url() {
+    try {
+      return new URL("http://localhost:" + server.getAddress().getPort() + "/jwks.json");
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static String jwk(String keyId, String modulus) {
+    return "{\"kid\":\""
+        + keyId
+        + "\",\"kty\":\"RSA\",\"alg\":\"RS256\",\"n\":\""
+        + modulus
+        + "\",\"e\":\"AQAB\"}";
+  }
+
+  static String jwks(String... jwks) {
+    return "{\"keys\":[" + String.join(",", jwks) + "]}";
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import static com.mercateo.spring.security.jwt.token.keyset.JwksServer.jwk;
+import static com.mercateo.spring.security.jwt.token.keyset.JwksServer.jwks;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.auth0.jwk.UrlJwkProvider;
+import com.mercateo.spring.security.jwt.support.Try;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class RefreshingJWTKeysetTest {
+
+  private JwksServer server;
+
+  private final AtomicLong now = new AtomicLong(1_000_000L);
+
+  private RefreshingJWTKeyset uut;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new JwksServer();
+  }
+
+  @After
+  public void tearDown() {
+    if (uut != null) {
+      uut.close();
+    }
+    server.close();
+  }
+
+  private RefreshingJWTKeyset create() {
+    return new RefreshingJWTKeyset(
+            new UrlJwkProvider(server.url())::getAll,
+            Duration.ofHours(1),
+            Executors.newSingleThreadScheduledExecutor(),
+            now::get)
+        .start();
+  }
+
+  @Test
+  public void loadsKeysOnCreation() {
+    uut = create();
+
+    final Try<Jwk> jwk = uut.getKeysetForId("0815");
+
+    assertThat(jwk.isSuccess()).isTrue();
+    assertThat(jwk.getOrElseThrow(IllegalStateException::new).getAdditionalAttributes())
+        .containsEntry("n", "<n1>");
+    assertThat(server.requests).hasSize(1);
+    assertThat(uut.stats()).isEqualTo(new RefreshStats(1, 0, 0, 0, 1));
+    assertThat(uut.isLoadedKeyId("0815")).isTrue();
+    assertThat(uut.isLoadedKeyId("4711")).isFalse();
+  }
+
+  @Test
+  public void failsForUnknownKeyIdWithoutFetching() {
+    uut = create();
+
+    final Try<Jwk> jwk = uut.getKeysetForId("4711");
+
+    assertThat(jwk.isFailure()).isTrue();
+    assertThat(jwk.getCause()).isInstanceOf(UnknownKeyIdException.class);
+    assertThat(server.requests).hasSize(1);
+  }
+
+  @Test
+  public void replacesKeysOnRefresh() {
+    uut = create();
+    final AtomicInteger changes = new AtomicInteger();
+    uut.addChangeListener(changes::incrementAndGet);
+    server.keys.set(jwks(jwk("0815", "<n2>"), jwk("4711", "<n3>")));
+
+    uut.refresh();
+
+    assertThat(uut.getKeysetForId("4711").isSuccess()).isTrue();
+    assertThat(
+            uut.getKeysetForId("0815")
+                .getOrElseThrow(IllegalStateException::new)
+                .getAdditionalAttributes())
+        .containsEntry("n", "<n2>");
+    assertThat(changes).hasValue(1);
+    assertThat(uut.stats().keyCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void doesNotNotifyUnchangedKeys() {
+    uut = create();
+    final AtomicInteger changes = new AtomicInteger();
+    uut.addChangeListener(changes::incrementAndGet);
+
+    uut.refresh();
+
+    assertThat(changes).hasValue(0);
+    assertThat(uut.stats().refreshCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void keepsKeysWhenRefreshFails() {
+    uut = create();
+    server.status.set(500);
+    now.addAndGet(5_000L);
+
+    uut.refresh();
+
+    assertThat(uut.getKeysetForId("0815").isSuccess()).isTrue();
+    assertThat(uut.getKeysetForId("4711").getCause())
+        .isNotInstanceOf(UnknownKeyIdException.class)
+        .hasCauseInstanceOf(SigningKeyNotFoundException.class);
+    assertThat(uut.stats()).isEqualTo(new RefreshStats(1, 1, 5_000, 0, 1));
+  }
+
+  @Test
+  public void reportsMissingInitialLoad() {
+    server.status.set(500);
+
+    uut = create();
+
+    assertThat(uut.getKeysetForId("0815").isFailure()).isTrue();
+    assertThat(uut.stats()).isEqualTo(new RefreshStats(0, 1, -1, 0, 0));
+  }
+
+  @Test
+  public void refreshesInBackground() throws InterruptedException {
+    uut =
+        new RefreshingJWTKeyset(new UrlJwkProvider(server.url())::getAll, Duration.ofMillis(10))
+            .start();
+
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (uut.stats().refreshCount() < 3 && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+
+    assertThat(uut.stats().refreshCount()).isGreaterThanOrEqualTo(3);
+  }
+
+  @Test
+  public void schedulesRefreshAfterMaximumAgeOfSource() {
+    final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+
+    uut =
+        new RefreshingJWTKeyset(
+                source(Duration.ofSeconds(120)), Duration.ofHours(1), scheduler, now::get)
+            .start();
+
+    verify(scheduler).schedule(any(Runnable.class), eq(120_000L), eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void boundsMaximumAgeOfSource() {
+    final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+
+    uut =
+        new RefreshingJWTKeyset(
+                source(Duration.ofMillis(100)), Duration.ofHours(1), scheduler, now::get)
+            .start();
+
+    verify(scheduler)
+        .schedule(
+            any(Runnable.class),
+            eq(RefreshingJWTKeyset.MIN_MAX_AGE.toMillis()),
+            eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void schedulesRefreshAfterIntervalForZeroMaximumAge() {
+    final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+
+    uut =
+        new RefreshingJWTKeyset(source(Duration.ZERO), Duration.ofHours(1), scheduler, now::get)
+            .start();
+
+    verify(scheduler).schedule(any(Runnable.class), eq(3_600_000L), eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void schedulesRefreshAfterIntervalWithoutMaximumAge() {
+    final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+
+    uut =
+        new RefreshingJWTKeyset(Collections::emptyList, Duration.ofHours(1), scheduler, now::get)
+            .start();
+
+    verify(scheduler).schedule(any(Runnable.class), eq(3_600_000L), eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void keepsRefreshingAfterErrorOfSource() {
+    final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    final AtomicInteger loads = new AtomicInteger();
+    uut =
+        new RefreshingJWTKeyset(
+                () -> {
+                  if (loads.incrementAndGet() == 2) {
+                    throw new InternalError("<truncated>");
+                  }
+                  return Collections.emptyList();
+                },
+                Duration.ofHours(1),
+                scheduler,
+                now::get)
+            .start();
+    final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(task.capture(), eq(3_600_000L), eq(TimeUnit.MILLISECONDS));
+
+    task.getValue().run();
+
+    verify(scheduler).schedule(any(Runnable.class), eq(1_000L), eq(TimeUnit.MILLISECONDS));
+    assertThat(uut.stats().failureCount()).isEqualTo(1);
+    assertThat(uut.getKeysetForId("0815").getCause()).hasRootCauseMessage("<truncated>");
+  }
+
+  @Test
+  public void retriesFailedRefreshWithBackoff() {
+    final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    uut =
+        new RefreshingJWTKeyset(
+                () -> {
+                  throw new SigningKeyNotFoundException("<unreachable>", null);
+                },
+                Duration.ofSeconds(5),
+                scheduler,
+                now::get)
+            .start();
+    final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+
+    for (long delay : new long[] {1_000L, 2_000L, 4_000L, 5_000L, 5_000L}) {
+      verify(scheduler).schedule(task.capture(), eq(delay), eq(TimeUnit.MILLISECONDS));
+      clearInvocations(scheduler);
+      task.getValue().run();
+    }
+  }
+
+  @Test
+  public void refreshesAfterIntervalOnceRetrySucceeded() {
+    final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    final AtomicInteger loads = new AtomicInteger();
+    uut =
+        new RefreshingJWTKeyset(
+                () -> {
+                  if (loads.incrementAndGet() == 1) {
+                    throw new SigningKeyNotFoundException("<unreachable>", null);
+                  }
+                  return Collections.emptyList();
+                },
+                Duration.ofHours(1),
+                scheduler,
+                now::get)
+            .start();
+    final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(task.capture(), eq(1_000L), eq(TimeUnit.MILLISECONDS));
+
+    task.getValue().run();
+
+    verify(scheduler).schedule(any(Runnable.class), eq(3_600_000L), eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void loadsKeysOnlyWhenStarted() {
+    final RefreshingJWTKeyset keyset =
+        new RefreshingJWTKeyset(
+            new UrlJwkProvider(server.url())::getAll,
+            Duration.ofHours(1),
+            mock(ScheduledExecutorService.class),
+            now::get);
+
+    assertThat(keyset.getKeysetForId("0815").getCause())
+        .hasRootCauseMessage("The keyset is not started");
+    assertThat(server.requests).isEmpty();
+
+    uut = keyset.start();
+
+    assertThat(uut.start()).isSameAs(keyset);
+    assertThat(uut.getKeysetForId("0815").isSuccess()).isTrue();
+    assertThat(server.requests).hasSize(1);
+  }
+
+  @Test
+  public void keepsIndexOfUnchangedKeys() {
+    final List<Jwk> keys =
+        Collections.singletonList(
+            new Jwk("0815", "RSA", "RS256", null, Collections.emptyList(), null, null, null, null));
+    final AtomicInteger changes = new AtomicInteger();
+    uut =
+        new RefreshingJWTKeyset(
+                () -> keys, Duration.ofHours(1), mock(ScheduledExecutorService.class), now::get)
+            .start();
+    uut.addChangeListener(changes::incrementAndGet);
+
+    uut.refresh();
+
+    assertThat(uut.getKeysetForId("0815").isSuccess()).isTrue();
+    assertThat(changes).hasValue(0);
+  }
+
+  private static JWKSource source(Duration maxAge) {
+    return new JWKSource() {
+      @Override
+      public List<Jwk> getAll() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public Optional<Duration> maxAge() {
+        return Optional.of(maxAge);
+      }
+    };
+  }
+
+  @Test
+  public void rejectsNonPositiveRefreshInterval() {
+    assertThatThrownBy(() -> new RefreshingJWTKeyset(Collections::emptyList, Duration.ZERO))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("The refresh interval must be positive, but was PT0S");
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.keyset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UrlJWTKeysetTest {
+
+  private JwksServer server;
+
+  private UrlJWTKeyset uut;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new JwksServer();
+    uut = new UrlJWTKeyset(server.url()).start();
+  }
+
+  @After
+  public void tearDown() {
+    uut.close();
+    server.close();
+  }
+
+  @Test
+  public void loadsKeysOfUrl() {
+    assertThat(uut.getJwksUrl()).isEqualTo(server.url());
+    assertThat(uut.getKeysetForId("0815").isSuccess()).isTrue();
+    assertThat(uut.getKeysetForId("4711").isFailure()).isTrue();
+  }
+}
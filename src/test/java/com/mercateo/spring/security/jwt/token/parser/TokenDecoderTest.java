@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TokenDecoderTest {
+
+  private TokenDecoder uut;
+
+  @Before
+  public void setUp() {
+    uut = new TokenDecoder();
+  }
+
+  @Test
+  public void decodesLikeJavaJwt() {
+    final String token =
+        JWT.create()
+            .withKeyId("<kid>")
+            .withIssuer("<issuer>")
+            .withSubject("<subject>")
+            .withAudience("<aud1>", "<aud2>")
+            .withExpiresAt(new Date(1_600_000_000_000L))
+            .withNotBefore(new Date(1_500_000_000_000L))
+            .withClaim("scope", "foo bar")
+            .withClaim("int", 4711)
+            .withArrayClaim("roles", new String[] {"a", "b"})
+            .sign(Algorithm.HMAC256("secret"));
+    final DecodedJWT expected = JWT.decode(token);
+
+    final DecodedJWT result = uut.decode(token);
+
+    assertThat(result.getToken()).isSameAs(token);
+    assertThat(result.getHeader()).isEqualTo(expected.getHeader());
+    assertThat(result.getPayload()).isEqualTo(expected.getPayload());
+    assertThat(result.getSignature()).isEqualTo(expected.getSignature());
+    assertThat(result.getAlgorithm()).isEqualTo("HS256");
+    assertThat(result.getKeyId()).isEqualTo("<kid>");
+    assertThat(result.getType()).isEqualTo(expected.getType());
+    assertThat(result.getIssuer()).isEqualTo("<issuer>");
+    assertThat(result.getSubject()).isEqualTo("<subject>");
+    assertThat(result.getAudience()).containsExactly("<aud1>", "<aud2>");
+    assertThat(result.getExpiresAt()).isEqualTo(expected.getExpiresAt());
+    assertThat(result.getNotBefore()).isEqualTo(expected.getNotBefore());
+    assertThat(result.getIssuedAt()).isNull();
+    assertThat(result.getClaim("scope").asString()).isEqualTo("foo bar");
+    assertThat(result.getClaim("int").asInt()).isEqualTo(4711);
+    assertThat(result.getClaim("roles").asArray(String.class)).containsExactly("a", "b");
+    assertThat(result.getClaim("unknown").isNull()).isTrue();
+    assertThat(result.getClaims()).containsOnlyKeys(expected.getClaims().keySet());
+  }
+
+  @Test
+  public void verifiesWithJavaJwtAlgorithm() {
+    val algorithm = Algorithm.HMAC256("secret");
+    final String token = JWT.create().withClaim("foo", "bar").sign(algorithm);
+
+    algorithm.verify(uut.decode(token));
+  }
+
+  @Test
+  public void readsNumericDates() {
+    final String token =
+        JWT.create()
+            .withExpiresAt(new Date(1_600_000_000_000L))
+            .withClaim("text", "foo")
+            .sign(Algorithm.none());
+
+    val result = uut.decode(token);
+
+    assertThat(result.numericDate("exp", -1)).isEqualTo(1_600_000_000L);
+    assertThat(result.numericDate("nbf", -1)).isEqualTo(-1);
+    assertThatThrownBy(() -> result.numericDate("text", -1))
+        .isInstanceOf(JWTDecodeException.class)
+        .hasMessage("The claim 'text' contained a non-numeric date value.");
+  }
+
+  @Test
+  public void decodesHeaderWithoutPayload() {
+    final String token = JWT.create().withKeyId("<kid>").sign(Algorithm.HMAC256("secret"));
+    final TokenSegments segments = TokenSegments.of(token);
+
+    val header = uut.decodeHeader(segments);
+
+    assertThat(header.getAlgorithm()).isEqualTo("HS256");
+    assertThat(header.getKeyId()).isEqualTo("<kid>");
+    assertThat(header.getType()).isEqualTo("JWT");
+    assertThat(uut.decode(segments, header).getKeyId()).isEqualTo("<kid>");
+    assertThatThrownBy(() -> uut.decodeHeader(TokenSegments.of("!!!.e30.")))
+        .isInstanceOf(JWTDecodeException.class);
+  }
+
+  @Test
+  public void reusesDecodedHeaders() {
+    final String token = JWT.create().withKeyId("<kid>").sign(Algorithm.HMAC256("secret"));
+    final String otherToken = JWT.create().withKeyId("<other>").sign(Algorithm.HMAC256("secret"));
+
+    val header = uut.decodeHeader(TokenSegments.of(token));
+
+    assertThat(uut.decodeHeader(TokenSegments.of("Bearer " + token, 7, token.length() + 7)))
+        .isSameAs(header);
+    assertThat(uut.decode(token).headerNode()).isSameAs(uut.decode(token).headerNode());
+    assertThat(uut.decodeHeader(TokenSegments.of(otherToken)).getKeyId()).isEqualTo("<other>");
+  }
+
+  @Test
+  public void doesNotCacheLongHeaders() {
+    final StringBuilder keyId = new StringBuilder();
+    for (int i = 0; i < HeaderCache.MAX_SEGMENT_LENGTH; i++) {
+      keyId.append('k');
+    }
+    final String token = JWT.create().withKeyId(keyId.toString()).sign(Algorithm.HMAC256("secret"));
+
+    val header = uut.decodeHeader(TokenSegments.of(token));
+
+    assertThat(header.getKeyId()).isEqualTo(keyId.toString());
+    assertThat(uut.decodeHeader(TokenSegments.of(token))).isNotSameAs(header);
+  }
+
+  @Test
+  public void decodesPaddedSegments() {
+    final String header = encode("{\"alg\":\"none\"}") + "==";
+    final String payload = encode("{\"sub\":\"x\"}");
+
+    val result = uut.decode(header + "." + payload + ".");
+
+    assertThat(result.getAlgorithm()).isEqualTo("none");
+    assertThat(result.getSubject()).isEqualTo("x");
+  }
+
+  @Test
+  public void decodesLargePayload() {
+    final StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      value.append("0123456789");
+    }
+    final String token = JWT.create().withClaim("large", value.toString()).sign(Algorithm.none());
+
+    assertThat(uut.decode(token).getClaim("large").asString()).isEqualTo(value.toString());
+    assertThat(uut.decode(JWT.create().sign(Algorithm.none())).getClaims()).isEmpty();
+  }
+
+  @Test
+  public void streamingDecoderKeepsOnlyRetainedClaims() throws Exception {
+    val uut = TokenDecoder.retaining(new HashSet<>(Arrays.asList("iss", "scope", "nested")));
+    final String payload =
+        "{\"iss\":\"<issuer>\",\"skipped\":{\"a\":[1,{\"b\":2}]},\"scope\":\"foo\","
+            + "\"list\":[1,2,3],\"nested\":{\"c\":true},\"other\":null}";
+    final String token =
+        encode("{\"alg\":\"none\",\"kid\":\"<kid>\"}") + "." + encode(payload) + ".";
+
+    val result = uut.decode(token);
+
+    assertThat(result.getKeyId()).isEqualTo("<kid>");
+    assertThat(result.getPayload()).isEqualTo(encode(payload));
+    assertThat(result.getClaims()).containsOnlyKeys("iss", "scope", "nested");
+    assertThat(result.getIssuer()).isEqualTo("<issuer>");
+    assertThat(result.getClaim("scope").asString()).isEqualTo("foo");
+    assertThat(result.getClaim("nested").asMap()).containsEntry("c", true);
+    assertThat(result.getClaim("skipped").isNull()).isTrue();
+  }
+
+  @Test
+  public void streamingDecoderRejectsInvalidPayload() {
+    val uut = TokenDecoder.retaining(new HashSet<>(Arrays.asList("iss")));
+
+    assertThatThrownBy(() -> uut.decode(encode("{}") + "." + encode("{\"iss\":") + "."))
+        .isInstanceOf(JWTDecodeException.class);
+    assertThatThrownBy(() -> uut.decode(encode("{}") + "." + encode("[1]") + "."))
+        .isInstanceOf(JWTDecodeException.class)
+        .hasMessage("The token segment doesn't contain a JSON object.");
+  }
+
+  @Test
+  public void rejectsInvalidBase64() {
+    assertThatThrownBy(() -> uut.decode("a+b.c.d"))
+        .isInstanceOf(JWTDecodeException.class)
+        .hasMessage("The input is not a valid base 64 encoded string.");
+  }
+
+  @Test
+  public void rejectsInvalidJson() {
+    assertThatThrownBy(() -> uut.decode(encode("{\"alg\"") + ".e30."))
+        .isInstanceOf(JWTDecodeException.class);
+  }
+
+  @Test
+  public void rejectsTokenWithMissingParts() {
+    assertThatThrownBy(() -> uut.decode("<token>"))
+        .isInstanceOf(JWTDecodeException.class)
+        .hasMessage("The token was expected to have 3 parts, but got 1.");
+  }
+
+  private static String encode(String json) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+}
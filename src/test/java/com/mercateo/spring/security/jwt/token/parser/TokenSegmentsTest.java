@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import org.junit.Test;
+
+public class TokenSegmentsTest {
+
+  @Test
+  public void locatesSegmentsByIndex() {
+    final TokenSegments uut = TokenSegments.of("aaa.bb.c");
+
+    assertThat(uut.isWellFormed()).isTrue();
+    assertThat(uut.header()).isEqualTo("aaa");
+    assertThat(uut.payload()).isEqualTo("bb");
+    assertThat(uut.signature()).isEqualTo("c");
+    assertThat(uut.payloadStart()).isEqualTo(4);
+    assertThat(uut.signatureStart()).isEqualTo(7);
+  }
+
+  @Test
+  public void returnsSourceStringAsToken() {
+    final String token = "aaa.bb.c";
+
+    assertThat(TokenSegments.of(token).token()).isSameAs(token);
+  }
+
+  @Test
+  public void locatesTokenInAuthorizationHeader() {
+    final TokenSegments uut = TokenSegments.locate("Bearer   aaa.bb.c  trailing", 6);
+
+    assertThat(uut.token()).isEqualTo("aaa.bb.c");
+    assertThat(uut.header()).isEqualTo("aaa");
+    assertThat(uut.signature()).isEqualTo("c");
+  }
+
+  @Test
+  public void locatesEmptyTokenAtEndOfHeader() {
+    final TokenSegments uut = TokenSegments.locate("Bearer ", 7);
+
+    assertThat(uut.token()).isEmpty();
+    assertThat(uut.isWellFormed()).isFalse();
+  }
+
+  @Test
+  public void rejectsTokenWithWrongNumberOfParts() {
+    assertThatThrownBy(() -> TokenSegments.of("aaa.bb.c.d").requireWellFormed())
+        .isInstanceOf(JWTDecodeException.class)
+        .hasMessage("The token was expected to have 3 parts, but got 4.");
+  }
+}
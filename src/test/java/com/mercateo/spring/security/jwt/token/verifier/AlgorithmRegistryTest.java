@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AlgorithmRegistryTest {
+
+  private AlgorithmRegistry uut;
+
+  @Before
+  public void setUp() {
+    uut = AlgorithmRegistry.rsa(mock(RSAKeyProvider.class));
+  }
+
+  @Test
+  public void resolvesPrebuiltAlgorithms() {
+    val algorithm = uut.get("RS256").get();
+
+    assertThat(algorithm.getName()).isEqualTo("RS256");
+    assertThat(uut.get("RS256")).containsSame(algorithm);
+    assertThat(uut.get("RS384").get().getName()).isEqualTo("RS384");
+    assertThat(uut.get("RS512").get().getName()).isEqualTo("RS512");
+    assertThat(uut.names()).containsExactlyInAnyOrder("RS256", "RS384", "RS512");
+  }
+
+  @Test
+  public void resolvesNamesIgnoringCase() {
+    assertThat(uut.get("rs256")).containsSame(uut.get("RS256").get());
+  }
+
+  @Test
+  public void doesNotResolveUnknownAlgorithms() {
+    assertThat(uut.get("HS256")).isEmpty();
+    assertThat(uut.get("none")).isEmpty();
+    assertThat(uut.get(null)).isEmpty();
+  }
+
+  @Test
+  public void registersFurtherAlgorithms() {
+    val hmac = Algorithm.HMAC256("secret");
+
+    val uut =
+        AlgorithmRegistry.builder().registerRsa(mock(RSAKeyProvider.class)).register(hmac).build();
+
+    assertThat(uut.get("HS256")).containsSame(hmac);
+    assertThat(uut.get("RS256")).isPresent();
+  }
+
+  @Test
+  public void registersEcdsaAlgorithms() {
+    val uut = AlgorithmRegistry.builder().registerEcdsa(mock(ECDSAKeyProvider.class)).build();
+
+    assertThat(uut.names()).containsExactlyInAnyOrder("ES256", "ES384", "ES512");
+    assertThat(uut.get("ES256").get().getName()).isEqualTo("ES256");
+  }
+
+  @Test
+  public void registersEdDsaAlgorithm() {
+    val uut = AlgorithmRegistry.builder().registerEdDsa(mock(EdDSAKeyProvider.class)).build();
+
+    assertThat(uut.get("EdDSA").get()).isInstanceOf(EdDSAAlgorithm.class);
+  }
+
+  @Test
+  public void rejectsDuplicateAlgorithms() {
+    assertThatThrownBy(
+            () ->
+                AlgorithmRegistry.builder()
+                    .register(Algorithm.HMAC256("secret"))
+                    .register(Algorithm.HMAC256("other")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("algorithm HS256 is already registered");
+  }
+}
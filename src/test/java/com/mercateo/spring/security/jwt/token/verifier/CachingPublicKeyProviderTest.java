@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.auth0.jwk.RateLimitReachedException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.mercateo.spring.security.jwt.ECJWKProvider;
+import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.OKPJWKProvider;
+import com.mercateo.spring.security.jwt.support.Try;
+import com.mercateo.spring.security.jwt.token.keyset.JWTKeyset;
+import com.mercateo.spring.security.jwt.token.keyset.UnknownKeyIdException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingPublicKeyProviderTest {
+
+  private static final String KEY_ID = "0815";
+
+  private JWTKeyset jwtKeyset;
+
+  private AtomicReference<Runnable> changeListener;
+
+  private AtomicLong nanoTime;
+
+  private CachingPublicKeyProvider uut;
+
+  @Before
+  public void setUp() {
+    jwtKeyset = mock(JWTKeyset.class);
+    when(jwtKeyset.getKeysetForId(KEY_ID))
+        .thenReturn(Try.success(new JWKProvider().create(KEY_ID)));
+    changeListener = new AtomicReference<>();
+    doAnswer(
+            invocation -> {
+              changeListener.set(invocation.getArgument(0));
+              return null;
+            })
+        .when(jwtKeyset)
+        .addChangeListener(any());
+    nanoTime = new AtomicLong();
+
+    uut = new CachingPublicKeyProvider(jwtKeyset, Duration.ofSeconds(10), nanoTime::get);
+  }
+
+  @Test
+  public void derivesKeyOnlyOnce() {
+    val key = uut.getPublicKeyById(KEY_ID);
+
+    assertThat(uut.getPublicKeyById(KEY_ID)).isSameAs(key);
+    verify(jwtKeyset, times(1)).getKeysetForId(KEY_ID);
+  }
+
+  @Test
+  public void derivesKeyAgainAfterKeysetChange() {
+    val key = uut.getPublicKeyById(KEY_ID);
+
+    changeListener.get().run();
+
+    assertThat(uut.getPublicKeyById(KEY_ID)).isNotSameAs(key).isEqualTo(key);
+    verify(jwtKeyset, times(2)).getKeysetForId(KEY_ID);
+  }
+
+  @Test
+  public void derivesKeyAgainAfterMaximumAge() {
+    uut.getPublicKeyById(KEY_ID);
+
+    nanoTime.set(Duration.ofSeconds(9).toNanos());
+    uut.getPublicKeyById(KEY_ID);
+    verify(jwtKeyset, times(1)).getKeysetForId(KEY_ID);
+
+    nanoTime.set(Duration.ofSeconds(10).toNanos());
+    uut.getPublicKeyById(KEY_ID);
+    uut.getPublicKeyById(KEY_ID);
+    verify(jwtKeyset, times(2)).getKeysetForId(KEY_ID);
+  }
+
+  @Test
+  public void limitsLookupsOfUnknownKeyIds() {
+    uut =
+        new CachingPublicKeyProvider(
+            jwtKeyset, Duration.ofMinutes(10), 2, Duration.ofSeconds(60), nanoTime::get);
+    uut.getPublicKeyById(KEY_ID);
+
+    assertThat(uut.isKnownOrLookupAllowed("<unknown1>")).isTrue();
+    assertThat(uut.isKnownOrLookupAllowed("<unknown2>")).isTrue();
+    assertThat(uut.isKnownOrLookupAllowed("<unknown3>")).isFalse();
+    assertThat(uut.isKnownOrLookupAllowed(KEY_ID)).isTrue();
+
+    nanoTime.set(Duration.ofSeconds(60).toNanos());
+    assertThat(uut.isKnownOrLookupAllowed("<unknown3>")).isTrue();
+  }
+
+  @Test
+  public void acceptsRotatedKeyIdOnceLookupWindowResets() {
+    uut =
+        new CachingPublicKeyProvider(
+            jwtKeyset, Duration.ofMinutes(10), 1, Duration.ofSeconds(60), nanoTime::get);
+    assertThat(uut.isKnownOrLookupAllowed("<junk>")).isTrue();
+
+    assertThat(uut.isKnownOrLookupAllowed("<rotated>")).isFalse();
+
+    nanoTime.set(Duration.ofSeconds(60).toNanos());
+    assertThat(uut.isKnownOrLookupAllowed("<rotated>")).isTrue();
+  }
+
+  @Test
+  public void acceptsKeyIdsLoadedByKeysetBeyondLookupBudget() {
+    uut =
+        new CachingPublicKeyProvider(
+            jwtKeyset, Duration.ofMinutes(10), 1, Duration.ofSeconds(60), nanoTime::get);
+    assertThat(uut.isKnownOrLookupAllowed("<junk>")).isTrue();
+    when(jwtKeyset.isLoadedKeyId("<rotated>")).thenReturn(true);
+
+    assertThat(uut.isKnownOrLookupAllowed("<rotated>")).isTrue();
+    assertThat(uut.isKnownOrLookupAllowed("<other>")).isFalse();
+  }
+
+  @Test
+  public void providesKeysByType() {
+    when(jwtKeyset.getKeysetForId("4711"))
+        .thenReturn(Try.success(new ECJWKProvider().create("4711")));
+    when(jwtKeyset.getKeysetForId("4712"))
+        .thenReturn(Try.success(new OKPJWKProvider().create("4712")));
+
+    assertThat(uut.rsa().getPublicKeyById(KEY_ID)).isSameAs(uut.getPublicKeyById(KEY_ID));
+    assertThat(uut.ecdsa().getPublicKeyById("4711")).isSameAs(uut.getPublicKeyById("4711"));
+    assertThat(uut.eddsa().getPublicKeyById("4712")).isSameAs(uut.getPublicKeyById("4712"));
+  }
+
+  @Test
+  public void throwsForKeyOfOtherType() {
+    assertThatThrownBy(() -> uut.ecdsa().getPublicKeyById(KEY_ID))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("public key for id 0815 is not of type ECPublicKey");
+    assertThatThrownBy(() -> uut.eddsa().getPublicKeyById(KEY_ID))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("public key for id 0815 is not of type EdDSA");
+  }
+
+  @Test
+  public void throwsForUnknownKey() {
+    when(jwtKeyset.getKeysetForId("<unknown>"))
+        .thenReturn(Try.failure(new SigningKeyNotFoundException("<unknown>", null)));
+
+    assertThatThrownBy(() -> uut.getPublicKeyById("<unknown>"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasCauseInstanceOf(SigningKeyNotFoundException.class);
+  }
+
+  @Test
+  public void remembersUnknownKeyIds() {
+    when(jwtKeyset.getKeysetForId("<unknown>"))
+        .thenReturn(Try.failure(new UnknownKeyIdException("<unknown>")));
+    assertThatThrownBy(() -> uut.getPublicKeyById("<unknown>"))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThatThrownBy(() -> uut.getPublicKeyById("<unknown>"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("key id <unknown> is unknown")
+        .hasCauseInstanceOf(UnknownKeyIdException.class);
+    assertThat(uut.isKnownOrLookupAllowed("<unknown>")).isFalse();
+    assertThat(uut.isKnownOrLookupAllowed("<other>")).isTrue();
+    verify(jwtKeyset, times(1)).getKeysetForId("<unknown>");
+    assertThat(uut.unknownKeyIdStats().hitCount()).isEqualTo(2);
+
+    nanoTime.set(CachingPublicKeyProvider.UNKNOWN_KEY_ID_TTL.toNanos());
+    assertThat(uut.isKnownOrLookupAllowed("<unknown>")).isTrue();
+    assertThatThrownBy(() -> uut.getPublicKeyById("<unknown>"))
+        .isInstanceOf(IllegalStateException.class);
+    verify(jwtKeyset, times(2)).getKeysetForId("<unknown>");
+  }
+
+  @Test
+  public void forgetsUnknownKeyIdsAfterKeysetChange() {
+    when(jwtKeyset.getKeysetForId("4711"))
+        .thenReturn(Try.failure(new UnknownKeyIdException("4711")))
+        .thenReturn(Try.success(new JWKProvider().create("4711")));
+    assertThatThrownBy(() -> uut.getPublicKeyById("4711"))
+        .isInstanceOf(IllegalStateException.class);
+
+    changeListener.get().run();
+
+    assertThat(uut.getPublicKeyById("4711")).isNotNull();
+  }
+
+  @Test
+  public void remembersWrappedUnknownKeyIds() {
+    when(jwtKeyset.getKeysetForId("<unknown>"))
+        .thenReturn(
+            Try.failure(
+                new SigningKeyNotFoundException(
+                    "Failed to get key with kid <unknown>",
+                    new ExecutionException(new UnknownKeyIdException("<unknown>")))));
+    assertThatThrownBy(() -> uut.getPublicKeyById("<unknown>"))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThat(uut.isKnownOrLookupAllowed("<unknown>")).isFalse();
+  }
+
+  @Test
+  public void doesNotRememberTransientLookupFailures() {
+    when(jwtKeyset.getKeysetForId("<unknown>"))
+        .thenReturn(Try.failure(new RateLimitReachedException(1_000L)))
+        .thenReturn(
+            Try.failure(new SigningKeyNotFoundException("<unreachable>", new IOException())))
+        .thenReturn(Try.success(new JWKProvider().create("<unknown>")));
+    assertThatThrownBy(() -> uut.getPublicKeyById("<unknown>"))
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> uut.getPublicKeyById("<unknown>"))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThat(uut.isKnownOrLookupAllowed("<unknown>")).isTrue();
+    assertThat(uut.getPublicKeyById("<unknown>")).isNotNull();
+    assertThat(uut.unknownKeyIdStats().hitCount()).isZero();
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mercateo.spring.security.jwt.token.parser.TokenDecoder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.val;
+import org.junit.Test;
+
+public class ClaimValidatorTest {
+
+  private static final long NOW = 1_600_000_000L;
+
+  @Test
+  public void acceptsTokenWithinLifetime() {
+    val validators = dateValidators(0);
+
+    for (DecodedJWT jwt : decode(lifetime(NOW - 10, NOW + 10))) {
+      assertThatCode(() -> validate(validators, jwt)).doesNotThrowAnyException();
+    }
+  }
+
+  @Test
+  public void rejectsExpiredToken() {
+    val validators = dateValidators(0);
+
+    for (DecodedJWT jwt : decode(lifetime(NOW - 10, NOW - 1))) {
+      assertThatThrownBy(() -> validate(validators, jwt))
+          .isInstanceOf(TokenExpiredException.class)
+          .hasMessage("The Token has expired on %s.", new Date((NOW - 1) * 1000));
+    }
+  }
+
+  @Test
+  public void rejectsTokenNotYetValid() {
+    val validators = dateValidators(0);
+
+    for (DecodedJWT jwt : decode(lifetime(NOW + 1, NOW + 10))) {
+      assertThatThrownBy(() -> validate(validators, jwt))
+          .isInstanceOf(InvalidClaimException.class)
+          .hasMessage("The Token can't be used before %s.", new Date((NOW + 1) * 1000));
+    }
+  }
+
+  @Test
+  public void acceptsDatesWithinLeeway() {
+    val validators = dateValidators(5);
+
+    for (DecodedJWT jwt : decode(lifetime(NOW + 5, NOW - 5))) {
+      assertThatCode(() -> validate(validators, jwt)).doesNotThrowAnyException();
+    }
+  }
+
+  @Test
+  public void acceptsTokenWithoutDates() {
+    val validators = dateValidators(0);
+
+    for (DecodedJWT jwt : decode(JWT.create())) {
+      assertThatCode(() -> validate(validators, jwt)).doesNotThrowAnyException();
+    }
+  }
+
+  @Test
+  public void validatesAudience() {
+    val validators =
+        ClaimValidator.compile(
+            Collections.singletonMap("aud", new HashSet<>(Arrays.asList("<aud1>", "<aud2>"))));
+
+    for (DecodedJWT jwt : decode(JWT.create().withAudience("<aud2>"))) {
+      assertThatCode(() -> validate(validators, jwt)).doesNotThrowAnyException();
+    }
+    for (DecodedJWT jwt : decode(JWT.create().withAudience("<other>", "<aud1>"))) {
+      assertThatCode(() -> validate(validators, jwt)).doesNotThrowAnyException();
+    }
+    for (DecodedJWT jwt : decode(JWT.create().withAudience("<other>"))) {
+      assertThatThrownBy(() -> validate(validators, jwt))
+          .isInstanceOf(InvalidClaimException.class)
+          .hasMessage(
+              "The Claim 'aud' value doesn't contain at least one of the required audiences.");
+    }
+    for (DecodedJWT jwt : decode(JWT.create())) {
+      assertThatThrownBy(() -> validate(validators, jwt)).isInstanceOf(InvalidClaimException.class);
+    }
+  }
+
+  @Test
+  public void validatesIssuer() {
+    val validators =
+        ClaimValidator.compile(
+            Collections.singletonMap("iss", new HashSet<>(Arrays.asList("<iss1>", "<iss2>"))));
+
+    for (DecodedJWT jwt : decode(JWT.create().withIssuer("<iss2>"))) {
+      assertThatCode(() -> validate(validators, jwt)).doesNotThrowAnyException();
+    }
+    for (DecodedJWT jwt : decode(JWT.create().withIssuer("<other>"))) {
+      assertThatThrownBy(() -> validate(validators, jwt))
+          .isInstanceOf(InvalidClaimException.class)
+          .hasMessage("The Claim 'iss' value doesn't match the required one.");
+    }
+    for (DecodedJWT jwt : decode(JWT.create())) {
+      assertThatThrownBy(() -> validate(validators, jwt)).isInstanceOf(InvalidClaimException.class);
+    }
+  }
+
+  @Test
+  public void validatesCustomClaims() {
+    val claims = new LinkedHashMap<String, Object>();
+    claims.put("string", "foo");
+    claims.put("int", 42);
+    claims.put("long", 4_711_000_000L);
+    claims.put("boolean", true);
+    claims.put("double", 1.5);
+    claims.put("date", new Date(NOW * 1000));
+    claims.put("array", new Object[] {"b", "c"});
+    val validators = ClaimValidator.compile(claims);
+
+    for (DecodedJWT jwt : decode(customClaims())) {
+      assertThatCode(() -> validate(validators, jwt)).doesNotThrowAnyException();
+    }
+  }
+
+  @Test
+  public void rejectsDifferentCustomClaims() {
+    assertRejected("string", "bar");
+    assertRejected("int", 43);
+    assertRejected("long", 4_711_000_001L);
+    assertRejected("boolean", false);
+    assertRejected("double", 1.25);
+    assertRejected("date", new Date(NOW * 1000 + 1));
+    assertRejected("array", new Object[] {"a", "d"});
+    assertRejected("missing", "foo");
+  }
+
+  @Test
+  public void rejectsUnsupportedClaimType() {
+    assertThatThrownBy(() -> ClaimValidator.compile(Collections.singletonMap("foo", new Object())))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("The Claim 'foo' value of type Object is not supported.");
+  }
+
+  @Test
+  public void rejectsNonStringAudience() {
+    assertThatThrownBy(
+            () ->
+                ClaimValidator.compile(
+                    Collections.singletonMap("aud", new HashSet<>(Arrays.asList("a", 1)))))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("The Claim 'aud' value contains a non string element.");
+  }
+
+  private void assertRejected(String name, Object value) {
+    val validators = ClaimValidator.compile(Collections.singletonMap(name, value));
+
+    for (DecodedJWT jwt : decode(customClaims())) {
+      assertThatThrownBy(() -> validate(validators, jwt))
+          .isInstanceOf(InvalidClaimException.class)
+          .hasMessage("The Claim '%s' value doesn't match the required one.", name);
+    }
+  }
+
+  private static JWTCreator.Builder customClaims() {
+    return JWT.create()
+        .withClaim("string", "foo")
+        .withClaim("int", 42)
+        .withClaim("long", 4_711_000_000L)
+        .withClaim("boolean", true)
+        .withClaim("double", 1.5)
+        .withClaim("date", new Date(NOW * 1000))
+        .withArrayClaim("array", new String[] {"a", "b", "c"});
+  }
+
+  private static JWTCreator.Builder lifetime(long notBefore, long expiresAt) {
+    return JWT.create()
+        .withNotBefore(new Date(notBefore * 1000))
+        .withExpiresAt(new Date(expiresAt * 1000));
+  }
+
+  private static ClaimValidator[] dateValidators(long leeway) {
+    final Map<String, Object> claims = new LinkedHashMap<>();
+    claims.put("exp", leeway);
+    claims.put("nbf", leeway);
+    return ClaimValidator.compile(claims);
+  }
+
+  private static List<DecodedJWT> decode(JWTCreator.Builder builder) {
+    final String token = builder.sign(Algorithm.none());
+    return Arrays.asList(JWT.decode(token), new TokenDecoder().decode(token));
+  }
+
+  private static void validate(ClaimValidator[] validators, DecodedJWT jwt) {
+    for (ClaimValidator validator : validators) {
+      validator.validate(jwt, NOW);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.OKPJWKProvider;
+import com.mercateo.spring.security.jwt.token.keyset.JWKPublicKeys;
+import java.security.InvalidKeyException;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EdDSAAlgorithmTest {
+
+  private OKPJWKProvider okpJwkProvider;
+
+  private EdDSAAlgorithm uut;
+
+  @Before
+  public void setUp() {
+    okpJwkProvider = new OKPJWKProvider();
+    uut = new EdDSAAlgorithm(keyId -> okpJwkProvider.getPublicKey());
+  }
+
+  @Test
+  public void isSupportedByJvm() {
+    assertThat(EdDSAAlgorithm.isSupported()).isTrue();
+    assertThat(uut.getName()).isEqualTo("EdDSA");
+  }
+
+  @Test
+  public void verifiesSignature() {
+    val jwt = JWT.decode(JWT.create().withSubject("<subject>").sign(okpJwkProvider.getAlgorithm()));
+
+    uut.verify(jwt);
+    uut.verify(jwt);
+  }
+
+  @Test
+  public void rejectsSignatureOfOtherKey() {
+    val jwt =
+        JWT.decode(JWT.create().withSubject("<subject>").sign(new OKPJWKProvider().getAlgorithm()));
+
+    assertThatThrownBy(() -> uut.verify(jwt))
+        .isInstanceOf(SignatureVerificationException.class)
+        .hasNoCause();
+  }
+
+  @Test
+  public void rejectsTamperedPayload() {
+    val token = JWT.create().withSubject("<subject>").sign(okpJwkProvider.getAlgorithm());
+    val parts = token.split("\\.");
+    val otherPayload = JWT.create().withSubject("<other>").sign(okpJwkProvider.getAlgorithm());
+
+    val jwt = JWT.decode(parts[0] + "." + otherPayload.split("\\.")[1] + "." + parts[2]);
+
+    assertThatThrownBy(() -> uut.verify(jwt)).isInstanceOf(SignatureVerificationException.class);
+  }
+
+  @Test
+  public void rejectsKeyOfOtherType() throws Exception {
+    val rsaKey = JWKPublicKeys.publicKey(new JWKProvider().create("0815"));
+    val uut = new EdDSAAlgorithm(keyId -> rsaKey);
+    val jwt = JWT.decode(JWT.create().withSubject("<subject>").sign(okpJwkProvider.getAlgorithm()));
+
+    assertThatThrownBy(() -> uut.verify(jwt))
+        .isInstanceOf(SignatureVerificationException.class)
+        .hasCauseInstanceOf(InvalidKeyException.class);
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void doesNotSign() {
+    assertThatThrownBy(() -> uut.sign(new byte[0]))
+        .isInstanceOf(SignatureGenerationException.class);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.support.Try;
+import com.mercateo.spring.security.jwt.token.config.JWTConfigData;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Shows the cost of rejecting an expired RS256 token, which is rejected on its claims before the
+ * key lookup, compared to the signature verification it would have cost if the signature was
+ * checked first and to verifying a valid token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpiredTokenRejectionBenchmark {
+
+  private JWTVerifier verifier;
+
+  private Algorithm algorithm;
+
+  private String validToken;
+
+  private String expiredToken;
+
+  private DecodedJWT expiredJwt;
+
+  @Setup
+  public void setUp() {
+    final JWKProvider jwkProvider = new JWKProvider();
+    verifier =
+        new JWTVerifierFactory(
+                keyId -> Try.success(jwkProvider.create(keyId)), JWTConfigData.builder().build())
+            .create();
+
+    final long now = System.currentTimeMillis();
+    validToken =
+        JWT.create()
+            .withKeyId("0815")
+            .withExpiresAt(new Date(now + TimeUnit.HOURS.toMillis(1)))
+            .sign(jwkProvider.getAlgorithm());
+    expiredToken =
+        JWT.create()
+            .withKeyId("0815")
+            .withExpiresAt(new Date(now - TimeUnit.HOURS.toMillis(1)))
+            .sign(jwkProvider.getAlgorithm());
+    expiredJwt = JWT.decode(expiredToken);
+    algorithm = verifier.getAlgorithm(expiredJwt);
+  }
+
+  @Benchmark
+  public Object rejectExpired() {
+    try {
+      return verifier.verify(expiredToken);
+    } catch (TokenExpiredException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public DecodedJWT signatureOfExpired() {
+    algorithm.verify(expiredJwt);
+    return expiredJwt;
+  }
+
+  @Benchmark
+  public DecodedJWT verifyValid() {
+    return verifier.verify(validToken);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(ExpiredTokenRejectionBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HMACAlgorithmTest {
+
+  private static final String GATEWAY_SECRET = "gateway-secret-with-at-least-256-bits";
+
+  private static final String OTHER_SECRET = "other-secret-with-at-least-256-bits!";
+
+  private HMACAlgorithm uut;
+
+  @Before
+  public void setUp() {
+    final Map<String, byte[]> secrets = new HashMap<>();
+    secrets.put("https://gateway/", bytes(GATEWAY_SECRET));
+    secrets.put("https://other-gateway/", bytes(OTHER_SECRET));
+    uut = HMACAlgorithm.hs256(secrets);
+  }
+
+  @Test
+  public void verifiesSignatureWithSecretOfIssuer() {
+    val token = JWT.create().withIssuer("https://gateway/").sign(Algorithm.HMAC256(GATEWAY_SECRET));
+
+    uut.verify(JWT.decode(token));
+    uut.verify(JWT.decode(token));
+  }
+
+  @Test
+  public void ignoresKeyId() {
+    val token =
+        JWT.create()
+            .withKeyId("https://other-gateway/")
+            .withIssuer("https://gateway/")
+            .sign(Algorithm.HMAC256(GATEWAY_SECRET));
+
+    uut.verify(JWT.decode(token));
+  }
+
+  @Test
+  public void rejectsTokenSignedWithSecretOfOtherIssuer() {
+    val token =
+        JWT.create()
+            .withKeyId("https://other-gateway/")
+            .withIssuer("https://gateway/")
+            .sign(Algorithm.HMAC256(OTHER_SECRET));
+
+    assertThatThrownBy(() -> uut.verify(JWT.decode(token)))
+        .isInstanceOf(SignatureVerificationException.class)
+        .hasNoCause();
+  }
+
+  @Test
+  public void rejectsSignatureWithOtherSecret() {
+    val token =
+        JWT.create()
+            .withIssuer("https://gateway/")
+            .sign(Algorithm.HMAC256("other-secret-with-at-least-256-bits"));
+
+    assertThatThrownBy(() -> uut.verify(JWT.decode(token)))
+        .isInstanceOf(SignatureVerificationException.class)
+        .hasNoCause();
+  }
+
+  @Test
+  public void rejectsTokenOfUnknownIssuer() {
+    val token = JWT.create().withIssuer("https://other/").sign(Algorithm.HMAC256(GATEWAY_SECRET));
+
+    assertThatThrownBy(() -> uut.verify(JWT.decode(token)))
+        .isInstanceOf(SignatureVerificationException.class)
+        .hasRootCauseMessage("no HMAC secret for issuer https://other/");
+  }
+
+  @Test
+  public void rejectsShortSecret() {
+    val secrets = Collections.singletonMap("https://gateway/", new byte[31]);
+
+    assertThatThrownBy(() -> HMACAlgorithm.hs256(secrets))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("HMAC secret for https://gateway/ must have at least 256 bits for HS256");
+  }
+
+  @Test
+  public void rejectsSecretShorterThanHashOutput() {
+    val secrets = Collections.singletonMap("https://gateway/", new byte[63]);
+
+    assertThat(
+            HMACAlgorithm.hs384(Collections.singletonMap("https://gateway/", new byte[48]))
+                .getName())
+        .isEqualTo("HS384");
+    assertThatThrownBy(
+            () -> HMACAlgorithm.hs384(Collections.singletonMap("https://gateway/", new byte[47])))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("HMAC secret for https://gateway/ must have at least 384 bits for HS384");
+    assertThatThrownBy(() -> HMACAlgorithm.hs512(secrets))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("HMAC secret for https://gateway/ must have at least 512 bits for HS512");
+  }
+
+  @Test
+  public void providesAlgorithmsByName() {
+    val secrets = Collections.singletonMap("https://gateway/", new byte[64]);
+
+    assertThat(HMACAlgorithm.hs384(secrets).getName()).isEqualTo("HS384");
+    assertThat(HMACAlgorithm.hs512(secrets).getName()).isEqualTo("HS512");
+    assertThat(AlgorithmRegistry.builder().registerHmac(secrets).build().names())
+        .containsExactlyInAnyOrder("HS256", "HS384", "HS512");
+  }
+
+  @Test
+  public void registersAlgorithmsOnlyWithSecretsLongEnough() {
+    val secrets = new HashMap<String, byte[]>();
+    secrets.put("https://short/", bytes(OTHER_SECRET));
+    secrets.put("https://medium/", new byte[48]);
+    val token = JWT.create().withIssuer("https://short/").sign(Algorithm.HMAC384(OTHER_SECRET));
+
+    val registry = AlgorithmRegistry.builder().registerHmac(secrets).build();
+
+    assertThat(registry.names()).containsExactlyInAnyOrder("HS256", "HS384");
+    assertThatThrownBy(() -> registry.get("HS384").get().verify(JWT.decode(token)))
+        .isInstanceOf(SignatureVerificationException.class)
+        .hasRootCauseMessage("no HMAC secret for issuer https://short/");
+    assertThat(
+            AlgorithmRegistry.builder()
+                .registerHmac(Collections.singletonMap("https://short/", bytes(OTHER_SECRET)))
+                .build()
+                .names())
+        .containsExactly("HS256");
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void doesNotSign() {
+    assertThatThrownBy(() -> uut.sign(new byte[0]))
+        .isInstanceOf(SignatureGenerationException.class);
+  }
+
+  private static byte[] bytes(String secret) {
+    return secret.getBytes(StandardCharsets.UTF_8);
+  }
+}
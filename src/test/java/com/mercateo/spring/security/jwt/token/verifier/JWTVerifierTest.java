@@ -18,23 +18,37 @@ package com.mercateo.spring.security.jwt.token.verifier;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.auth0.jwk.Jwk;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
 import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.Clock;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mercateo.spring.security.jwt.ECJWKProvider;
 import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.OKPJWKProvider;
 import com.mercateo.spring.security.jwt.support.Pair;
 import com.mercateo.spring.security.jwt.support.Try;
 import com.mercateo.spring.security.jwt.token.config.JWTConfig;
 import com.mercateo.spring.security.jwt.token.config.JWTConfigData;
 import com.mercateo.spring.security.jwt.token.keyset.JWTKeyset;
+import com.mercateo.spring.security.jwt.token.keyset.UnknownKeyIdException;
+import com.mercateo.spring.security.jwt.token.parser.TokenDecoder;
+import com.mercateo.spring.security.jwt.token.parser.TokenSegments;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.val;
 import org.junit.Before;
 import org.junit.Test;
@@ -89,6 +103,97 @@ public class JWTVerifierTest {
     assertThat(jwt.getClaim("undefined").asString()).isNull();
   }
 
+  @Test
+  public void verifiesEcdsaSignedJWT() {
+    val ecJwkProvider = new ECJWKProvider();
+    when(jwks.getKeysetForId("es-key")).thenReturn(Try.success(ecJwkProvider.create("es-key")));
+    val originalToken =
+        JWT.create()
+            .withKeyId("es-key")
+            .withIssuer("https://test.org/")
+            .withExpiresAt(new Date(System.currentTimeMillis() + 30 * MILLISECONDS_PER_SECOND))
+            .sign(ecJwkProvider.getAlgorithm());
+
+    val jwt = uut.verify(originalToken);
+
+    assertThat(jwt.getAlgorithm()).isEqualTo("ES256");
+    assertThat(jwt.getIssuer()).isEqualTo("https://test.org/");
+  }
+
+  @Test
+  public void verifiesPssSignedJWT() {
+    val originalToken =
+        JWT.create()
+            .withKeyId(keyId)
+            .withIssuer("https://test.org/")
+            .sign(new JWKProvider().getPssAlgorithm());
+
+    val jwt = uut.verify(originalToken);
+
+    assertThat(jwt.getAlgorithm()).isEqualTo("PS256");
+  }
+
+  @Test
+  public void verifiesEdDsaSignedJWT() {
+    val okpJwkProvider = new OKPJWKProvider();
+    when(jwks.getKeysetForId("ed-key")).thenReturn(Try.success(okpJwkProvider.create("ed-key")));
+    val originalToken =
+        JWT.create()
+            .withKeyId("ed-key")
+            .withIssuer("https://test.org/")
+            .withExpiresAt(new Date(System.currentTimeMillis() + 30 * MILLISECONDS_PER_SECOND))
+            .sign(okpJwkProvider.getAlgorithm());
+
+    val jwt = uut.verify(originalToken);
+
+    assertThat(jwt.getAlgorithm()).isEqualTo("EdDSA");
+    assertThat(jwt.getIssuer()).isEqualTo("https://test.org/");
+  }
+
+  @Test
+  public void verifiesHmacSignedJWTWithoutKeyset() {
+    val secret = "gateway-secret-with-at-least-256-bits";
+    val config = JWTConfigData.builder().putHmacSecrets("https://gateway/", secret).build();
+    val originalToken =
+        JWT.create()
+            .withIssuer("https://gateway/")
+            .withExpiresAt(new Date(System.currentTimeMillis() + 30 * MILLISECONDS_PER_SECOND))
+            .sign(Algorithm.HMAC256(secret));
+
+    assertThat(config.jwtVerifier()).isPresent();
+    val jwt = config.jwtVerifier().get().verify(originalToken);
+
+    assertThat(jwt.getAlgorithm()).isEqualTo("HS256");
+    assertThatThrownBy(() -> config.jwtVerifier().get().verify(createToken(0, 30)))
+        .isInstanceOf(AlgorithmMismatchException.class);
+  }
+
+  @Test
+  public void failsVerifyingHmacSignedJWTWithRsaPublicKeyAsSecret() {
+    val originalToken =
+        JWT.create().withKeyId(keyId).withIssuer("https://test.org/").sign(Algorithm.HMAC256("x"));
+
+    assertThatThrownBy(() -> uut.verify(originalToken))
+        .isInstanceOf(AlgorithmMismatchException.class);
+  }
+
+  @Test
+  public void failsVerifyingEcdsaSignedJWTWithRsaKey() {
+    val originalToken = JWT.create().withKeyId(keyId).sign(new ECJWKProvider().getAlgorithm());
+
+    assertThatThrownBy(() -> uut.verify(originalToken))
+        .isInstanceOf(SignatureVerificationException.class);
+  }
+
+  @Test
+  public void verifiesDecodedJWTWithoutDecodingAgain() {
+    val decodedToken = JWT.decode(createToken(0, 30));
+
+    val jwt = uut.verify(decodedToken);
+
+    assertThat(jwt).isSameAs(decodedToken);
+  }
+
   @Test
   public void verifiesJWTWithAudience() {
     val originalToken = createToken(0, 30, Pair.of("aud", AUDIENCE));
@@ -134,6 +239,85 @@ public class JWTVerifierTest {
         .hasMessageStartingWith("The Token has expired on ");
   }
 
+  @Test
+  public void rejectsExpiredTokenBeforeKeyLookup() {
+    val originalToken = createToken(0, -30);
+    val forgedToken = originalToken.substring(0, originalToken.lastIndexOf('.') + 1) + "AAAA";
+
+    assertThatThrownBy(() -> uut.verify(forgedToken)).isInstanceOf(TokenExpiredException.class);
+
+    // the only lookup is the one of the set up
+    verify(jwks, times(1)).getKeysetForId(keyId);
+  }
+
+  @Test
+  public void verifiesJWTOfAcceptedIssuer() {
+    val config =
+        JWTConfigData.builder().addTokenIssuers("https://other.org/", "https://test.org/").build();
+    uut = new JWTVerifierFactory(jwks, config).create();
+
+    assertThat(uut.verify(createToken(0, 30)).getIssuer()).isEqualTo("https://test.org/");
+  }
+
+  @Test
+  public void failsVerifyingUnknownIssuerBeforeKeyLookup() {
+    val config = JWTConfigData.builder().addTokenIssuers("https://other.org/").build();
+    uut = new JWTVerifierFactory(jwks, config).create();
+    val originalToken = createToken(0, 30);
+
+    assertThatThrownBy(() -> uut.verify(originalToken))
+        .isInstanceOf(InvalidClaimException.class)
+        .hasMessage("The Claim 'iss' value doesn't match the required one.");
+    verify(jwks, times(1)).getKeysetForId(keyId);
+  }
+
+  @Test
+  public void screensHeader() {
+    val decoder = new TokenDecoder();
+    uut.verify(createToken(0, 30));
+
+    uut.screen(decoder.decodeHeader(TokenSegments.of(createToken(0, 30))));
+    assertThatThrownBy(
+            () ->
+                uut.screen(
+                    decoder.decodeHeader(
+                        TokenSegments.of(JWT.create().sign(Algorithm.HMAC256("secret"))))))
+        .isInstanceOf(AlgorithmMismatchException.class);
+  }
+
+  @Test
+  public void screensUnknownKeyIdsWithinLookupBudget() {
+    val decoder = new TokenDecoder();
+    uut.verify(createToken(0, 30));
+    for (int i = 0; i < CachingPublicKeyProvider.UNKNOWN_KEY_LOOKUPS; i++) {
+      uut.screen(decoder.decodeHeader(TokenSegments.of(unknownKeyIdToken(i))));
+    }
+
+    assertThatThrownBy(
+            () -> uut.screen(decoder.decodeHeader(TokenSegments.of(unknownKeyIdToken(-1)))))
+        .isInstanceOf(SignatureVerificationException.class)
+        .hasRootCauseMessage("key id <unknown-1> is unknown and no key lookup is allowed");
+    uut.screen(decoder.decodeHeader(TokenSegments.of(createToken(0, 30))));
+  }
+
+  @Test
+  public void countsRejectedLookupsOfUnknownKeyIds() {
+    when(jwks.getKeysetForId("<unknown0>"))
+        .thenReturn(Try.failure(new UnknownKeyIdException("<unknown0>")));
+
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(() -> uut.verify(unknownKeyIdToken(0)))
+          .isInstanceOf(SignatureVerificationException.class);
+    }
+
+    verify(jwks, times(1)).getKeysetForId("<unknown0>");
+    assertThat(uut.unknownKeyIdStats().get().hitCount()).isEqualTo(2);
+  }
+
+  private String unknownKeyIdToken(int index) {
+    return JWT.create().withKeyId("<unknown" + index + ">").sign(algorithm);
+  }
+
   @Test
   public void verifiesOffsetIssuedTokenWithDefaultLeeway() {
     val originalToken = createToken(58, 3600);
@@ -164,6 +348,55 @@ public class JWTVerifierTest {
     assertThat(jwt.getExpiresAt()).isBefore(new Date());
   }
 
+  @Test
+  public void verifiesExpiryAgainstGivenClock() {
+    val secret = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    val now = new AtomicLong(1_600_000_000_000L);
+    uut =
+        JWTVerifier.init(
+                AlgorithmRegistry.builder()
+                    .registerHmac(Collections.singletonMap("https://test.org/", secret))
+                    .build())
+            .build(now::get);
+    val token =
+        JWT.create()
+            .withIssuer("https://test.org/")
+            .withExpiresAt(new Date(1_600_000_010_000L))
+            .sign(Algorithm.HMAC256(secret));
+
+    assertThat(uut.verify(token).getIssuer()).isEqualTo("https://test.org/");
+
+    now.set(1_600_000_010_999L);
+    assertThat(uut.verify(token).getIssuer()).isEqualTo("https://test.org/");
+
+    now.set(1_600_000_011_000L);
+    assertThatThrownBy(() -> uut.verify(token)).isInstanceOf(TokenExpiredException.class);
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void verifiesExpiryAgainstGivenDateClock() {
+    val secret = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    val now = new AtomicLong(1_600_000_010_999L);
+    final Clock clock = () -> new Date(now.get());
+    uut =
+        JWTVerifier.init(
+                AlgorithmRegistry.builder()
+                    .registerHmac(Collections.singletonMap("https://test.org/", secret))
+                    .build())
+            .build(clock);
+    val token =
+        JWT.create()
+            .withIssuer("https://test.org/")
+            .withExpiresAt(new Date(1_600_000_010_000L))
+            .sign(Algorithm.HMAC256(secret));
+
+    assertThat(uut.verify(token).getIssuer()).isEqualTo("https://test.org/");
+
+    now.set(1_600_000_011_000L);
+    assertThatThrownBy(() -> uut.verify(token)).isInstanceOf(TokenExpiredException.class);
+  }
+
   @Test
   public void failsVerifyingMissingAudience() {
     val originalToken = createToken(0, 30);
@@ -214,5 +447,42 @@ public class JWTVerifierTest {
     when(jwt.getAlgorithm()).thenReturn("RS512");
     Algorithm algo3 = uut.getAlgorithm(jwt);
     assertEquals("RS512", algo3.getName());
+
+    when(jwt.getAlgorithm()).thenReturn("ES256");
+    assertEquals("ES256", uut.getAlgorithm(jwt).getName());
+
+    when(jwt.getAlgorithm()).thenReturn("ES384");
+    assertEquals("ES384", uut.getAlgorithm(jwt).getName());
+
+    when(jwt.getAlgorithm()).thenReturn("ES512");
+    assertEquals("ES512", uut.getAlgorithm(jwt).getName());
+
+    when(jwt.getAlgorithm()).thenReturn("PS256");
+    assertEquals("PS256", uut.getAlgorithm(jwt).getName());
+
+    when(jwt.getAlgorithm()).thenReturn("EdDSA");
+    assertEquals("EdDSA", uut.getAlgorithm(jwt).getName());
+  }
+
+  @Test
+  public void reusesAlgorithms() {
+    DecodedJWT jwt = mock(DecodedJWT.class);
+    when(jwt.getAlgorithm()).thenReturn("RS256");
+    Algorithm algo = uut.getAlgorithm(jwt);
+
+    assertSame(algo, uut.getAlgorithm(jwt));
+    when(jwt.getAlgorithm()).thenReturn("rs256");
+    assertSame(algo, uut.getAlgorithm(jwt));
+  }
+
+  @Test
+  public void rejectsUnsupportedAlgorithm() {
+    DecodedJWT jwt = mock(DecodedJWT.class);
+    when(jwt.getAlgorithm()).thenReturn("HS256");
+
+    assertThatThrownBy(() -> uut.getAlgorithm(jwt))
+        .isInstanceOf(AlgorithmMismatchException.class)
+        .hasMessageStartingWith("The provided Algorithm has to be one of ")
+        .hasMessageEndingWith(", but was HS256.");
   }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.support.Try;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the signature verification of java-jwt's {@link Algorithm#RSA256}, which looks up a new
+ * {@link java.security.Signature} per token, with {@link RSASignatureAlgorithm} reusing one per
+ * thread, and shows the cost of PS256 on the pooled signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PooledSignatureBenchmark {
+
+  private static final String KEY_ID = "0815";
+
+  private Algorithm javaJwtRs256;
+
+  private Algorithm pooledRs256;
+
+  private Algorithm pooledPs256;
+
+  private DecodedJWT rs256Token;
+
+  private DecodedJWT ps256Token;
+
+  @Setup
+  public void setUp() {
+    final JWKProvider jwkProvider = new JWKProvider();
+    final Jwk jwk = jwkProvider.create(KEY_ID);
+    final RSAKeyProvider keyProvider =
+        new CachingPublicKeyProvider(keyId -> Try.success(jwk)).rsa();
+
+    javaJwtRs256 = Algorithm.RSA256(keyProvider);
+    pooledRs256 = RSASignatureAlgorithm.rs256(keyProvider);
+    pooledPs256 = RSASignatureAlgorithm.ps256(keyProvider);
+
+    rs256Token = JWT.decode(JWT.create().withKeyId(KEY_ID).sign(jwkProvider.getAlgorithm()));
+    ps256Token = JWT.decode(JWT.create().withKeyId(KEY_ID).sign(jwkProvider.getPssAlgorithm()));
+  }
+
+  @Benchmark
+  public DecodedJWT javaJwtRs256() {
+    javaJwtRs256.verify(rs256Token);
+    return rs256Token;
+  }
+
+  @Benchmark
+  public DecodedJWT pooledRs256() {
+    pooledRs256.verify(rs256Token);
+    return rs256Token;
+  }
+
+  @Benchmark
+  public DecodedJWT pooledPs256() {
+    pooledPs256.verify(ps256Token);
+    return ps256Token;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PooledSignatureBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
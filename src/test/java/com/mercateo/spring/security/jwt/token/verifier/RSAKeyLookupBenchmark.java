@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.support.Try;
+import com.mercateo.spring.security.jwt.token.keyset.JWTKeyset;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the public key lookup of {@link CachingPublicKeyProvider} with deriving the key from the
+ * keyset on every lookup, as done before. The keyset itself always hits, like a warm JWK cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RSAKeyLookupBenchmark {
+
+  private static final String KEY_ID = "0815";
+
+  private JWTKeyset jwtKeyset;
+
+  private RSAKeyProvider cachingKeyProvider;
+
+  @Setup
+  public void setUp() {
+    final Jwk jwk = new JWKProvider().create(KEY_ID);
+    jwtKeyset = keyId -> Try.success(jwk);
+    cachingKeyProvider = new CachingPublicKeyProvider(jwtKeyset).rsa();
+  }
+
+  @Benchmark
+  public RSAPublicKey derivedPerLookup() {
+    return jwtKeyset
+        .getKeysetForId(KEY_ID)
+        .mapTry(Jwk::getPublicKey)
+        .map(Key::getEncoded)
+        .mapTry(
+            bytes ->
+                (RSAPublicKey)
+                    KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(bytes)))
+        .getOrElseThrow(IllegalStateException::new);
+  }
+
+  @Benchmark
+  public RSAPublicKey snapshot() {
+    return cachingKeyProvider.getPublicKeyById(KEY_ID);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(RSAKeyLookupBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
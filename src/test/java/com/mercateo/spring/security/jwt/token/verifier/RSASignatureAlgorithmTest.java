@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.JcaSigningAlgorithm;
+import com.mercateo.spring.security.jwt.token.keyset.JWKPublicKeys;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RSASignatureAlgorithmTest {
+
+  private JWKProvider jwkProvider;
+
+  private KeyPair otherKeyPair;
+
+  private RSAKeyProvider keyProvider;
+
+  @Before
+  public void setUp() throws Exception {
+    jwkProvider = new JWKProvider();
+    final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    otherKeyPair = generator.generateKeyPair();
+
+    keyProvider = mock(RSAKeyProvider.class);
+    when(keyProvider.getPublicKeyById("0815"))
+        .thenReturn((RSAPublicKey) JWKPublicKeys.publicKey(jwkProvider.create("0815")));
+    when(keyProvider.getPublicKeyById("4711")).thenReturn((RSAPublicKey) otherKeyPair.getPublic());
+  }
+
+  @Test
+  public void verifiesPkcs1Signatures() {
+    val privateKey = (RSAPrivateKey) otherKeyPair.getPrivate();
+
+    RSASignatureAlgorithm.rs256(keyProvider)
+        .verify(JWT.decode(sign("4711", Algorithm.RSA256(null, privateKey))));
+    RSASignatureAlgorithm.rs384(keyProvider)
+        .verify(JWT.decode(sign("4711", Algorithm.RSA384(null, privateKey))));
+    RSASignatureAlgorithm.rs512(keyProvider)
+        .verify(JWT.decode(sign("4711", Algorithm.RSA512(null, privateKey))));
+  }
+
+  @Test
+  public void verifiesPssSignatures() {
+    assertThat(RSASignatureAlgorithm.isPssSupported()).isTrue();
+
+    RSASignatureAlgorithm.ps256(keyProvider)
+        .verify(JWT.decode(sign("0815", jwkProvider.getPssAlgorithm())));
+    RSASignatureAlgorithm.ps384(keyProvider)
+        .verify(JWT.decode(sign("4711", pss("PS384", "SHA-384", MGF1ParameterSpec.SHA384, 48))));
+    RSASignatureAlgorithm.ps512(keyProvider)
+        .verify(JWT.decode(sign("4711", pss("PS512", "SHA-512", MGF1ParameterSpec.SHA512, 64))));
+  }
+
+  @Test
+  public void verifiesTokensOfAlternatingKeys() {
+    val uut = RSASignatureAlgorithm.rs256(keyProvider);
+    val token = JWT.decode(sign("0815", jwkProvider.getAlgorithm()));
+    val otherToken =
+        JWT.decode(sign("4711", Algorithm.RSA256(null, (RSAPrivateKey) otherKeyPair.getPrivate())));
+
+    uut.verify(token);
+    uut.verify(otherToken);
+    uut.verify(token);
+    uut.verify(token);
+  }
+
+  @Test
+  public void verifiesAgainAfterInvalidSignature() {
+    val uut = RSASignatureAlgorithm.rs256(keyProvider);
+    val token = sign("0815", jwkProvider.getAlgorithm());
+    val signatureStart = token.lastIndexOf('.') + 1;
+    val forged =
+        JWT.decode(
+            token.substring(0, signatureStart) + "AAAA" + token.substring(signatureStart + 4));
+
+    assertThatThrownBy(() -> uut.verify(forged)).isInstanceOf(SignatureVerificationException.class);
+    uut.verify(JWT.decode(token));
+  }
+
+  @Test
+  public void rejectsSignatureOfOtherKey() {
+    val token =
+        JWT.decode(sign("0815", Algorithm.RSA256(null, (RSAPrivateKey) otherKeyPair.getPrivate())));
+
+    assertThatThrownBy(() -> RSASignatureAlgorithm.rs256(keyProvider).verify(token))
+        .isInstanceOf(SignatureVerificationException.class)
+        .hasNoCause();
+  }
+
+  @Test
+  public void rejectsPkcs1SignatureAsPss() {
+    val token = JWT.decode(sign("0815", jwkProvider.getAlgorithm()));
+
+    assertThatThrownBy(() -> RSASignatureAlgorithm.ps256(keyProvider).verify(token))
+        .isInstanceOf(SignatureVerificationException.class);
+  }
+
+  @Test
+  public void rejectsUnknownKey() {
+    when(keyProvider.getPublicKeyById("<unknown>")).thenThrow(new IllegalStateException());
+    val token = JWT.decode(sign("<unknown>", jwkProvider.getAlgorithm()));
+
+    assertThatThrownBy(() -> RSASignatureAlgorithm.rs256(keyProvider).verify(token))
+        .isInstanceOf(SignatureVerificationException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  private Algorithm pss(String name, String hash, MGF1ParameterSpec mgf, int saltLength) {
+    return new JcaSigningAlgorithm(
+        name,
+        "RSASSA-PSS",
+        new PSSParameterSpec(hash, "MGF1", mgf, saltLength, 1),
+        otherKeyPair.getPrivate());
+  }
+
+  private static String sign(String keyId, Algorithm algorithm) {
+    return JWT.create().withKeyId(keyId).withSubject("<subject>").sign(algorithm);
+  }
+}
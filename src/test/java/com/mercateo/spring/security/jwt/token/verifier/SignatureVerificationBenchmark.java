@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mercateo.spring.security.jwt.ECJWKProvider;
+import com.mercateo.spring.security.jwt.JWKProvider;
+import com.mercateo.spring.security.jwt.OKPJWKProvider;
+import com.mercateo.spring.security.jwt.support.Try;
+import com.mercateo.spring.security.jwt.token.config.JWTConfigData;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the throughput of {@link JWTVerifier} for tokens signed with RS256 (2048 bit key), ES256
+ * and EdDSA (Ed25519), all resolving their key through the same keyset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureVerificationBenchmark {
+
+  private JWTVerifier verifier;
+
+  private String rs256Token;
+
+  private String es256Token;
+
+  private String eddsaToken;
+
+  @Setup
+  public void setUp() {
+    final JWKProvider rsaJwkProvider = new JWKProvider();
+    final ECJWKProvider ecJwkProvider = new ECJWKProvider();
+    final OKPJWKProvider okpJwkProvider = new OKPJWKProvider();
+    final Map<String, Jwk> keys = new HashMap<>();
+    keys.put("rsa", rsaJwkProvider.create("rsa"));
+    keys.put("ec", ecJwkProvider.create("ec"));
+    keys.put("okp", okpJwkProvider.create("okp"));
+
+    verifier =
+        new JWTVerifierFactory(
+                keyId -> Try.success(keys.get(keyId)), JWTConfigData.builder().build())
+            .create();
+
+    final Date expiresAt = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+    rs256Token =
+        JWT.create().withKeyId("rsa").withExpiresAt(expiresAt).sign(rsaJwkProvider.getAlgorithm());
+    es256Token =
+        JWT.create().withKeyId("ec").withExpiresAt(expiresAt).sign(ecJwkProvider.getAlgorithm());
+    eddsaToken =
+        JWT.create().withKeyId("okp").withExpiresAt(expiresAt).sign(okpJwkProvider.getAlgorithm());
+  }
+
+  @Benchmark
+  public DecodedJWT rs256() {
+    return verifier.verify(rs256Token);
+  }
+
+  @Benchmark
+  public DecodedJWT es256() {
+    return verifier.verify(es256Token);
+  }
+
+  @Benchmark
+  public DecodedJWT eddsa() {
+    return verifier.verify(eddsaToken);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(SignatureVerificationBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
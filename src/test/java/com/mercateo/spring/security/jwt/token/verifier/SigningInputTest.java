@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2017 Mercateo AG (http://www.mercateo.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mercateo.spring.security.jwt.token.verifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mercateo.spring.security.jwt.token.parser.TokenDecoder;
+import com.mercateo.spring.security.jwt.token.parser.TokenSegments;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.val;
+import org.junit.Test;
+
+public class SigningInputTest {
+
+  @Test
+  public void encodesHeaderAndPayload() throws Exception {
+    val input = SigningInput.of(jwt("eyJh.eyJi.c2ln"));
+
+    assertThat(input.length()).isEqualTo(9);
+    assertThat(mac(input)).isEqualTo(mac("eyJh.eyJi"));
+  }
+
+  @Test
+  public void encodesLongTokens() throws Exception {
+    final char[] payload = new char[40_000];
+    Arrays.fill(payload, 'A');
+    val signedContent = "eyJh." + new String(payload);
+
+    val input = SigningInput.of(jwt(signedContent + ".c2ln"));
+
+    assertThat(input.length()).isEqualTo(signedContent.length());
+    assertThat(mac(input)).isEqualTo(mac(signedContent));
+    assertThat(SigningInput.of(jwt("eyJh.eyJi.c2ln")).length()).isEqualTo(9);
+  }
+
+  @Test
+  public void encodesLocatedSegmentsOfParsedToken() throws Exception {
+    val header = "Bearer eyJhbGciOiJIUzI1NiJ9.e30.c2ln";
+    val jwt = new TokenDecoder().decode(TokenSegments.locate(header, 6));
+
+    val input = SigningInput.of(jwt);
+
+    assertThat(mac(input)).isEqualTo(mac("eyJhbGciOiJIUzI1NiJ9.e30"));
+  }
+
+  @Test
+  public void rejectsNonAsciiCharacters() {
+    assertThatThrownBy(() -> SigningInput.of(jwt("eyJh.eyJŁ.c2ln")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("The token contains a non ASCII character.");
+  }
+
+  @Test
+  public void rejectsMalformedTokens() {
+    assertThatThrownBy(() -> SigningInput.of(jwt("eyJh.eyJi")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static DecodedJWT jwt(String token) {
+    val jwt = mock(DecodedJWT.class);
+    when(jwt.getToken()).thenReturn(token);
+    return jwt;
+  }
+
+  private static byte[] mac(SigningInput input) throws Exception {
+    val mac = newMac();
+    input.update(mac);
+    return mac.doFinal();
+  }
+
+  private static byte[] mac(String content) throws Exception {
+    return newMac().doFinal(content.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static Mac newMac() throws Exception {
+    val mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec(new byte[32], "HmacSHA256"));
+    return mac;
+  }
+}
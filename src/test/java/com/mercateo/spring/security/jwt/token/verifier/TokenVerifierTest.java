@@ -6,9 +6,9 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.RSAKeyProvider;
 import com.mercateo.spring.security.jwt.support.CollectionUtils;
+import com.mercateo.spring.security.jwt.support.EpochClock;
 import com.mercateo.spring.security.jwt.support.Pair;
 import com.mercateo.spring.security.jwt.token.exception.InvalidTokenException;
-import com.mercateo.spring.security.jwt.token.verifier.JWTVerifier.ClockImpl;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
@@ -67,7 +67,7 @@ public class TokenVerifierTest {
     // arrange
     val keyProvider = createRsaKeyProvider();
     Map<String, Object> claims = CollectionUtils.mapOfTuples(Pair.of("Foo", "foo"));
-    val clock = new ClockImpl();
+    val clock = EpochClock.system();
     val jwtVerifier = new JWTVerifier(keyProvider, claims, clock);
     val uut = new TokenVerifier(Optional.of(jwtVerifier));
 
@@ -91,7 +91,7 @@ public class TokenVerifierTest {
     // arrange
     val keyProvider = createRsaKeyProvider();
     Map<String, Object> claims = CollectionUtils.mapOfTuples(Pair.of("Foo", "foo"));
-    val clock = new ClockImpl();
+    val clock = EpochClock.system();
     val jwtVerifier = new JWTVerifier(keyProvider, claims, clock);
     val uut = new TokenVerifier(Optional.of(jwtVerifier));
 